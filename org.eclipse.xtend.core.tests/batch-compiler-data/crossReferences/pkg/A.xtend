@@ -0,0 +1,13 @@
+package pkg
+
+class A {
+
+	def B b() {
+		new B
+	}
+
+	def String name() {
+		b.count
+	}
+
+}
@@ -0,0 +1,9 @@
+package pkg
+
+class B {
+
+	def int count() {
+		new C().values.size
+	}
+
+}
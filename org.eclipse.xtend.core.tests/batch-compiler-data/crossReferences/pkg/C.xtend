@@ -0,0 +1,11 @@
+package pkg
+
+import java.util.List
+
+class C extends A {
+
+	def List<String> values() {
+		#[name, undefined()]
+	}
+
+}
@@ -0,0 +1,11 @@
+package pkg
+
+class D {
+
+	val C c = new C
+
+	def Missing missing() {
+		null
+	}
+
+}
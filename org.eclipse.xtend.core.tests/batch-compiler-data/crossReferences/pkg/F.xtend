@@ -0,0 +1,7 @@
+package pkg
+
+class F {
+	def broken( {
+		new A(
+	}
+}
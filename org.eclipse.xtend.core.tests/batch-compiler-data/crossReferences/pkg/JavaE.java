@@ -0,0 +1,9 @@
+package pkg;
+
+public class JavaE extends D {
+
+	public A a() {
+		return new C();
+	}
+
+}
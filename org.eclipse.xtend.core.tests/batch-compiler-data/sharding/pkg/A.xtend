@@ -0,0 +1,9 @@
+package pkg
+
+class A {
+
+	def String name() {
+		"A"
+	}
+
+}
@@ -0,0 +1,9 @@
+package pkg
+
+class B {
+
+	def String name() {
+		new A().name + "B"
+	}
+
+}
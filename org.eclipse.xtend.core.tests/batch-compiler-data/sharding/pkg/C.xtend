@@ -0,0 +1,9 @@
+package pkg
+
+class C {
+
+	def String name() {
+		new A().name + "C"
+	}
+
+}
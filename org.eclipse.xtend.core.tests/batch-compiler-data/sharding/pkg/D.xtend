@@ -0,0 +1,9 @@
+package pkg
+
+class D {
+
+	def String name() {
+		new A().name + "D"
+	}
+
+}
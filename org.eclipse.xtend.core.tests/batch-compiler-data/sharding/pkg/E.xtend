@@ -0,0 +1,9 @@
+package pkg
+
+class E {
+
+	def String name() {
+		new A().name + "E"
+	}
+
+}
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2017 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtend.core.tests.compiler.batch;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.eclipse.emf.common.util.TreeIterator;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.xtend.core.compiler.batch.XtendBatchCompiler;
+import org.eclipse.xtend.core.tests.RuntimeInjectorProvider;
+import org.eclipse.xtext.nodemodel.INode;
+import org.eclipse.xtext.resource.XtextResource;
+import org.eclipse.xtext.testing.InjectWith;
+import org.eclipse.xtext.testing.XtextRunner;
+import org.eclipse.xtext.testing.smoketest.IgnoredBySmokeTest;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import com.google.common.collect.Lists;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+
+/**
+ * Asserts that parsing with several threads yields the same resources, parse results and issues in the same order as
+ * a sequential run.
+ */
+@RunWith(XtextRunner.class)
+@InjectWith(RuntimeInjectorProvider.class)
+@IgnoredBySmokeTest
+public class ParallelParsingTest {
+
+	public static class ParsingBatchCompiler extends XtendBatchCompiler {
+
+		public ResourceSet parse() {
+			return loadXtendFiles(resourceSetProvider.get());
+		}
+
+	}
+
+	@Inject
+	private Provider<ParsingBatchCompiler> compilerProvider;
+
+	@Test
+	public void testTestData() {
+		assertParsesInParallel("./batch-compiler-data/test data");
+	}
+
+	@Test
+	public void testSyntaxErrors() {
+		assertParsesInParallel("./batch-compiler-data/crossReferences");
+	}
+
+	private void assertParsesInParallel(String sourcePath) {
+		List<String> sequential = parse(sourcePath, 1);
+		assertFalse(sequential.isEmpty());
+		for (int i = 0; i < 3; i++) {
+			assertEquals(sequential, parse(sourcePath, 4));
+		}
+	}
+
+	/**
+	 * Describes the loaded resources in the order of the resource set, i.e. their URIs, issues, node models and
+	 * parsed contents.
+	 */
+	private List<String> parse(String sourcePath, int numberOfThreads) {
+		ParsingBatchCompiler compiler = compilerProvider.get();
+		compiler.setSourcePath(sourcePath);
+		compiler.setNumberOfThreads(numberOfThreads);
+		List<String> result = Lists.newArrayList();
+		for (Resource resource : compiler.parse().getResources()) {
+			result.add("resource " + resource.getURI().lastSegment());
+			for (Resource.Diagnostic error : resource.getErrors()) {
+				result.add("error " + error.getLine() + ":" + error.getColumn() + " " + error.getMessage());
+			}
+			for (Resource.Diagnostic warning : resource.getWarnings()) {
+				result.add("warning " + warning.getLine() + ":" + warning.getColumn() + " " + warning.getMessage());
+			}
+			XtextResource xtextResource = (XtextResource) resource;
+			for (INode node : xtextResource.getParseResult().getRootNode().getAsTreeIterable()) {
+				result.add("node " + node.getClass().getSimpleName() + " " + node.getTotalOffset() + ":"
+						+ node.getTotalLength() + " " + (node.getGrammarElement() != null ? EcoreUtil.getURI(node.getGrammarElement()).fragment() : null));
+			}
+			EObject root = xtextResource.getParseResult().getRootASTElement();
+			if (root != null) {
+				result.add("object " + root.eClass().getName());
+				for (TreeIterator<EObject> contents = root.eAllContents(); contents.hasNext();) {
+					EObject object = contents.next();
+					result.add("object " + object.eClass().getName() + " " + EcoreUtil.getRelativeURIFragmentPath(root, object));
+				}
+			}
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2017 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtend.core.tests.compiler.batch;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+
+import org.eclipse.xtend.core.compiler.batch.XtendBatchCompiler;
+import org.eclipse.xtend.core.tests.RuntimeInjectorProvider;
+import org.eclipse.xtend.core.tests.util.TemporaryFolder;
+import org.eclipse.xtext.testing.InjectWith;
+import org.eclipse.xtext.testing.XtextRunner;
+import org.eclipse.xtext.testing.smoketest.IgnoredBySmokeTest;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Maps;
+import com.google.common.io.Files;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+
+/**
+ * Asserts that all stubs are written when javac compiles them, also if they are written by a separate thread.
+ */
+@RunWith(XtextRunner.class)
+@InjectWith(RuntimeInjectorProvider.class)
+@IgnoredBySmokeTest
+public class StubGenerationTest {
+
+	/**
+	 * Records the stubs that javac sees.
+	 */
+	public static class StubRecordingBatchCompiler extends XtendBatchCompiler {
+
+		private final Map<String, String> stubs = Maps.newTreeMap();
+
+		@Override
+		protected boolean preCompileStubs(File tmpSourceDirectory, File classDirectory) {
+			String root = tmpSourceDirectory.getAbsolutePath();
+			for (File file : Files.fileTreeTraverser().preOrderTraversal(tmpSourceDirectory)) {
+				if (file.isFile()) {
+					try {
+						stubs.put(file.getAbsolutePath().substring(root.length() + 1).replace(File.separatorChar, '/'),
+								Files.toString(file, Charsets.UTF_8));
+					} catch (IOException e) {
+						throw new RuntimeException(e);
+					}
+				}
+			}
+			return super.preCompileStubs(tmpSourceDirectory, classDirectory);
+		}
+
+	}
+
+	@Rule
+	@Inject public TemporaryFolder temporaryFolder;
+
+	@Inject
+	private Provider<StubRecordingBatchCompiler> compilerProvider;
+
+	@Test
+	public void testStubsAreCompleteWithQueuedWriter() throws Exception {
+		Map<String, String> sequential = compile(1);
+		assertTrue(sequential.keySet().toString(), sequential.containsKey("test/XtendA.java"));
+		assertTrue(sequential.keySet().toString(), sequential.containsKey("test/Enum.java"));
+		for (int i = 0; i < 3; i++) {
+			assertEquals(sequential, compile(4));
+		}
+	}
+
+	private Map<String, String> compile(int numberOfThreads) throws IOException {
+		StubRecordingBatchCompiler compiler = compilerProvider.get();
+		compiler.setSourcePath("./batch-compiler-data/test data");
+		compiler.setOutputPath(temporaryFolder.newFolder().getAbsolutePath());
+		compiler.setTempDirectory(temporaryFolder.newFolder().getAbsolutePath());
+		compiler.setUseCurrentClassLoaderAsParent(true);
+		compiler.setCurrentClassLoader(getClass().getClassLoader());
+		compiler.setNumberOfThreads(numberOfThreads);
+		assertTrue(compiler.compile());
+		return compiler.stubs;
+	}
+
+}
@@ -12,8 +12,12 @@ import com.google.common.io.Files
 import com.google.inject.Inject
 import java.io.File
 import java.io.IOException
+import java.util.List
+import java.util.Map
 import java.util.Set
 import org.apache.log4j.Level
+import org.eclipse.xtend.core.compiler.batch.CachingClasspathTypeProvider
+import org.eclipse.xtend.core.compiler.batch.SharedJvmTypeCache
 import org.eclipse.xtend.core.compiler.batch.XtendBatchCompiler
 import org.eclipse.xtend.core.tests.RuntimeInjectorProvider
 import org.eclipse.xtext.testing.InjectWith
@@ -51,6 +55,7 @@ class TestBatchCompiler {
 	static String BUG417177_SRC_DIRECTORY_1 = "./batch-compiler-data/bug417177/dir1/src1/"
 	static String BUG417177_SRC_DIRECTORY_2 = "./batch-compiler-data/bug417177/dir2/dir2a/src2"
 	static String BUG417177_OUTPUT_DIRECTORY = "./batch-compiler-data/bug417177/dir3/bin"
+	static String CROSS_REFERENCES_SRC_DIRECTORY = "./batch-compiler-data/crossReferences"
 	static String TEMP_DIRECTORY = "./test-temp-dir"
 	static String TEMP_DIRECTORY_WITH_SPACES = "./test temp dir"
 	static final Set<File> abfalleimer = newHashSet()
@@ -301,6 +306,187 @@ class TestBatchCompiler {
 		assertEquals(14, new File(OUTPUT_DIRECTORY_WITH_SPACES + "/test").list.size)
 	}
 
+	@Test
+	def void testParallelCompilation() {
+		batchCompiler.numberOfThreads = 4
+		batchCompiler.sourcePath = XTEND_SRC_DIRECTORY
+		batchCompiler.outputPath = OUTPUT_DIRECTORY
+		assertTrue(batchCompiler.compile)
+		assertEquals(14, new File(OUTPUT_DIRECTORY + "/test").list.size)
+	}
+
+	@Test
+	def void testParallelIssues() {
+		batchCompiler.sourcePath = CROSS_REFERENCES_SRC_DIRECTORY
+		val sequential = compileAndCaptureIssues(1)
+		assertTrue(sequential.toString, sequential.exists[contains("A.xtend")])
+		assertTrue(sequential.toString, sequential.exists[contains("C.xtend")])
+		assertTrue(sequential.toString, sequential.exists[contains("D.xtend")])
+		val parallel = compileAndCaptureIssues(4)
+		assertEquals(sequential, parallel)
+	}
+
+	def private List<String> compileAndCaptureIssues(int numberOfThreads) {
+		batchCompiler.numberOfThreads = numberOfThreads
+		val logs = LoggingTester.captureLogging(Level.WARN, XtendBatchCompiler) [
+			assertFalse(batchCompiler.compile)
+		]
+		return logs.logEntries.map[message].toList
+	}
+
+	@Test
+	def void testParallelOutput() {
+		batchCompiler.writeTraceFiles = true
+		assertTrue(batchCompiler.compile)
+		val Map<String, byte[]> sequential = newHashMap
+		readOutputFiles(new File(OUTPUT_DIRECTORY), "", sequential)
+		cleanFolder(new File(OUTPUT_DIRECTORY), null, true, false)
+		batchCompiler.numberOfThreads = 4
+		assertTrue(batchCompiler.compile)
+		val Map<String, byte[]> parallel = newHashMap
+		readOutputFiles(new File(OUTPUT_DIRECTORY), "", parallel)
+		assertEquals(sequential.keySet, parallel.keySet)
+		for (file : sequential.keySet) {
+			assertArrayEquals(file, sequential.get(file), parallel.get(file))
+		}
+	}
+
+	def private void readOutputFiles(File directory, String path, Map<String, byte[]> result) {
+		for (file : directory.listFiles) {
+			if (file.directory) {
+				readOutputFiles(file, path + file.name + "/", result)
+			} else {
+				result.put(path + file.name, Files.toByteArray(file))
+			}
+		}
+	}
+
+	@Test
+	def void testIncrementalCompilation() {
+		batchCompiler.incremental = true
+		batchCompiler.sourcePath = XTEND_SRC_DIRECTORY
+		batchCompiler.outputPath = OUTPUT_DIRECTORY
+		assertTrue(batchCompiler.compile)
+		val generated = new File(OUTPUT_DIRECTORY + "/test/XtendA.java")
+		assertTrue(generated.setLastModified(0))
+		assertTrue(batchCompiler.compile)
+		assertEquals("Unchanged sources are not generated again", 0, generated.lastModified)
+		assertTrue(generated.delete)
+		assertTrue(batchCompiler.compile)
+		assertTrue("Deleted outputs are generated again", generated.exists)
+		assertTrue(generated.setLastModified(0))
+		batchCompiler.incremental = false
+		assertTrue(batchCompiler.compile)
+		assertTrue(generated.lastModified != 0)
+	}
+
+	@Test
+	def void testIncrementalCompilationOfChanges() {
+		val projectDirectory = new File(TEMP_DIRECTORY, "incremental")
+		val sourceDirectory = new File(projectDirectory, "src")
+		val classPathDirectory = new File(projectDirectory, "lib")
+		copyFolder(new File(XTEND_SRC_DIRECTORY), sourceDirectory)
+		classPathDirectory.mkdirs
+		batchCompiler.incremental = true
+		batchCompiler.sourcePath = sourceDirectory.path
+		batchCompiler.outputPath = new File(projectDirectory, "bin").path
+		// source directories are on the class path of a Maven build, too
+		batchCompiler.classPath = classPathDirectory.path + File.pathSeparator + sourceDirectory.path
+		assertTrue(batchCompiler.compile)
+		val xtendA = new File(projectDirectory, "bin/test/XtendA.java")
+		val xtendC = new File(projectDirectory, "bin/test/XtendC.java")
+		val b = new File(projectDirectory, "bin/test/B.java")
+		assertTrue(xtendA.setLastModified(0))
+		assertTrue(xtendC.setLastModified(0))
+		assertTrue(b.setLastModified(0))
+		Files.append("\nclass XtendD {}\n", new File(sourceDirectory, "test/XtendC.xtend"), Charsets.UTF_8)
+		assertTrue(batchCompiler.compile)
+		assertTrue("The changed file is generated again", xtendC.lastModified != 0)
+		assertTrue(new File(projectDirectory, "bin/test/XtendD.java").exists)
+		assertTrue("Dependents of the changed file are generated again", xtendA.lastModified != 0)
+		assertEquals("Other files are not generated again", 0, b.lastModified)
+		assertTrue(xtendA.setLastModified(0))
+		assertTrue(batchCompiler.compile)
+		assertEquals(0, xtendA.lastModified)
+		Files.write("changed", new File(classPathDirectory, "changed.txt"), Charsets.UTF_8)
+		assertTrue(batchCompiler.compile)
+		assertTrue("A changed class path causes a full build", xtendA.lastModified != 0)
+		assertTrue(b.lastModified != 0)
+	}
+
+	@Test
+	def void testIncrementalCompilationOfJavaChanges() {
+		val projectDirectory = new File(TEMP_DIRECTORY, "incrementalJava")
+		val sourceDirectory = new File(projectDirectory, "src")
+		copyFolder(new File(XTEND_SRC_DIRECTORY), sourceDirectory)
+		batchCompiler.incremental = true
+		batchCompiler.sourcePath = sourceDirectory.path
+		batchCompiler.outputPath = new File(projectDirectory, "bin").path
+		assertTrue(batchCompiler.compile)
+		val b = new File(projectDirectory, "bin/test/B.java")
+		assertTrue(b.setLastModified(0))
+		assertTrue(batchCompiler.compile)
+		assertEquals(0, b.lastModified)
+		Files.append("\n// changed\n", new File(sourceDirectory, "test/TestInterface.java"), Charsets.UTF_8)
+		assertTrue(batchCompiler.compile)
+		assertTrue("Dependents of a changed Java file are generated again", b.lastModified != 0)
+	}
+
+	def private void copyFolder(File source, File target) {
+		target.mkdirs
+		for (file : source.listFiles) {
+			if (file.directory) {
+				copyFolder(file, new File(target, file.name))
+			} else {
+				Files.copy(file, new File(target, file.name))
+			}
+		}
+	}
+
+	@Test
+	def void testSkipUnchangedFiles() {
+		batchCompiler.skipUnchangedFiles = true
+		assertTrue(batchCompiler.compile)
+		val generated = new File(OUTPUT_DIRECTORY + "/test/XtendA.java")
+		assertTrue(generated.setLastModified(0))
+		assertTrue(batchCompiler.compile)
+		assertEquals("Unchanged files are not written again", 0, generated.lastModified)
+		Files.write("// modified", generated, Charsets.UTF_8)
+		assertTrue(batchCompiler.compile)
+		assertFalse((OUTPUT_DIRECTORY + "/test/XtendA.java").contents.contains("// modified"))
+	}
+
+	@Test
+	def void testShardedCompilation() {
+		batchCompiler.shardSize = 3
+		assertTrue(batchCompiler.compile)
+		assertEquals(14, new File(OUTPUT_DIRECTORY + "/test").list.size)
+	}
+
+	@Test
+	def void testShardedCompilationUnloadsResources() {
+		// B, C, D and E depend on A
+		batchCompiler.sourcePath = "./batch-compiler-data/sharding"
+		batchCompiler.shardSize = 1
+		assertTrue(batchCompiler.compile)
+		val statistics = batchCompiler.shardStatistics
+		assertEquals(5, statistics.shardCount)
+		assertEquals("Only a shard and A are loaded at once", 2, statistics.maxLoadedResources)
+		assertEquals("A is loaded again for each of its dependents", 4, statistics.resourcesLoadedOnDemand)
+		assertTrue(new File(OUTPUT_DIRECTORY + "/pkg/E.java").exists)
+	}
+
+	@Test
+	def void testProfileReport() {
+		batchCompiler.profileReport = TEMP_DIRECTORY + "/profile.json"
+		assertTrue(batchCompiler.compile)
+		val report = getContents(TEMP_DIRECTORY + "/profile.json")
+		for (phase : #["loadXtendFiles", "createStubs", "preCompileStubs", "preCompileJava", "resolveAll", "validate", "generateJavaFiles"]) {
+			assertTrue(phase, report.contains('"name": "' + phase + '"'))
+		}
+		assertTrue(report.contains("XtendA.xtend"))
+	}
+
 	@Test
 	def void bug387829() {
 		batchCompiler.tempDirectory = TEMP_DIRECTORY_WITH_SPACES
@@ -411,6 +597,21 @@ class TestBatchCompiler {
 		assertEquals(0, new File(OUTPUT_DIRECTORY + "/test").list[dir, name|name.endsWith(".xtendbin")].size)
 	}
 
+	@Test
+	def void testReuseStorageFiles() {
+		batchCompiler.incremental = true
+		batchCompiler.reuseStorageFiles = true
+		assertTrue(batchCompiler.compile)
+		assertEquals(5, new File(OUTPUT_DIRECTORY + "/test").list[dir, name|name.endsWith(".xtendbin")].size)
+		val generated = new File(OUTPUT_DIRECTORY + "/test/XtendA.java")
+		assertTrue(generated.setLastModified(0))
+		assertTrue(batchCompiler.compile)
+		assertEquals("Unchanged sources are loaded from storage and not generated again", 0, generated.lastModified)
+		assertTrue(generated.delete)
+		assertTrue(batchCompiler.compile)
+		assertTrue("Deleted outputs are generated again", generated.exists)
+	}
+
 	@Test
     def void testCompileSymlinkedResource() {
         val tstResources = new File("./batch-compiler-data/test-resources/").toURI().normalize().getPath()
@@ -477,6 +678,65 @@ class TestBatchCompiler {
 		assertEquals(4, new File(batchCompiler.getTempDirectory).list.size)
 	}
 
+	@Test
+	def void testCompileStubsInMemory() {
+		batchCompiler.compileStubsInMemory = true
+		batchCompiler.deleteTempDirectory = false
+		batchCompiler.tempDirectory = TEMP_DIRECTORY
+		assertTrue(batchCompiler.compile)
+		assertFalse(new File(TEMP_DIRECTORY).exists)
+		assertEquals(14, new File(OUTPUT_DIRECTORY + "/test").list.size)
+	}
+
+	@Test
+	def void testJvmTypeCache() {
+		batchCompiler.jvmTypeCacheDirectory = TEMP_DIRECTORY + "/types"
+		assertTrue(batchCompiler.compile)
+		assertFalse(jvmTypeCacheFiles.empty)
+		// the entries are stored per format version and jar
+		assertTrue(jvmTypeCacheFiles.forall[parentFile.parentFile.parentFile.name == "types"])
+		cleanFolder(new File(OUTPUT_DIRECTORY), null, true, false)
+		val log = LoggingTester.captureLogging(Level.DEBUG, CachingClasspathTypeProvider) [
+			assertTrue(batchCompiler.compile)
+		]
+		assertEquals(14, new File(OUTPUT_DIRECTORY + "/test").list.size)
+		assertTrue(log.logEntries.exists[message.startsWith("Loaded the type")])
+	}
+
+	@Test
+	def void testCorruptJvmTypeCache() {
+		batchCompiler.jvmTypeCacheDirectory = TEMP_DIRECTORY + "/types"
+		assertTrue(batchCompiler.compile)
+		val cacheFiles = jvmTypeCacheFiles
+		assertFalse(cacheFiles.empty)
+		for (cacheFile : cacheFiles) {
+			Files.write("corrupt", cacheFile, Charsets.UTF_8)
+		}
+		cleanFolder(new File(OUTPUT_DIRECTORY), null, true, false)
+		val log = LoggingTester.captureLogging(Level.WARN, CachingClasspathTypeProvider) [
+			assertTrue(batchCompiler.compile)
+		]
+		assertEquals(14, new File(OUTPUT_DIRECTORY + "/test").list.size)
+		assertFalse(log.logEntries.empty)
+		assertTrue(cacheFiles.exists[!Files.toString(it, Charsets.UTF_8).equals("corrupt")])
+	}
+
+	def private List<File> getJvmTypeCacheFiles() {
+		Files.fileTreeTraverser.preOrderTraversal(new File(TEMP_DIRECTORY + "/types")).filter[name.endsWith(".jvmtype")].toList
+	}
+
+	@Test
+	def void testSharedJvmTypeCache() {
+		batchCompiler.sharedJvmTypeCache = new SharedJvmTypeCache
+		assertTrue(batchCompiler.compile)
+		cleanFolder(new File(OUTPUT_DIRECTORY), null, true, false)
+		val log = LoggingTester.captureLogging(Level.DEBUG, CachingClasspathTypeProvider) [
+			assertTrue(batchCompiler.compile)
+		]
+		assertEquals(14, new File(OUTPUT_DIRECTORY + "/test").list.size)
+		assertTrue(log.logEntries.exists[message.endsWith("from the shared cache")])
+	}
+
 	@Test
 	def void deleteTempDirectory() {
 		batchCompiler.deleteTempDirectory = true
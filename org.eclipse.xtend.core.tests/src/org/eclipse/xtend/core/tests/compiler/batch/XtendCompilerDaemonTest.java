@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) 2017 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtend.core.tests.compiler.batch;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.eclipse.xtend.core.compiler.batch.XtendCompilerDaemon;
+import org.eclipse.xtend.core.tests.RuntimeInjectorProvider;
+import org.eclipse.xtend.core.tests.util.TemporaryFolder;
+import org.eclipse.xtext.testing.InjectWith;
+import org.eclipse.xtext.testing.XtextRunner;
+import org.eclipse.xtext.testing.smoketest.IgnoredBySmokeTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+
+/**
+ * @see XtendCompilerDaemon
+ */
+@RunWith(XtextRunner.class)
+@InjectWith(RuntimeInjectorProvider.class)
+@IgnoredBySmokeTest
+public class XtendCompilerDaemonTest {
+
+	@Rule
+	@Inject public TemporaryFolder temporaryFolder;
+
+	@Inject
+	private Injector injector;
+
+	private XtendCompilerDaemon daemon;
+
+	private ServerSocket serverSocket;
+
+	private File tokenFile;
+
+	private Thread daemonThread;
+
+	private File sourceDirectory;
+
+	private File classpathDirectory;
+
+	private File outputDirectory;
+
+	@Before
+	public void startDaemon() throws Exception {
+		sourceDirectory = temporaryFolder.newFolder("src", "pkg").getParentFile();
+		Files.write("package pkg\nclass Foo {\n\tdef String foo() { 'foo' }\n}\n", new File(sourceDirectory, "pkg/Foo.xtend"), Charsets.UTF_8);
+		classpathDirectory = temporaryFolder.newFolder("classes");
+		outputDirectory = temporaryFolder.newFolder("xtend-gen");
+		tokenFile = new File(temporaryFolder.newFolder("token"), "daemon.token");
+		daemon = new XtendCompilerDaemon(injector);
+		serverSocket = new ServerSocket(0, 0, InetAddress.getLoopbackAddress());
+		daemonThread = new Thread(() -> {
+			try {
+				daemon.serve(serverSocket, tokenFile);
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		});
+		daemonThread.setDaemon(true);
+		daemonThread.start();
+		long timeout = System.currentTimeMillis() + 10000;
+		while (!tokenFile.exists()) {
+			assertTrue("The daemon did not write its token file", System.currentTimeMillis() < timeout);
+			Thread.sleep(10);
+		}
+	}
+
+	@After
+	public void stopDaemon() throws Exception {
+		if (daemonThread.isAlive()) {
+			XtendCompilerDaemon.connect(serverSocket.getLocalPort(), tokenFile, Arrays.asList("-shutdown"), new PrintStream(new ByteArrayOutputStream()));
+			daemonThread.join(10000);
+		}
+	}
+
+	@Test
+	public void testCompile() throws Exception {
+		assertCompiles();
+		assertTrue(new File(outputDirectory, "pkg/Foo.java").exists());
+	}
+
+	@Test
+	public void testRejectsInvalidToken() throws Exception {
+		File invalidTokenFile = temporaryFolder.newFile("invalid.token");
+		Files.write("invalid", invalidTokenFile, Charsets.UTF_8);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		int exitCode = XtendCompilerDaemon.connect(serverSocket.getLocalPort(), invalidTokenFile, getArguments(), new PrintStream(output, true));
+		assertEquals(1, exitCode);
+		assertTrue(output.toString(), output.toString().contains("invalid token"));
+		assertFalse(new File(outputDirectory, "pkg/Foo.java").exists());
+		assertTrue("The daemon keeps serving after a rejected request", daemonThread.isAlive());
+	}
+
+	@Test
+	public void testShutdown() throws Exception {
+		int exitCode = XtendCompilerDaemon.connect(serverSocket.getLocalPort(), tokenFile, Arrays.asList("-shutdown"), new PrintStream(new ByteArrayOutputStream()));
+		assertEquals(0, exitCode);
+		daemonThread.join(10000);
+		assertFalse(daemonThread.isAlive());
+		assertFalse(tokenFile.exists());
+		assertTrue(daemon.getCachedClassLoaders().isEmpty());
+	}
+
+	@Test
+	public void testClassLoadersAreReused() throws Exception {
+		assertCompiles();
+		Collection<URLClassLoader> classLoaders = daemon.getCachedClassLoaders();
+		assertFalse(classLoaders.isEmpty());
+		assertCompiles();
+		assertEquals(classLoaders, daemon.getCachedClassLoaders());
+	}
+
+	@Test
+	public void testClassLoadersAreInvalidatedByDirectoryChanges() throws Exception {
+		assertCompiles();
+		Collection<URLClassLoader> classLoaders = daemon.getCachedClassLoaders();
+		Files.write("changed", new File(temporaryFolder.newFolder("classes", "pkg"), "Changed.class"), Charsets.UTF_8);
+		assertCompiles();
+		assertFalse(classLoaders.containsAll(daemon.getCachedClassLoaders()));
+	}
+
+	private void assertCompiles() throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		int exitCode = XtendCompilerDaemon.connect(serverSocket.getLocalPort(), tokenFile, getArguments(), new PrintStream(output, true));
+		assertEquals(output.toString(), 0, exitCode);
+	}
+
+	private List<String> getArguments() {
+		return Arrays.asList(
+				"-useCurrentClassLoader",
+				"-cp", classpathDirectory.getAbsolutePath(),
+				"-d", outputDirectory.getAbsolutePath(),
+				sourceDirectory.getAbsolutePath());
+	}
+
+}
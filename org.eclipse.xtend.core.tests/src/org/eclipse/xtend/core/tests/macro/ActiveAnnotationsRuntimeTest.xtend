@@ -2,6 +2,7 @@ package org.eclipse.xtend.core.tests.macro
 
 import com.google.common.io.Files
 import com.google.inject.Inject
+import com.google.inject.Injector
 import com.google.inject.Provider
 import java.io.File
 import java.nio.charset.Charset
@@ -20,6 +21,7 @@ import org.eclipse.xtext.testing.XtextRunner
 import org.eclipse.xtext.testing.validation.ValidationTestHelper
 import org.eclipse.xtext.resource.XtextResource
 import org.eclipse.xtext.resource.XtextResourceSet
+import org.eclipse.xtext.service.OperationCanceledError
 import org.eclipse.xtext.util.CancelIndicator
 import org.eclipse.xtext.validation.CheckMode
 import org.eclipse.xtext.validation.Issue
@@ -37,6 +39,8 @@ import static org.junit.Assert.*
 @InjectWith(RuntimeInjectorProvider)
 class ActiveAnnotationsRuntimeTest extends AbstractReusableActiveAnnotationTests {
 
+	static val LOOP_STARTED = "ActiveAnnotationsRuntimeTest.loopStarted"
+
 	@Rule 
 	@Inject public TemporaryFolder temporaryFolder
 
@@ -44,6 +48,7 @@ class ActiveAnnotationsRuntimeTest extends AbstractReusableActiveAnnotationTests
 	@Inject Provider<CompilationUnitImpl> compilationUnitProvider
 	@Inject Provider<XtextResourceSet> resourceSetProvider;
 	@Inject ValidationTestHelper validator
+	@Inject Injector injector
 	
 	val macroProject = "macroProject"
 	val clientProject = "userProject"
@@ -84,13 +89,17 @@ class ActiveAnnotationsRuntimeTest extends AbstractReusableActiveAnnotationTests
 	}
 	
 	def assertIssues(Pair<String, String> macroFile, Pair<String, String> clientFile, (List<Issue>)=>void expectations) {
+		assertIssues(macroFile, clientFile, CancelIndicator.NullImpl, expectations)
+	}
+	
+	def assertIssues(Pair<String, String> macroFile, Pair<String, String> clientFile, CancelIndicator cancelIndicator, (List<Issue>)=>void expectations) {
 		val resourceSet = macroFile.compileMacroResourceSet(clientFile)
 		val singleResource = resourceSet.resources.head as XtextResource
 		if (!singleResource.isLoaded()) {
 			singleResource.load(resourceSet.getLoadOptions());
 		}
 		val validator = singleResource.resourceServiceProvider.resourceValidator
-		expectations.apply(validator.validate(singleResource, CheckMode.ALL, CancelIndicator.NullImpl))
+		expectations.apply(validator.validate(singleResource, CheckMode.ALL, cancelIndicator))
 	}
 	
 	def XtextResourceSet compileMacroResourceSet(Pair<String, String> macroFile, Pair<String, String> clientFile) {
@@ -163,6 +172,103 @@ class ActiveAnnotationsRuntimeTest extends AbstractReusableActiveAnnotationTests
 		]
 	}
 	
+	@Test(timeout = 30000) def void testProcessorTimeout() {
+		val timeout = ProcessorTimeoutAccess.getProcessorTimeout(injector)
+		ProcessorTimeoutAccess.setProcessorTimeout(injector, 200)
+		try {
+			assertIssues(
+				'myannotation/LoopAnnotation.xtend' -> '''
+					package myannotation
+					
+					import org.eclipse.xtend.lib.macro.Active
+					import org.eclipse.xtend.lib.macro.ValidationContext
+					import org.eclipse.xtend.lib.macro.AbstractClassProcessor
+					import org.eclipse.xtend.lib.macro.declaration.ClassDeclaration
+					
+					@Active(LoopProcessor)
+					annotation LoopAnnotation { }
+					class LoopProcessor extends AbstractClassProcessor {
+					
+						override doValidate(ClassDeclaration clazz, extension ValidationContext context) {
+							while (true) {
+								newTypeReference("java.lang.String")
+							}
+						}
+					
+					}
+					
+					@Active(WarnProcessor)
+					annotation WarnAnnotation { }
+					class WarnProcessor extends AbstractClassProcessor {
+					
+						override doValidate(ClassDeclaration clazz, extension ValidationContext context) {
+							clazz.addWarning("still running")
+						}
+					
+					}
+				''',
+				'myusercode/UserCode.xtend' -> '''
+					package myusercode
+					
+					@myannotation.LoopAnnotation @myannotation.WarnAnnotation class MyClass {
+					}
+				'''
+			) [
+				val error = findFirst[code == IssueCodes.PROCESSING_ERROR]
+				assertNotNull(toString, error)
+				assertTrue(error.message, error.message.contains("did not finish within 200 ms"))
+				// the timeout does not cancel the other processors of the compilation unit
+				assertTrue(toString, exists[severity == Severity.WARNING && message == "still running"])
+			]
+		} finally {
+			ProcessorTimeoutAccess.setProcessorTimeout(injector, timeout)
+		}
+	}
+	
+	@Test(timeout = 30000) def void testCancelIndicatorStopsProcessor() {
+		try {
+			try {
+				assertIssues(
+					'myannotation/LoopAnnotation.xtend' -> '''
+						package myannotation
+						
+						import org.eclipse.xtend.lib.macro.Active
+						import org.eclipse.xtend.lib.macro.ValidationContext
+						import org.eclipse.xtend.lib.macro.AbstractClassProcessor
+						import org.eclipse.xtend.lib.macro.declaration.ClassDeclaration
+						
+						@Active(LoopProcessor)
+						annotation LoopAnnotation { }
+						class LoopProcessor extends AbstractClassProcessor {
+						
+							override doValidate(ClassDeclaration clazz, extension ValidationContext context) {
+								System.setProperty("LOOP_STARTED", "true")
+								while (true) {
+									newTypeReference("java.lang.String")
+								}
+							}
+						
+						}
+					''',
+					'myusercode/UserCode.xtend' -> '''
+						package myusercode
+						
+						@myannotation.LoopAnnotation class MyClass {
+						}
+					''',
+					[Boolean.getBoolean(LOOP_STARTED)]
+				) [
+					assertFalse(toString, exists[code == IssueCodes.PROCESSING_ERROR])
+				]
+			} catch (OperationCanceledError e) {
+				// the validator noticed the cancellation, too
+			}
+			assertTrue(Boolean.getBoolean(LOOP_STARTED))
+		} finally {
+			System.clearProperty(LOOP_STARTED)
+		}
+	}
+	
 	@Test def void testDetectOrphanedElements() {
 		assertProcessing(
 				'myannotation/EvilAnnotation.xtend' -> '''
@@ -294,3 +400,18 @@ class DelegatingClassloader extends ClassLoader {
 	}
 
 }
+
+/**
+ * Grants access to the timeout of the protected {@link AnnotationProcessor.CancellationObserver}.
+ */
+class ProcessorTimeoutAccess extends AnnotationProcessor {
+	
+	static def long getProcessorTimeout(Injector injector) {
+		injector.getInstance(CancellationObserver).processorTimeout
+	}
+	
+	static def void setProcessorTimeout(Injector injector, long processorTimeout) {
+		injector.getInstance(CancellationObserver).processorTimeout = processorTimeout
+	}
+	
+}
@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Copyright (c) 2017 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtend.core.tests.macro
+
+import com.google.common.base.Charsets
+import com.google.common.io.Files
+import java.io.File
+import org.eclipse.xtend.core.macro.ProcessorClassLoaderCache
+import org.eclipse.xtext.xbase.testing.TemporaryFolder
+import org.junit.Rule
+import org.junit.Test
+
+import static org.junit.Assert.*
+
+class ProcessorClassLoaderCacheTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder()
+
+	@Test def void testSameClassPathReusesClassLoader() {
+		val cache = new ProcessorClassLoaderCache
+		val urls = #[temporaryFolder.newFolder.toURI.toURL]
+		val first = cache.acquire(urls, class.classLoader)
+		cache.release(first)
+		val second = cache.acquire(urls, class.classLoader)
+		assertSame(first, second)
+		cache.release(second)
+	}
+
+	@Test def void testChangedClassPathCreatesNewClassLoader() {
+		val cache = new ProcessorClassLoaderCache
+		val folder = temporaryFolder.newFolder
+		val urls = #[folder.toURI.toURL]
+		val first = cache.acquire(urls, class.classLoader)
+		Files.write("changed", new File(folder, "Foo.class"), Charsets.UTF_8)
+		val second = cache.acquire(urls, class.classLoader)
+		assertNotSame(first, second)
+		cache.release(first)
+		cache.release(second)
+		assertSame(second, cache.acquire(urls, class.classLoader))
+	}
+
+	@Test def void testUnusedClassLoadersAreEvicted() {
+		val cache = new ProcessorClassLoaderCache
+		cache.maximumUnusedClassLoaders = 0
+		val urls = #[temporaryFolder.newFolder.toURI.toURL]
+		val first = cache.acquire(urls, class.classLoader)
+		assertSame(first, cache.acquire(urls, class.classLoader))
+		cache.release(first)
+		cache.release(first)
+		assertNotSame(first, cache.acquire(urls, class.classLoader))
+	}
+	
+	@Test def void testChangedModificationTimeCreatesNewClassLoader() {
+		val cache = new ProcessorClassLoaderCache
+		val folder = temporaryFolder.newFolder
+		val file = new File(folder, "Foo.class")
+		Files.write("foo", file, Charsets.UTF_8)
+		val urls = #[folder.toURI.toURL]
+		val first = cache.acquire(urls, class.classLoader)
+		file.lastModified = file.lastModified - 10000
+		assertNotSame(first, cache.acquire(urls, class.classLoader))
+	}
+
+}
@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * Copyright (c) 2017 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtend.core.tests.macro;
+
+import org.eclipse.xtend.core.macro.ProcessorInstanceForJvmTypeProvider;
+import org.eclipse.xtend.core.tests.AbstractXtendTestCase;
+import org.eclipse.xtend.lib.annotations.AccessorsProcessor;
+import org.eclipse.xtext.common.types.JvmType;
+import org.eclipse.xtext.common.types.access.impl.ClasspathTypeProvider;
+import org.eclipse.xtext.resource.XtextResourceSet;
+import org.junit.Test;
+
+import com.google.inject.Inject;
+
+public class ProcessorInstanceForJvmTypeProviderTest extends AbstractXtendTestCase {
+
+	public static class StatefulTestProcessor {
+	}
+
+	@Inject
+	private ProcessorInstanceForJvmTypeProvider processorInstanceProvider;
+
+	@Inject
+	private ClassLoader classLoader;
+
+	@Test public void testStatelessProcessorIsSharedPerResourceSet() throws Exception {
+		JvmType type = findType(getResourceSet(), AccessorsProcessor.class);
+		Object processor = processorInstanceProvider.getProcessorInstance(type);
+		assertEquals(AccessorsProcessor.class.getName(), processor.getClass().getName());
+		assertSame(processor, processorInstanceProvider.getProcessorInstance(type));
+		JvmType otherType = findType(getResourceSet(), AccessorsProcessor.class);
+		assertNotSame(processor, processorInstanceProvider.getProcessorInstance(otherType));
+	}
+
+	@Test public void testProcessorIsInstantiatedEachTime() throws Exception {
+		JvmType type = findType(getResourceSet(), StatefulTestProcessor.class);
+		Object processor = processorInstanceProvider.getProcessorInstance(type);
+		assertEquals(StatefulTestProcessor.class.getName(), processor.getClass().getName());
+		assertNotSame(processor, processorInstanceProvider.getProcessorInstance(type));
+	}
+
+	private JvmType findType(XtextResourceSet resourceSet, Class<?> processorClass) {
+		return new ClasspathTypeProvider(classLoader, resourceSet, null, null).findTypeByName(processorClass.getName());
+	}
+
+}
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2017 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtend.core.tests.parsing;
+
+import java.io.StringReader;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.xtend.core.parser.CharSequenceCharStream;
+import org.eclipse.xtend.core.parser.CustomXtendParser;
+import org.eclipse.xtend.core.tests.AbstractXtendTestCase;
+import org.eclipse.xtend.core.xtend.XtendClass;
+import org.eclipse.xtend.core.xtend.XtendFile;
+import org.eclipse.xtend.core.xtend.XtendFunction;
+import org.eclipse.xtext.nodemodel.ILeafNode;
+import org.eclipse.xtext.nodemodel.impl.InvariantChecker;
+import org.eclipse.xtext.parser.IParseResult;
+import org.junit.Test;
+
+import com.google.inject.Inject;
+
+public class CharSequenceParserTest extends AbstractXtendTestCase {
+
+	private static final String MODEL =
+			"package foo\n" +
+			"class C {\n" +
+			"	/* comment */\n" +
+			"	def m(int i) '''\n" +
+			"		text i // not a comment\n" +
+			"	'''\n" +
+			"}\n";
+
+	@Inject
+	private CustomXtendParser parser;
+
+	@Inject
+	private InvariantChecker invariantChecker;
+
+	@Test
+	public void testParseString() throws Exception {
+		IParseResult result = parser.doParse(MODEL);
+		assertSame(MODEL, result.getRootNode().getText());
+		assertParsed(result);
+	}
+
+	@Test
+	public void testParseCharBuffer() throws Exception {
+		IParseResult result = parser.doParse(CharBuffer.wrap(MODEL.toCharArray()));
+		assertEquals(MODEL, result.getRootNode().getText());
+		assertParsed(result);
+	}
+
+	@Test
+	public void testParseReader() throws Exception {
+		IParseResult result = parser.doParse(new StringReader(MODEL));
+		assertEquals(MODEL, result.getRootNode().getText());
+		assertParsed(result);
+	}
+
+	@Test
+	public void testSubsequentParses() throws Exception {
+		IParseResult first = parser.doParse(new StringReader(MODEL));
+		IParseResult second = parser.doParse(MODEL.replace("class C", "class  C"));
+		IParseResult third = parser.doParse(new StringReader(MODEL.replace("foo", "foo.bar")));
+		assertEquals(MODEL, first.getRootNode().getText());
+		assertEquals(MODEL, getLeafText(first));
+		assertEquals(MODEL.replace("class C", "class  C"), getLeafText(second));
+		assertEquals(MODEL.replace("foo", "foo.bar"), getLeafText(third));
+		assertParsed(first);
+	}
+
+	@Test
+	public void testConcurrentParses() throws Exception {
+		final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < 4; i++) {
+			final String model = MODEL.replace("m(", "m" + i + "(");
+			Thread thread = new Thread() {
+				@Override
+				public void run() {
+					try {
+						for (int j = 0; j < 20; j++) {
+							IParseResult result = j % 2 == 0 ? parser.doParse(model) : parser.doParse(new StringReader(model));
+							assertFalse(result.hasSyntaxErrors());
+							assertEquals(model, getLeafText(result));
+						}
+					} catch (Throwable t) {
+						failures.add(t);
+					}
+				}
+			};
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(failures.toString(), 0, failures.size());
+	}
+
+	@Test
+	public void testCharStreamLineInformation() throws Exception {
+		CharSequenceCharStream stream = new CharSequenceCharStream("ab\ncd");
+		assertEquals(1, stream.getLine());
+		assertEquals(0, stream.getCharPositionInLine());
+		stream.consume();
+		int marker = stream.mark();
+		stream.consume();
+		stream.consume();
+		stream.consume();
+		assertEquals('d', stream.LA(1));
+		assertEquals(2, stream.getLine());
+		assertEquals(1, stream.getCharPositionInLine());
+		stream.rewind(marker);
+		assertEquals('b', stream.LA(1));
+		assertEquals(1, stream.getLine());
+		assertEquals(1, stream.getCharPositionInLine());
+		stream.seek(4);
+		assertEquals('d', stream.LA(1));
+		assertEquals(2, stream.getLine());
+		assertEquals(1, stream.getCharPositionInLine());
+	}
+
+	protected String getLeafText(IParseResult result) {
+		StringBuilder builder = new StringBuilder();
+		for (ILeafNode leaf : result.getRootNode().getLeafNodes()) {
+			builder.append(leaf.getText());
+		}
+		return builder.toString();
+	}
+
+	protected void assertParsed(IParseResult result) {
+		assertFalse(result.hasSyntaxErrors());
+		invariantChecker.checkInvariant(result.getRootNode());
+		XtendFile file = (XtendFile) result.getRootASTElement();
+		assertEquals("foo", file.getPackage());
+		XtendClass clazz = (XtendClass) file.getXtendTypes().get(0);
+		assertEquals("C", clazz.getName());
+		assertEquals("m", ((XtendFunction) clazz.getMembers().get(0)).getName());
+	}
+
+}
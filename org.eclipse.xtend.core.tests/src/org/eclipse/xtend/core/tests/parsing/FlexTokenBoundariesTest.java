@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2017 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtend.core.tests.parsing;
+
+import java.util.Random;
+
+import org.eclipse.xtend.core.parser.FlexTokenBoundaries;
+import org.eclipse.xtend.core.parser.antlr.internal.FlexerFactory;
+import org.eclipse.xtend.core.tests.AbstractXtendTestCase;
+import org.junit.Test;
+
+import com.google.inject.Inject;
+
+public class FlexTokenBoundariesTest extends AbstractXtendTestCase {
+
+	private static final String MODEL =
+			"package foo\n" +
+			"class C {\n" +
+			"	/* comment */\n" +
+			"	def m(int i) {\n" +
+			"		val x = 0x1F + 1e5 + 'a' + \"b\"\n" +
+			"		'''\n" +
+			"			text x  comment\n" +
+			"			FOR y : 1..<iyENDFOR\n" +
+			"		'''\n" +
+			"	} // trailing\n" +
+			"}\n";
+
+	@Inject
+	private FlexerFactory flexerFactory;
+
+	@Test
+	public void testUnchangedText() throws Exception {
+		FlexTokenBoundaries boundaries = FlexTokenBoundaries.compute(flexerFactory, MODEL);
+		FlexTokenBoundaries updated = boundaries.update(flexerFactory, new String(MODEL));
+		assertEqualBoundaries(boundaries, updated);
+		assertTrue(updated.startsWithSameTokenTypes(boundaries));
+	}
+
+	@Test
+	public void testEditInIdentifier() throws Exception {
+		FlexTokenBoundaries boundaries = FlexTokenBoundaries.compute(flexerFactory, MODEL);
+		FlexTokenBoundaries updated = boundaries.update(flexerFactory, MODEL.replace("def m(", "def method("));
+		assertEqualBoundaries(FlexTokenBoundaries.compute(flexerFactory, updated.getText()), updated);
+		assertTrue(updated.startsWithSameTokenTypes(boundaries));
+	}
+
+	@Test
+	public void testOpenComment() throws Exception {
+		FlexTokenBoundaries boundaries = FlexTokenBoundaries.compute(flexerFactory, MODEL);
+		FlexTokenBoundaries updated = boundaries.update(flexerFactory, MODEL.replace("/* comment */", "/* comment "));
+		assertEqualBoundaries(FlexTokenBoundaries.compute(flexerFactory, updated.getText()), updated);
+		assertFalse(updated.startsWithSameTokenTypes(boundaries));
+	}
+
+	@Test
+	public void testCloseEarlierComment() throws Exception {
+		String text = "class C {\n" +
+				"	/* a\n" +
+				"	val x = 1\n" +
+				"	* / b\n" +
+				"}\n";
+		FlexTokenBoundaries boundaries = FlexTokenBoundaries.compute(flexerFactory, text);
+		FlexTokenBoundaries updated = boundaries.update(flexerFactory, text.replace("* / b", "*/ b"));
+		assertEqualBoundaries(FlexTokenBoundaries.compute(flexerFactory, updated.getText()), updated);
+		FlexTokenBoundaries reopened = updated.update(flexerFactory, text);
+		assertEqualBoundaries(boundaries, reopened);
+	}
+
+	@Test
+	public void testRandomEdits() throws Exception {
+		String[] inserts = { "'''", "", "", "", "/*", "*/", "//", "\n", "\r\n", "\"", "'", "\\", "0x", "1e", "..<", " ", "a" };
+		Random random = new Random(42);
+		String text = MODEL;
+		FlexTokenBoundaries boundaries = FlexTokenBoundaries.compute(flexerFactory, text);
+		for (int i = 0; i < 2000; i++) {
+			int offset = random.nextInt(text.length() + 1);
+			int deleted = Math.min(random.nextInt(3), text.length() - offset);
+			String inserted = random.nextInt(4) == 0 ? "" : inserts[random.nextInt(inserts.length)];
+			text = text.substring(0, offset) + inserted + text.substring(offset + deleted);
+			FlexTokenBoundaries updated = boundaries.update(flexerFactory, text);
+			FlexTokenBoundaries expected = FlexTokenBoundaries.compute(flexerFactory, text);
+			assertEqualBoundaries(expected, updated);
+			assertEquals(sameTokenTypes(boundaries, expected), updated.startsWithSameTokenTypes(boundaries));
+			boundaries = updated;
+		}
+	}
+
+	protected boolean sameTokenTypes(FlexTokenBoundaries original, FlexTokenBoundaries changed) {
+		if (changed.getTokenCount() < original.getTokenCount()) {
+			return false;
+		}
+		for (int i = 0; i < original.getTokenCount(); i++) {
+			if (original.getTokenType(i) != changed.getTokenType(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	protected void assertEqualBoundaries(FlexTokenBoundaries expected, FlexTokenBoundaries actual) {
+		assertEquals(expected.getText(), actual.getText());
+		assertEquals(expected.getTokenCount(), actual.getTokenCount());
+		for (int i = 0; i < expected.getTokenCount(); i++) {
+			assertEquals(expected.getTokenStart(i), actual.getTokenStart(i));
+			assertEquals(expected.getTokenType(i), actual.getTokenType(i));
+		}
+		assertEquals(expected.getTokenStart(expected.getTokenCount()), actual.getTokenStart(actual.getTokenCount()));
+	}
+
+}
@@ -87,6 +87,28 @@ public class FlexTokenRegionProviderTest extends AbstractXtendTestCase {
 		assertEquals(3, tokenRegion.getLength());
 	}
 	
+	@Test 
+	public void testInterleavedDocuments() throws Exception {
+		String first = "a1 / /* comment */ b2";
+		String second = " axb ";
+		for (int i = 0; i < 3; i++) {
+			assertEquals(new TextRegion(5, 13), tokenRegionProvider.getTokenRegion(first, new TextRegion(8, 2)));
+			assertEquals(new TextRegion(1, 3), tokenRegionProvider.getTokenRegion(second, new TextRegion(2, 1)));
+			first = "x" + first;
+			assertEquals(new TextRegion(6, 13), tokenRegionProvider.getTokenRegion(first, new TextRegion(9, 2)));
+			first = first.substring(1);
+		}
+	}
+	
+	@Test 
+	public void testCloseEarlierComment() throws Exception {
+		String open = "a /* b\nc * / d";
+		assertEquals(new TextRegion(2, 12), tokenRegionProvider.getTokenRegion(open, new TextRegion(7, 1)));
+		String closed = "a /* b\nc */ d";
+		assertEquals(new TextRegion(2, 9), tokenRegionProvider.getTokenRegion(closed, new TextRegion(7, 1)));
+		assertEquals(new TextRegion(12, 1), tokenRegionProvider.getTokenRegion(closed, new TextRegion(12, 1)));
+	}
+	
 	protected CommonToken findTokenStartingAt(final int offset, List<CommonToken> tokens) {
 		return find(tokens, new Predicate<CommonToken>() {
 			@Override
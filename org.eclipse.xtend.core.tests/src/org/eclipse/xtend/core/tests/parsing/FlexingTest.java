@@ -23,7 +23,7 @@ public class FlexingTest extends LexingTest {
 
 	@Override
 	protected void assertLexing(String input, Pair<String,String>... expectedTokens) {
-		FlexTokenSource tokenSource = new FlexerFactory().createTokenSource(new StringReader(input));
+		FlexTokenSource tokenSource = createTokenSource(input);
 		XtextTokenStream tokenStream = new XtextTokenStream(tokenSource, getTokenDefProvider());
 		List<?> tokens = tokenStream.getTokens();
 		assertEquals(input + " / " + tokens, expectedTokens.length, tokens.size());
@@ -36,4 +36,8 @@ public class FlexingTest extends LexingTest {
 		}
 	}
 	
+	protected FlexTokenSource createTokenSource(String input) {
+		return new FlexerFactory().createTokenSource(new StringReader(input));
+	}
+	
 }
@@ -0,0 +1,22 @@
+/*******************************************************************************
+ * Copyright (c) 2017 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtend.core.tests.parsing;
+
+import java.io.StringReader;
+
+import org.eclipse.xtend.core.parser.antlr.internal.FlexTokenSource;
+import org.eclipse.xtend.core.parser.antlr.internal.FlexerFactory;
+
+public class SharedBufferFlexingTest extends FlexingTest {
+
+	@Override
+	protected FlexTokenSource createTokenSource(String input) {
+		return new FlexerFactory().createSharedBufferTokenSource(new StringReader(input));
+	}
+
+}
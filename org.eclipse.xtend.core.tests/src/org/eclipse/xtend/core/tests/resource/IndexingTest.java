@@ -11,11 +11,16 @@ import static org.eclipse.xtext.common.types.TypesPackage.Literals.*;
 
 import java.io.IOException;
 import java.util.Iterator;
+import java.util.List;
 
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.xtend.core.resource.XtendResourceDescriptionStrategy;
 import org.eclipse.xtend.core.tests.AbstractXtendTestCase;
+import org.eclipse.xtend.core.xtend.XtendFile;
+import org.eclipse.xtext.common.types.JvmAnnotationType;
 import org.eclipse.xtext.common.types.access.impl.ClasspathTypeProvider;
 import org.eclipse.xtext.common.types.descriptions.JvmTypesResourceDescriptionStrategy;
 import org.eclipse.xtext.naming.IQualifiedNameConverter;
@@ -29,6 +34,7 @@ import org.eclipse.xtext.util.StringInputStream;
 import org.eclipse.xtext.util.Wrapper;
 import org.junit.Test;
 
+import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 
 /**
@@ -42,6 +48,9 @@ public class IndexingTest extends AbstractXtendTestCase {
 	@Inject
 	private IQualifiedNameConverter converter;
 	
+	@Inject
+	private XtendResourceDescriptionStrategy descriptionStrategy;
+	
 	@Inject
 	private IDerivedStateComputer derivedStateComputer;
 	
@@ -154,6 +163,80 @@ public class IndexingTest extends AbstractXtendTestCase {
 	}
 	
 	
+	@Test public void testActiveAnnotationFingerprint() throws Exception {
+		String model = "package test\n" +
+				"import org.eclipse.xtend.lib.macro.Active\n" +
+				"@Active(FooProcessor) annotation Foo {\n" +
+				"}\n" +
+				"class FooProcessor {\n" +
+				"}";
+		String fingerprint = getActiveAnnotationFingerprint(model);
+		assertNotNull(fingerprint);
+		assertEquals(fingerprint, getActiveAnnotationFingerprint(model));
+		assertFalse(fingerprint.equals(getActiveAnnotationFingerprint(model.replace("{", "{ String value() }"))));
+		assertFalse(fingerprint.equals(getActiveAnnotationFingerprint(model.replace("class FooProcessor {", "class FooProcessor { def void foo() {}"))));
+	}
+
+	@Test public void testActiveAnnotationSources() throws Exception {
+		String annotation = "package test\n" +
+				"import org.eclipse.xtend.lib.macro.Active\n" +
+				"@Active(FooProcessor) annotation Foo {\n" +
+				"}";
+		String processor = "package test\n" +
+				"class FooProcessor {\n" +
+				"  def void process() { new FooHelper().help() }\n" +
+				"}";
+		String helper = "package test\n" +
+				"class FooHelper {\n" +
+				"  def void help() {}\n" +
+				"}";
+		String unrelated = "package test\n" +
+				"class Unrelated {\n" +
+				"}";
+		List<String> sources = getActiveAnnotationSources(annotation, processor, helper, unrelated);
+		assertEquals(Lists.newArrayList("Sample.xtend", "test/FooHelper.xtend", "test/FooProcessor.xtend"), sources);
+	}
+
+	@Test public void testActiveAnnotationSourcesWithBinaryProcessor() throws Exception {
+		String annotation = "package test\n" +
+				"import org.eclipse.xtend.lib.macro.Active\n" +
+				"@Active(Object) annotation Foo {\n" +
+				"}";
+		assertNull(getActiveAnnotationSources(annotation));
+	}
+
+	private List<String> getActiveAnnotationSources(String... models) throws Exception {
+		for (XtendFile file : files(false, models)) {
+			for (EObject content : file.eResource().getContents()) {
+				if (content instanceof JvmAnnotationType && "test.Foo".equals(((JvmAnnotationType) content).getIdentifier())) {
+					List<Resource> resources = descriptionStrategy.getActiveAnnotationSources((JvmAnnotationType) content);
+					if (resources == null) {
+						return null;
+					}
+					List<String> result = Lists.newArrayList();
+					for (Resource resource : resources) {
+						result.add(resource.getURI().toString());
+					}
+					return result;
+				}
+			}
+		}
+		fail("test.Foo is not declared");
+		return null;
+	}
+
+	private String getActiveAnnotationFingerprint(String... models) throws Exception {
+		Resource resource = files(false, models).iterator().next().eResource();
+		for (IEObjectDescription description : resourceDescriptionManager.getResourceDescription(resource).getExportedObjects()) {
+			if ("test.Foo".equals(converter.toString(description.getQualifiedName()))) {
+				assertEquals(JVM_ANNOTATION_TYPE, description.getEClass());
+				return description.getUserData(XtendResourceDescriptionStrategy.ACTIVE_ANNOTATION_TIMESTAMP);
+			}
+		}
+		fail("test.Foo is not exported");
+		return null;
+	}
+
 	@Test public void testResourceDescriptionWithoutGetContentsWithAnnotations() throws Exception {
 		String input = "import com.google.inject.Inject class C%d extends C%d { @Inject def void m(Map<String, String> m) {} }";
 		doTestResourceDescriptionWithoutGetContents(input);
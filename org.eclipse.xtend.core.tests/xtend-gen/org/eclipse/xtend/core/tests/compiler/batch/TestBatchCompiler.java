@@ -8,14 +8,20 @@
 package org.eclipse.xtend.core.tests.compiler.batch;
 
 import com.google.common.base.Charsets;
+import com.google.common.base.Objects;
 import com.google.inject.Inject;
 import java.io.File;
 import java.io.FilenameFilter;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.function.Consumer;
 import org.apache.log4j.Level;
+import org.eclipse.xtend.core.compiler.batch.CachingClasspathTypeProvider;
+import org.eclipse.xtend.core.compiler.batch.ShardStatistics;
+import org.eclipse.xtend.core.compiler.batch.SharedJvmTypeCache;
 import org.eclipse.xtend.core.compiler.batch.XtendBatchCompiler;
 import org.eclipse.xtend.core.tests.RuntimeInjectorProvider;
 import org.eclipse.xtend2.lib.StringConcatenation;
@@ -33,6 +39,7 @@ import org.eclipse.xtext.xbase.lib.Exceptions;
 import org.eclipse.xtext.xbase.lib.Functions.Function1;
 import org.eclipse.xtext.xbase.lib.InputOutput;
 import org.eclipse.xtext.xbase.lib.IterableExtensions;
+import org.eclipse.xtext.xbase.lib.ListExtensions;
 import org.eclipse.xtext.xbase.lib.ObjectExtensions;
 import org.eclipse.xtext.xbase.lib.Procedures.Procedure1;
 import org.junit.After;
@@ -73,6 +80,8 @@ public class TestBatchCompiler {
   
   private static String BUG417177_OUTPUT_DIRECTORY = "./batch-compiler-data/bug417177/dir3/bin";
   
+  private static String CROSS_REFERENCES_SRC_DIRECTORY = "./batch-compiler-data/crossReferences";
+  
   private static String TEMP_DIRECTORY = "./test-temp-dir";
   
   private static String TEMP_DIRECTORY_WITH_SPACES = "./test temp dir";
@@ -462,6 +471,260 @@ public class TestBatchCompiler {
     Assert.assertEquals(14, ((List<String>)Conversions.doWrapArray(new File((TestBatchCompiler.OUTPUT_DIRECTORY_WITH_SPACES + "/test")).list())).size());
   }
   
+  @Test
+  public void testParallelCompilation() {
+    this.batchCompiler.setNumberOfThreads(4);
+    this.batchCompiler.setSourcePath(TestBatchCompiler.XTEND_SRC_DIRECTORY);
+    this.batchCompiler.setOutputPath(TestBatchCompiler.OUTPUT_DIRECTORY);
+    Assert.assertTrue(this.batchCompiler.compile());
+    Assert.assertEquals(14, ((List<String>)Conversions.doWrapArray(new File((TestBatchCompiler.OUTPUT_DIRECTORY + "/test")).list())).size());
+  }
+  
+  @Test
+  public void testParallelIssues() {
+    this.batchCompiler.setSourcePath(TestBatchCompiler.CROSS_REFERENCES_SRC_DIRECTORY);
+    final List<String> sequential = this.compileAndCaptureIssues(1);
+    final Function1<String, Boolean> _function = (String it) -> {
+      return Boolean.valueOf(it.contains("A.xtend"));
+    };
+    Assert.assertTrue(sequential.toString(), IterableExtensions.<String>exists(sequential, _function));
+    final Function1<String, Boolean> _function_1 = (String it) -> {
+      return Boolean.valueOf(it.contains("C.xtend"));
+    };
+    Assert.assertTrue(sequential.toString(), IterableExtensions.<String>exists(sequential, _function_1));
+    final Function1<String, Boolean> _function_2 = (String it) -> {
+      return Boolean.valueOf(it.contains("D.xtend"));
+    };
+    Assert.assertTrue(sequential.toString(), IterableExtensions.<String>exists(sequential, _function_2));
+    final List<String> parallel = this.compileAndCaptureIssues(4);
+    Assert.assertEquals(sequential, parallel);
+  }
+  
+  private List<String> compileAndCaptureIssues(final int numberOfThreads) {
+    this.batchCompiler.setNumberOfThreads(numberOfThreads);
+    final Runnable _function = () -> {
+      Assert.assertFalse(this.batchCompiler.compile());
+    };
+    final LoggingTester.LogCapture logs = LoggingTester.captureLogging(Level.WARN, XtendBatchCompiler.class, _function);
+    final Function1<LoggingTester.LogEntry, String> _function_1 = (LoggingTester.LogEntry it) -> {
+      return it.getMessage();
+    };
+    return IterableExtensions.<String>toList(ListExtensions.<LoggingTester.LogEntry, String>map(logs.getLogEntries(), _function_1));
+  }
+  
+  @Test
+  public void testParallelOutput() {
+    try {
+      this.batchCompiler.setWriteTraceFiles(true);
+      Assert.assertTrue(this.batchCompiler.compile());
+      final Map<String, byte[]> sequential = CollectionLiterals.<String, byte[]>newHashMap();
+      File _file = new File(TestBatchCompiler.OUTPUT_DIRECTORY);
+      this.readOutputFiles(_file, "", sequential);
+      File _file_1 = new File(TestBatchCompiler.OUTPUT_DIRECTORY);
+      Files.cleanFolder(_file_1, null, true, false);
+      this.batchCompiler.setNumberOfThreads(4);
+      Assert.assertTrue(this.batchCompiler.compile());
+      final Map<String, byte[]> parallel = CollectionLiterals.<String, byte[]>newHashMap();
+      File _file_2 = new File(TestBatchCompiler.OUTPUT_DIRECTORY);
+      this.readOutputFiles(_file_2, "", parallel);
+      Assert.assertEquals(sequential.keySet(), parallel.keySet());
+      Set<String> _keySet = sequential.keySet();
+      for (final String file : _keySet) {
+        Assert.assertArrayEquals(file, sequential.get(file), parallel.get(file));
+      }
+    } catch (Throwable _e) {
+      throw Exceptions.sneakyThrow(_e);
+    }
+  }
+  
+  private void readOutputFiles(final File directory, final String path, final Map<String, byte[]> result) {
+    try {
+      File[] _listFiles = directory.listFiles();
+      for (final File file : _listFiles) {
+        boolean _isDirectory = file.isDirectory();
+        if (_isDirectory) {
+          String _name = file.getName();
+          String _plus = (path + _name);
+          String _plus_1 = (_plus + "/");
+          this.readOutputFiles(file, _plus_1, result);
+        } else {
+          String _name_1 = file.getName();
+          String _plus_2 = (path + _name_1);
+          result.put(_plus_2, com.google.common.io.Files.toByteArray(file));
+        }
+      }
+    } catch (Throwable _e) {
+      throw Exceptions.sneakyThrow(_e);
+    }
+  }
+  
+  @Test
+  public void testIncrementalCompilation() {
+    this.batchCompiler.setIncremental(true);
+    this.batchCompiler.setSourcePath(TestBatchCompiler.XTEND_SRC_DIRECTORY);
+    this.batchCompiler.setOutputPath(TestBatchCompiler.OUTPUT_DIRECTORY);
+    Assert.assertTrue(this.batchCompiler.compile());
+    final File generated = new File((TestBatchCompiler.OUTPUT_DIRECTORY + "/test/XtendA.java"));
+    Assert.assertTrue(generated.setLastModified(0));
+    Assert.assertTrue(this.batchCompiler.compile());
+    Assert.assertEquals("Unchanged sources are not generated again", 0, generated.lastModified());
+    Assert.assertTrue(generated.delete());
+    Assert.assertTrue(this.batchCompiler.compile());
+    Assert.assertTrue("Deleted outputs are generated again", generated.exists());
+    Assert.assertTrue(generated.setLastModified(0));
+    this.batchCompiler.setIncremental(false);
+    Assert.assertTrue(this.batchCompiler.compile());
+    long _lastModified = generated.lastModified();
+    boolean _notEquals = (_lastModified != 0);
+    Assert.assertTrue(_notEquals);
+  }
+  
+  @Test
+  public void testIncrementalCompilationOfChanges() {
+    try {
+      final File projectDirectory = new File(TestBatchCompiler.TEMP_DIRECTORY, "incremental");
+      final File sourceDirectory = new File(projectDirectory, "src");
+      final File classPathDirectory = new File(projectDirectory, "lib");
+      File _file = new File(TestBatchCompiler.XTEND_SRC_DIRECTORY);
+      this.copyFolder(_file, sourceDirectory);
+      classPathDirectory.mkdirs();
+      this.batchCompiler.setIncremental(true);
+      this.batchCompiler.setSourcePath(sourceDirectory.getPath());
+      this.batchCompiler.setOutputPath(new File(projectDirectory, "bin").getPath());
+      String _path = classPathDirectory.getPath();
+      String _plus = (_path + File.pathSeparator);
+      String _path_1 = sourceDirectory.getPath();
+      String _plus_1 = (_plus + _path_1);
+      this.batchCompiler.setClassPath(_plus_1);
+      Assert.assertTrue(this.batchCompiler.compile());
+      final File xtendA = new File(projectDirectory, "bin/test/XtendA.java");
+      final File xtendC = new File(projectDirectory, "bin/test/XtendC.java");
+      final File b = new File(projectDirectory, "bin/test/B.java");
+      Assert.assertTrue(xtendA.setLastModified(0));
+      Assert.assertTrue(xtendC.setLastModified(0));
+      Assert.assertTrue(b.setLastModified(0));
+      File _file_1 = new File(sourceDirectory, "test/XtendC.xtend");
+      com.google.common.io.Files.append("\nclass XtendD {}\n", _file_1, Charsets.UTF_8);
+      Assert.assertTrue(this.batchCompiler.compile());
+      long _lastModified = xtendC.lastModified();
+      boolean _notEquals = (_lastModified != 0);
+      Assert.assertTrue("The changed file is generated again", _notEquals);
+      Assert.assertTrue(new File(projectDirectory, "bin/test/XtendD.java").exists());
+      long _lastModified_1 = xtendA.lastModified();
+      boolean _notEquals_1 = (_lastModified_1 != 0);
+      Assert.assertTrue("Dependents of the changed file are generated again", _notEquals_1);
+      Assert.assertEquals("Other files are not generated again", 0, b.lastModified());
+      Assert.assertTrue(xtendA.setLastModified(0));
+      Assert.assertTrue(this.batchCompiler.compile());
+      Assert.assertEquals(0, xtendA.lastModified());
+      File _file_2 = new File(classPathDirectory, "changed.txt");
+      com.google.common.io.Files.write("changed", _file_2, Charsets.UTF_8);
+      Assert.assertTrue(this.batchCompiler.compile());
+      long _lastModified_2 = xtendA.lastModified();
+      boolean _notEquals_2 = (_lastModified_2 != 0);
+      Assert.assertTrue("A changed class path causes a full build", _notEquals_2);
+      long _lastModified_3 = b.lastModified();
+      boolean _notEquals_3 = (_lastModified_3 != 0);
+      Assert.assertTrue(_notEquals_3);
+    } catch (Throwable _e) {
+      throw Exceptions.sneakyThrow(_e);
+    }
+  }
+  
+  @Test
+  public void testIncrementalCompilationOfJavaChanges() {
+    try {
+      final File projectDirectory = new File(TestBatchCompiler.TEMP_DIRECTORY, "incrementalJava");
+      final File sourceDirectory = new File(projectDirectory, "src");
+      File _file = new File(TestBatchCompiler.XTEND_SRC_DIRECTORY);
+      this.copyFolder(_file, sourceDirectory);
+      this.batchCompiler.setIncremental(true);
+      this.batchCompiler.setSourcePath(sourceDirectory.getPath());
+      this.batchCompiler.setOutputPath(new File(projectDirectory, "bin").getPath());
+      Assert.assertTrue(this.batchCompiler.compile());
+      final File b = new File(projectDirectory, "bin/test/B.java");
+      Assert.assertTrue(b.setLastModified(0));
+      Assert.assertTrue(this.batchCompiler.compile());
+      Assert.assertEquals(0, b.lastModified());
+      File _file_1 = new File(sourceDirectory, "test/TestInterface.java");
+      com.google.common.io.Files.append("\n// changed\n", _file_1, Charsets.UTF_8);
+      Assert.assertTrue(this.batchCompiler.compile());
+      long _lastModified = b.lastModified();
+      boolean _notEquals = (_lastModified != 0);
+      Assert.assertTrue("Dependents of a changed Java file are generated again", _notEquals);
+    } catch (Throwable _e) {
+      throw Exceptions.sneakyThrow(_e);
+    }
+  }
+  
+  private void copyFolder(final File source, final File target) {
+    try {
+      target.mkdirs();
+      File[] _listFiles = source.listFiles();
+      for (final File file : _listFiles) {
+        boolean _isDirectory = file.isDirectory();
+        if (_isDirectory) {
+          String _name = file.getName();
+          File _file = new File(target, _name);
+          this.copyFolder(file, _file);
+        } else {
+          String _name_1 = file.getName();
+          File _file_1 = new File(target, _name_1);
+          com.google.common.io.Files.copy(file, _file_1);
+        }
+      }
+    } catch (Throwable _e) {
+      throw Exceptions.sneakyThrow(_e);
+    }
+  }
+  
+  @Test
+  public void testSkipUnchangedFiles() {
+    try {
+      this.batchCompiler.setSkipUnchangedFiles(true);
+      Assert.assertTrue(this.batchCompiler.compile());
+      final File generated = new File((TestBatchCompiler.OUTPUT_DIRECTORY + "/test/XtendA.java"));
+      Assert.assertTrue(generated.setLastModified(0));
+      Assert.assertTrue(this.batchCompiler.compile());
+      Assert.assertEquals("Unchanged files are not written again", 0, generated.lastModified());
+      com.google.common.io.Files.write("// modified", generated, Charsets.UTF_8);
+      Assert.assertTrue(this.batchCompiler.compile());
+      Assert.assertFalse(this.getContents((TestBatchCompiler.OUTPUT_DIRECTORY + "/test/XtendA.java")).contains("// modified"));
+    } catch (Throwable _e) {
+      throw Exceptions.sneakyThrow(_e);
+    }
+  }
+  
+  @Test
+  public void testShardedCompilation() {
+    this.batchCompiler.setShardSize(3);
+    Assert.assertTrue(this.batchCompiler.compile());
+    Assert.assertEquals(14, ((List<String>)Conversions.doWrapArray(new File((TestBatchCompiler.OUTPUT_DIRECTORY + "/test")).list())).size());
+  }
+  
+  @Test
+  public void testShardedCompilationUnloadsResources() {
+    this.batchCompiler.setSourcePath("./batch-compiler-data/sharding");
+    this.batchCompiler.setShardSize(1);
+    Assert.assertTrue(this.batchCompiler.compile());
+    final ShardStatistics statistics = this.batchCompiler.getShardStatistics();
+    Assert.assertEquals(5, statistics.getShardCount());
+    Assert.assertEquals("Only a shard and A are loaded at once", 2, statistics.getMaxLoadedResources());
+    Assert.assertEquals("A is loaded again for each of its dependents", 4, statistics.getResourcesLoadedOnDemand());
+    Assert.assertTrue(new File((TestBatchCompiler.OUTPUT_DIRECTORY + "/pkg/E.java")).exists());
+  }
+  
+  @Test
+  public void testProfileReport() {
+    this.batchCompiler.setProfileReport((TestBatchCompiler.TEMP_DIRECTORY + "/profile.json"));
+    Assert.assertTrue(this.batchCompiler.compile());
+    final String report = this.getContents((TestBatchCompiler.TEMP_DIRECTORY + "/profile.json"));
+    for (final String phase : Collections.<String>unmodifiableList(CollectionLiterals.<String>newArrayList("loadXtendFiles", "createStubs", "preCompileStubs", "preCompileJava", "resolveAll", "validate", "generateJavaFiles"))) {
+      Assert.assertTrue(phase, report.contains((("\"name\": \"" + phase) + "\"")));
+    }
+    Assert.assertTrue(report.contains("XtendA.xtend"));
+  }
+  
   @Test
   public void bug387829() {
     this.batchCompiler.setTempDirectory(TestBatchCompiler.TEMP_DIRECTORY_WITH_SPACES);
@@ -607,6 +870,24 @@ public class TestBatchCompiler {
     Assert.assertEquals(0, ((List<String>)Conversions.doWrapArray(new File((TestBatchCompiler.OUTPUT_DIRECTORY + "/test")).list(_function_1))).size());
   }
   
+  @Test
+  public void testReuseStorageFiles() {
+    this.batchCompiler.setIncremental(true);
+    this.batchCompiler.setReuseStorageFiles(true);
+    Assert.assertTrue(this.batchCompiler.compile());
+    final FilenameFilter _function = (File dir, String name) -> {
+      return name.endsWith(".xtendbin");
+    };
+    Assert.assertEquals(5, ((List<String>)Conversions.doWrapArray(new File((TestBatchCompiler.OUTPUT_DIRECTORY + "/test")).list(_function))).size());
+    final File generated = new File((TestBatchCompiler.OUTPUT_DIRECTORY + "/test/XtendA.java"));
+    Assert.assertTrue(generated.setLastModified(0));
+    Assert.assertTrue(this.batchCompiler.compile());
+    Assert.assertEquals("Unchanged sources are loaded from storage and not generated again", 0, generated.lastModified());
+    Assert.assertTrue(generated.delete());
+    Assert.assertTrue(this.batchCompiler.compile());
+    Assert.assertTrue("Deleted outputs are generated again", generated.exists());
+  }
+  
   @Test
   public void testCompileSymlinkedResource() {
     final String tstResources = new File("./batch-compiler-data/test-resources/").toURI().normalize().getPath();
@@ -713,6 +994,105 @@ public class TestBatchCompiler {
     Assert.assertEquals(4, ((List<String>)Conversions.doWrapArray(new File(_tempDirectory_1).list())).size());
   }
   
+  @Test
+  public void testCompileStubsInMemory() {
+    this.batchCompiler.setCompileStubsInMemory(true);
+    this.batchCompiler.setDeleteTempDirectory(false);
+    this.batchCompiler.setTempDirectory(TestBatchCompiler.TEMP_DIRECTORY);
+    Assert.assertTrue(this.batchCompiler.compile());
+    Assert.assertFalse(new File(TestBatchCompiler.TEMP_DIRECTORY).exists());
+    Assert.assertEquals(14, ((List<String>)Conversions.doWrapArray(new File((TestBatchCompiler.OUTPUT_DIRECTORY + "/test")).list())).size());
+  }
+  
+  @Test
+  public void testJvmTypeCache() {
+    try {
+      this.batchCompiler.setJvmTypeCacheDirectory((TestBatchCompiler.TEMP_DIRECTORY + "/types"));
+      Assert.assertTrue(this.batchCompiler.compile());
+      Assert.assertFalse(this.getJvmTypeCacheFiles().isEmpty());
+      final Function1<File, Boolean> _function = (File it) -> {
+        String _name = it.getParentFile().getParentFile().getParentFile().getName();
+        return Boolean.valueOf(Objects.equal(_name, "types"));
+      };
+      Assert.assertTrue(IterableExtensions.<File>forall(this.getJvmTypeCacheFiles(), _function));
+      File _file = new File(TestBatchCompiler.OUTPUT_DIRECTORY);
+      Files.cleanFolder(_file, null, true, false);
+      final Runnable _function_1 = () -> {
+        Assert.assertTrue(this.batchCompiler.compile());
+      };
+      final LoggingTester.LogCapture log = LoggingTester.captureLogging(Level.DEBUG, CachingClasspathTypeProvider.class, _function_1);
+      Assert.assertEquals(14, ((List<String>)Conversions.doWrapArray(new File((TestBatchCompiler.OUTPUT_DIRECTORY + "/test")).list())).size());
+      final Function1<LoggingTester.LogEntry, Boolean> _function_2 = (LoggingTester.LogEntry it) -> {
+        return Boolean.valueOf(it.getMessage().startsWith("Loaded the type"));
+      };
+      Assert.assertTrue(IterableExtensions.<LoggingTester.LogEntry>exists(log.getLogEntries(), _function_2));
+    } catch (Throwable _e) {
+      throw Exceptions.sneakyThrow(_e);
+    }
+  }
+  
+  @Test
+  public void testCorruptJvmTypeCache() {
+    try {
+      this.batchCompiler.setJvmTypeCacheDirectory((TestBatchCompiler.TEMP_DIRECTORY + "/types"));
+      Assert.assertTrue(this.batchCompiler.compile());
+      final List<File> cacheFiles = this.getJvmTypeCacheFiles();
+      Assert.assertFalse(cacheFiles.isEmpty());
+      for (final File cacheFile : cacheFiles) {
+        com.google.common.io.Files.write("corrupt", cacheFile, Charsets.UTF_8);
+      }
+      File _file = new File(TestBatchCompiler.OUTPUT_DIRECTORY);
+      Files.cleanFolder(_file, null, true, false);
+      final Runnable _function = () -> {
+        Assert.assertTrue(this.batchCompiler.compile());
+      };
+      final LoggingTester.LogCapture log = LoggingTester.captureLogging(Level.WARN, CachingClasspathTypeProvider.class, _function);
+      Assert.assertEquals(14, ((List<String>)Conversions.doWrapArray(new File((TestBatchCompiler.OUTPUT_DIRECTORY + "/test")).list())).size());
+      Assert.assertFalse(log.getLogEntries().isEmpty());
+      final Function1<File, Boolean> _function_1 = (File it) -> {
+        try {
+          boolean _equals = com.google.common.io.Files.toString(it, Charsets.UTF_8).equals("corrupt");
+          return Boolean.valueOf((!_equals));
+        } catch (Throwable _e) {
+          throw Exceptions.sneakyThrow(_e);
+        }
+      };
+      Assert.assertTrue(IterableExtensions.<File>exists(cacheFiles, _function_1));
+    } catch (Throwable _e) {
+      throw Exceptions.sneakyThrow(_e);
+    }
+  }
+  
+  private List<File> getJvmTypeCacheFiles() {
+    File _file = new File((TestBatchCompiler.TEMP_DIRECTORY + "/types"));
+    final Function1<File, Boolean> _function = (File it) -> {
+      return Boolean.valueOf(it.getName().endsWith(".jvmtype"));
+    };
+    return IterableExtensions.<File>toList(IterableExtensions.<File>filter(com.google.common.io.Files.fileTreeTraverser().preOrderTraversal(_file), _function));
+  }
+  
+  @Test
+  public void testSharedJvmTypeCache() {
+    try {
+      SharedJvmTypeCache _sharedJvmTypeCache = new SharedJvmTypeCache();
+      this.batchCompiler.setSharedJvmTypeCache(_sharedJvmTypeCache);
+      Assert.assertTrue(this.batchCompiler.compile());
+      File _file = new File(TestBatchCompiler.OUTPUT_DIRECTORY);
+      Files.cleanFolder(_file, null, true, false);
+      final Runnable _function = () -> {
+        Assert.assertTrue(this.batchCompiler.compile());
+      };
+      final LoggingTester.LogCapture log = LoggingTester.captureLogging(Level.DEBUG, CachingClasspathTypeProvider.class, _function);
+      Assert.assertEquals(14, ((List<String>)Conversions.doWrapArray(new File((TestBatchCompiler.OUTPUT_DIRECTORY + "/test")).list())).size());
+      final Function1<LoggingTester.LogEntry, Boolean> _function_1 = (LoggingTester.LogEntry it) -> {
+        return Boolean.valueOf(it.getMessage().endsWith("from the shared cache"));
+      };
+      Assert.assertTrue(IterableExtensions.<LoggingTester.LogEntry>exists(log.getLogEntries(), _function_1));
+    } catch (Throwable _e) {
+      throw Exceptions.sneakyThrow(_e);
+    }
+  }
+  
   @Test
   public void deleteTempDirectory() {
     this.batchCompiler.setDeleteTempDirectory(true);
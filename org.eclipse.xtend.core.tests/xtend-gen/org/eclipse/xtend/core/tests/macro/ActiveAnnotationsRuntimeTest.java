@@ -1,8 +1,10 @@
 package org.eclipse.xtend.core.tests.macro;
 
+import com.google.common.base.Objects;
 import com.google.common.collect.Iterables;
 import com.google.common.io.Files;
 import com.google.inject.Inject;
+import com.google.inject.Injector;
 import com.google.inject.Provider;
 import java.io.File;
 import java.nio.charset.Charset;
@@ -14,6 +16,7 @@ import org.eclipse.xtend.core.macro.declaration.CompilationUnitImpl;
 import org.eclipse.xtend.core.tests.RuntimeInjectorProvider;
 import org.eclipse.xtend.core.tests.macro.AbstractReusableActiveAnnotationTests;
 import org.eclipse.xtend.core.tests.macro.DelegatingClassloader;
+import org.eclipse.xtend.core.tests.macro.ProcessorTimeoutAccess;
 import org.eclipse.xtend.core.tests.util.TemporaryFolder;
 import org.eclipse.xtend.core.validation.IssueCodes;
 import org.eclipse.xtend.core.xtend.XtendFile;
@@ -22,6 +25,7 @@ import org.eclipse.xtend2.lib.StringConcatenation;
 import org.eclipse.xtext.diagnostics.Severity;
 import org.eclipse.xtext.resource.XtextResource;
 import org.eclipse.xtext.resource.XtextResourceSet;
+import org.eclipse.xtext.service.OperationCanceledError;
 import org.eclipse.xtext.testing.InjectWith;
 import org.eclipse.xtext.testing.XtextRunner;
 import org.eclipse.xtext.testing.validation.ValidationTestHelper;
@@ -34,6 +38,7 @@ import org.eclipse.xtext.workspace.FileProjectConfig;
 import org.eclipse.xtext.workspace.ProjectConfigAdapter;
 import org.eclipse.xtext.xbase.lib.CollectionLiterals;
 import org.eclipse.xtext.xbase.lib.Exceptions;
+import org.eclipse.xtext.xbase.lib.Functions.Function1;
 import org.eclipse.xtext.xbase.lib.IterableExtensions;
 import org.eclipse.xtext.xbase.lib.ObjectExtensions;
 import org.eclipse.xtext.xbase.lib.Pair;
@@ -49,6 +54,8 @@ import org.junit.runner.RunWith;
 @InjectWith(RuntimeInjectorProvider.class)
 @SuppressWarnings("all")
 public class ActiveAnnotationsRuntimeTest extends AbstractReusableActiveAnnotationTests {
+  private final static String LOOP_STARTED = "ActiveAnnotationsRuntimeTest.loopStarted";
+  
   @Rule
   @Inject
   public TemporaryFolder temporaryFolder;
@@ -65,6 +72,9 @@ public class ActiveAnnotationsRuntimeTest extends AbstractReusableActiveAnnotati
   @Inject
   private ValidationTestHelper validator;
   
+  @Inject
+  private Injector injector;
+  
   private final String macroProject = "macroProject";
   
   private final String clientProject = "userProject";
@@ -122,6 +132,10 @@ public class ActiveAnnotationsRuntimeTest extends AbstractReusableActiveAnnotati
   }
   
   public void assertIssues(final Pair<String, String> macroFile, final Pair<String, String> clientFile, final Procedure1<? super List<Issue>> expectations) {
+    this.assertIssues(macroFile, clientFile, CancelIndicator.NullImpl, expectations);
+  }
+  
+  public void assertIssues(final Pair<String, String> macroFile, final Pair<String, String> clientFile, final CancelIndicator cancelIndicator, final Procedure1<? super List<Issue>> expectations) {
     try {
       final XtextResourceSet resourceSet = this.compileMacroResourceSet(macroFile, clientFile);
       Resource _head = IterableExtensions.<Resource>head(resourceSet.getResources());
@@ -132,7 +146,7 @@ public class ActiveAnnotationsRuntimeTest extends AbstractReusableActiveAnnotati
         singleResource.load(resourceSet.getLoadOptions());
       }
       final IResourceValidator validator = singleResource.getResourceServiceProvider().getResourceValidator();
-      expectations.apply(validator.validate(singleResource, CheckMode.ALL, CancelIndicator.NullImpl));
+      expectations.apply(validator.validate(singleResource, CheckMode.ALL, cancelIndicator));
     } catch (Throwable _e) {
       throw Exceptions.sneakyThrow(_e);
     }
@@ -231,6 +245,178 @@ public class ActiveAnnotationsRuntimeTest extends AbstractReusableActiveAnnotati
     this.assertIssues(_mappedTo, _mappedTo_1, _function);
   }
   
+  @Test(timeout = 30000)
+  public void testProcessorTimeout() {
+    final long timeout = ProcessorTimeoutAccess.getProcessorTimeout(this.injector);
+    ProcessorTimeoutAccess.setProcessorTimeout(this.injector, 200);
+    try {
+      StringConcatenation _builder = new StringConcatenation();
+      _builder.append("package myannotation");
+      _builder.newLine();
+      _builder.newLine();
+      _builder.append("import org.eclipse.xtend.lib.macro.Active");
+      _builder.newLine();
+      _builder.append("import org.eclipse.xtend.lib.macro.ValidationContext");
+      _builder.newLine();
+      _builder.append("import org.eclipse.xtend.lib.macro.AbstractClassProcessor");
+      _builder.newLine();
+      _builder.append("import org.eclipse.xtend.lib.macro.declaration.ClassDeclaration");
+      _builder.newLine();
+      _builder.newLine();
+      _builder.append("@Active(LoopProcessor)");
+      _builder.newLine();
+      _builder.append("annotation LoopAnnotation { }");
+      _builder.newLine();
+      _builder.append("class LoopProcessor extends AbstractClassProcessor {");
+      _builder.newLine();
+      _builder.newLine();
+      _builder.append("\t");
+      _builder.append("override doValidate(ClassDeclaration clazz, extension ValidationContext context) {");
+      _builder.newLine();
+      _builder.append("\t\t");
+      _builder.append("while (true) {");
+      _builder.newLine();
+      _builder.append("\t\t\t");
+      _builder.append("newTypeReference(\"java.lang.String\")");
+      _builder.newLine();
+      _builder.append("\t\t");
+      _builder.append("}");
+      _builder.newLine();
+      _builder.append("\t");
+      _builder.append("}");
+      _builder.newLine();
+      _builder.newLine();
+      _builder.append("}");
+      _builder.newLine();
+      _builder.newLine();
+      _builder.append("@Active(WarnProcessor)");
+      _builder.newLine();
+      _builder.append("annotation WarnAnnotation { }");
+      _builder.newLine();
+      _builder.append("class WarnProcessor extends AbstractClassProcessor {");
+      _builder.newLine();
+      _builder.newLine();
+      _builder.append("\t");
+      _builder.append("override doValidate(ClassDeclaration clazz, extension ValidationContext context) {");
+      _builder.newLine();
+      _builder.append("\t\t");
+      _builder.append("clazz.addWarning(\"still running\")");
+      _builder.newLine();
+      _builder.append("\t");
+      _builder.append("}");
+      _builder.newLine();
+      _builder.newLine();
+      _builder.append("}");
+      _builder.newLine();
+      Pair<String, String> _mappedTo = Pair.<String, String>of("myannotation/LoopAnnotation.xtend", _builder.toString());
+      StringConcatenation _builder_1 = new StringConcatenation();
+      _builder_1.append("package myusercode");
+      _builder_1.newLine();
+      _builder_1.newLine();
+      _builder_1.append("@myannotation.LoopAnnotation @myannotation.WarnAnnotation class MyClass {");
+      _builder_1.newLine();
+      _builder_1.append("}");
+      _builder_1.newLine();
+      Pair<String, String> _mappedTo_1 = Pair.<String, String>of("myusercode/UserCode.xtend", _builder_1.toString());
+      final Procedure1<List<Issue>> _function = (List<Issue> it) -> {
+        final Function1<Issue, Boolean> _function_1 = (Issue it_1) -> {
+          String _code = it_1.getCode();
+          return Boolean.valueOf(Objects.equal(_code, IssueCodes.PROCESSING_ERROR));
+        };
+        final Issue error = IterableExtensions.<Issue>findFirst(it, _function_1);
+        Assert.assertNotNull(it.toString(), error);
+        Assert.assertTrue(error.getMessage(), error.getMessage().contains("did not finish within 200 ms"));
+        final Function1<Issue, Boolean> _function_2 = (Issue it_1) -> {
+          return Boolean.valueOf(((it_1.getSeverity() == Severity.WARNING) && Objects.equal(it_1.getMessage(), "still running")));
+        };
+        Assert.assertTrue(it.toString(), IterableExtensions.<Issue>exists(it, _function_2));
+      };
+      this.assertIssues(_mappedTo, _mappedTo_1, _function);
+    } finally {
+      ProcessorTimeoutAccess.setProcessorTimeout(this.injector, timeout);
+    }
+  }
+  
+  @Test(timeout = 30000)
+  public void testCancelIndicatorStopsProcessor() {
+    try {
+      try {
+        StringConcatenation _builder = new StringConcatenation();
+        _builder.append("package myannotation");
+        _builder.newLine();
+        _builder.newLine();
+        _builder.append("import org.eclipse.xtend.lib.macro.Active");
+        _builder.newLine();
+        _builder.append("import org.eclipse.xtend.lib.macro.ValidationContext");
+        _builder.newLine();
+        _builder.append("import org.eclipse.xtend.lib.macro.AbstractClassProcessor");
+        _builder.newLine();
+        _builder.append("import org.eclipse.xtend.lib.macro.declaration.ClassDeclaration");
+        _builder.newLine();
+        _builder.newLine();
+        _builder.append("@Active(LoopProcessor)");
+        _builder.newLine();
+        _builder.append("annotation LoopAnnotation { }");
+        _builder.newLine();
+        _builder.append("class LoopProcessor extends AbstractClassProcessor {");
+        _builder.newLine();
+        _builder.newLine();
+        _builder.append("\t");
+        _builder.append("override doValidate(ClassDeclaration clazz, extension ValidationContext context) {");
+        _builder.newLine();
+        _builder.append("\t\t");
+        _builder.append("System.setProperty(\"");
+        _builder.append(ActiveAnnotationsRuntimeTest.LOOP_STARTED, "\t\t");
+        _builder.append("\", \"true\")");
+        _builder.newLineIfNotEmpty();
+        _builder.append("\t\t");
+        _builder.append("while (true) {");
+        _builder.newLine();
+        _builder.append("\t\t\t");
+        _builder.append("newTypeReference(\"java.lang.String\")");
+        _builder.newLine();
+        _builder.append("\t\t");
+        _builder.append("}");
+        _builder.newLine();
+        _builder.append("\t");
+        _builder.append("}");
+        _builder.newLine();
+        _builder.newLine();
+        _builder.append("}");
+        _builder.newLine();
+        Pair<String, String> _mappedTo = Pair.<String, String>of("myannotation/LoopAnnotation.xtend", _builder.toString());
+        StringConcatenation _builder_1 = new StringConcatenation();
+        _builder_1.append("package myusercode");
+        _builder_1.newLine();
+        _builder_1.newLine();
+        _builder_1.append("@myannotation.LoopAnnotation class MyClass {");
+        _builder_1.newLine();
+        _builder_1.append("}");
+        _builder_1.newLine();
+        Pair<String, String> _mappedTo_1 = Pair.<String, String>of("myusercode/UserCode.xtend", _builder_1.toString());
+        final CancelIndicator _function = () -> {
+          return Boolean.getBoolean(ActiveAnnotationsRuntimeTest.LOOP_STARTED);
+        };
+        final Procedure1<List<Issue>> _function_1 = (List<Issue> it) -> {
+          final Function1<Issue, Boolean> _function_2 = (Issue it_1) -> {
+            String _code = it_1.getCode();
+            return Boolean.valueOf(Objects.equal(_code, IssueCodes.PROCESSING_ERROR));
+          };
+          Assert.assertFalse(it.toString(), IterableExtensions.<Issue>exists(it, _function_2));
+        };
+        this.assertIssues(_mappedTo, _mappedTo_1, _function, _function_1);
+      } catch (final Throwable _t) {
+        if (_t instanceof OperationCanceledError) {
+        } else {
+          throw Exceptions.sneakyThrow(_t);
+        }
+      }
+      Assert.assertTrue(Boolean.getBoolean(ActiveAnnotationsRuntimeTest.LOOP_STARTED));
+    } finally {
+      System.clearProperty(ActiveAnnotationsRuntimeTest.LOOP_STARTED);
+    }
+  }
+  
   @Test
   public void testDetectOrphanedElements() {
     StringConcatenation _builder = new StringConcatenation();
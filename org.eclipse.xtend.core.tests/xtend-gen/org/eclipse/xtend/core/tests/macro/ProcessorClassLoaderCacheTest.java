@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) 2017 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.xtend.core.tests.macro;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import java.io.File;
+import java.net.URL;
+import java.util.Collections;
+import java.util.List;
+import org.eclipse.xtend.core.macro.ProcessorClassLoaderCache;
+import org.eclipse.xtext.xbase.lib.CollectionLiterals;
+import org.eclipse.xtext.xbase.lib.Exceptions;
+import org.eclipse.xtext.xbase.testing.TemporaryFolder;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+
+@SuppressWarnings("all")
+public class ProcessorClassLoaderCacheTest {
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+  
+  @Test
+  public void testSameClassPathReusesClassLoader() {
+    try {
+      final ProcessorClassLoaderCache cache = new ProcessorClassLoaderCache();
+      URL _uRL = this.temporaryFolder.newFolder().toURI().toURL();
+      final List<URL> urls = Collections.<URL>unmodifiableList(CollectionLiterals.<URL>newArrayList(_uRL));
+      final ClassLoader first = cache.acquire(urls, this.getClass().getClassLoader());
+      cache.release(first);
+      final ClassLoader second = cache.acquire(urls, this.getClass().getClassLoader());
+      Assert.assertSame(first, second);
+      cache.release(second);
+    } catch (Throwable _e) {
+      throw Exceptions.sneakyThrow(_e);
+    }
+  }
+  
+  @Test
+  public void testChangedClassPathCreatesNewClassLoader() {
+    try {
+      final ProcessorClassLoaderCache cache = new ProcessorClassLoaderCache();
+      final File folder = this.temporaryFolder.newFolder();
+      URL _uRL = folder.toURI().toURL();
+      final List<URL> urls = Collections.<URL>unmodifiableList(CollectionLiterals.<URL>newArrayList(_uRL));
+      final ClassLoader first = cache.acquire(urls, this.getClass().getClassLoader());
+      File _file = new File(folder, "Foo.class");
+      Files.write("changed", _file, Charsets.UTF_8);
+      final ClassLoader second = cache.acquire(urls, this.getClass().getClassLoader());
+      Assert.assertNotSame(first, second);
+      cache.release(first);
+      cache.release(second);
+      Assert.assertSame(second, cache.acquire(urls, this.getClass().getClassLoader()));
+    } catch (Throwable _e) {
+      throw Exceptions.sneakyThrow(_e);
+    }
+  }
+  
+  @Test
+  public void testUnusedClassLoadersAreEvicted() {
+    try {
+      final ProcessorClassLoaderCache cache = new ProcessorClassLoaderCache();
+      cache.setMaximumUnusedClassLoaders(0);
+      URL _uRL = this.temporaryFolder.newFolder().toURI().toURL();
+      final List<URL> urls = Collections.<URL>unmodifiableList(CollectionLiterals.<URL>newArrayList(_uRL));
+      final ClassLoader first = cache.acquire(urls, this.getClass().getClassLoader());
+      Assert.assertSame(first, cache.acquire(urls, this.getClass().getClassLoader()));
+      cache.release(first);
+      cache.release(first);
+      ClassLoader _acquire = cache.acquire(urls, this.getClass().getClassLoader());
+      Assert.assertNotSame(first, _acquire);
+    } catch (Throwable _e) {
+      throw Exceptions.sneakyThrow(_e);
+    }
+  }
+  
+  @Test
+  public void testChangedModificationTimeCreatesNewClassLoader() {
+    try {
+      final ProcessorClassLoaderCache cache = new ProcessorClassLoaderCache();
+      final File folder = this.temporaryFolder.newFolder();
+      final File file = new File(folder, "Foo.class");
+      Files.write("foo", file, Charsets.UTF_8);
+      URL _uRL = folder.toURI().toURL();
+      final List<URL> urls = Collections.<URL>unmodifiableList(CollectionLiterals.<URL>newArrayList(_uRL));
+      final ClassLoader first = cache.acquire(urls, this.getClass().getClassLoader());
+      long _lastModified = file.lastModified();
+      long _minus = (_lastModified - 10000);
+      file.setLastModified(_minus);
+      ClassLoader _acquire = cache.acquire(urls, this.getClass().getClassLoader());
+      Assert.assertNotSame(first, _acquire);
+    } catch (Throwable _e) {
+      throw Exceptions.sneakyThrow(_e);
+    }
+  }
+
+}
@@ -0,0 +1,18 @@
+package org.eclipse.xtend.core.tests.macro;
+
+import com.google.inject.Injector;
+import org.eclipse.xtend.core.macro.AnnotationProcessor;
+
+/**
+ * Grants access to the timeout of the protected {@link AnnotationProcessor.CancellationObserver}.
+ */
+@SuppressWarnings("all")
+public class ProcessorTimeoutAccess extends AnnotationProcessor {
+  public static long getProcessorTimeout(final Injector injector) {
+    return injector.<AnnotationProcessor.CancellationObserver>getInstance(AnnotationProcessor.CancellationObserver.class).getProcessorTimeout();
+  }
+  
+  public static void setProcessorTimeout(final Injector injector, final long processorTimeout) {
+    injector.<AnnotationProcessor.CancellationObserver>getInstance(AnnotationProcessor.CancellationObserver.class).setProcessorTimeout(processorTimeout);
+  }
+}
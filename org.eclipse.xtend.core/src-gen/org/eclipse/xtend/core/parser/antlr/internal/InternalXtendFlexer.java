@@ -857,6 +857,10 @@ class InternalXtendFlexer implements org.eclipse.xtend.core.parser.InternalFlexe
     return yytext();
   }
   
+  public void copyTokenText(char[] destination, int destinationOffset) {
+    System.arraycopy(zzBuffer, zzStartRead, destination, destinationOffset, zzMarkedPos - zzStartRead);
+  }
+  
 
 
   /**
@@ -12,6 +12,7 @@ import com.google.inject.Inject
 import org.eclipse.emf.ecore.resource.Resource
 import org.eclipse.emf.ecore.util.EcoreUtil
 import org.eclipse.xtend.core.macro.ActiveAnnotationContexts
+import org.eclipse.xtend.core.macro.ActiveAnnotationTimings
 import org.eclipse.xtend.core.macro.CodeGenerationContextImpl
 import org.eclipse.xtend.core.xtend.AnonymousClass
 import org.eclipse.xtend.core.xtend.XtendFunction
@@ -77,6 +78,7 @@ class XtendGenerator extends JvmModelGenerator implements IGenerator2 {
 		val ctxs = ActiveAnnotationContexts.find(input);
 		if (ctxs === null)
 			return;
+		val timings = ActiveAnnotationTimings.find(input)
 		try {
 			ctxs.before(ActiveAnnotationContexts.AnnotationCallback.GENERATION);
 			for (context : ctxs.contexts.values) {
@@ -87,7 +89,12 @@ class XtendGenerator extends JvmModelGenerator implements IGenerator2 {
 								unit = context.compilationUnit
 							]
 							val elements = context.annotatedSourceElements.map[context.compilationUnit.toXtendMemberDeclaration(it as XtendMember)]
-							processor.doGenerateCode(elements, codeGenServices)
+							val start = System.nanoTime
+							try {
+								processor.doGenerateCode(elements, codeGenServices)
+							} finally {
+								timings?.record(processor, System.nanoTime - start)
+							}
 						}
 					}
 				} catch (Throwable t) {
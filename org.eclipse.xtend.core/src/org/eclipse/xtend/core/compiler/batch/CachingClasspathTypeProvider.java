@@ -0,0 +1,352 @@
+/*******************************************************************************
+ * Copyright (c) 2017 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtend.core.compiler.batch;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.log4j.Logger;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.BinaryResourceImpl;
+import org.eclipse.xtext.common.types.TypesPackage;
+import org.eclipse.xtext.common.types.access.TypeResource;
+import org.eclipse.xtext.common.types.access.impl.ClasspathTypeProvider;
+import org.eclipse.xtext.common.types.access.impl.IMirror;
+import org.eclipse.xtext.common.types.access.impl.IndexedJvmTypeAccess;
+import org.eclipse.xtext.common.types.access.impl.TypeResourceServices;
+import org.eclipse.xtext.resource.IFragmentProvider;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+
+/**
+ * A {@link ClasspathTypeProvider} that keeps the JVM type model of classes from jar files in a persistent cache. The
+ * derived types are stored per jar, keyed by the hash of the jar's content, in EMF's binary resource format. Since
+ * that format depends on the versions of the types model, of the code that derives the types and of EMF, the entries
+ * are stored in a directory per {@link #getFormatVersion() format version}. A cached type is loaded from the cache instead of being created by reflection over the class' members, so the class itself
+ * is only loaded if it is not cached.
+ *
+ * Additionally, or instead, the types may be kept in a {@link SharedJvmTypeCache} in memory, which is consulted before
+ * the cache directory.
+ *
+ * @since 2.13
+ */
+public class CachingClasspathTypeProvider extends ClasspathTypeProvider {
+
+	private static final Logger log = Logger.getLogger(CachingClasspathTypeProvider.class);
+
+	private static final String CACHE_FILE_EXTENSION = ".jvmtype";
+
+	/**
+	 * The content hashes of the jars, keyed by their path, size and modification time.
+	 */
+	private static final Map<String, String> jarHashes = new ConcurrentHashMap<String, String>();
+
+	/**
+	 * The classes whose origins determine the format of the cached types: the types model, the derivation of the types
+	 * from classes, EMF's binary resource format and this provider.
+	 */
+	private static final Class<?>[] FORMAT_CLASSES = { TypesPackage.class, ClasspathTypeProvider.class,
+			BinaryResourceImpl.class, CachingClasspathTypeProvider.class };
+
+	/* @Nullable */
+	private static volatile String formatVersion;
+
+	private final ClassLoader classLoader;
+
+	/* @Nullable */
+	private final File cacheDirectory;
+
+	/* @Nullable */
+	private final SharedJvmTypeCache sharedCache;
+
+	public CachingClasspathTypeProvider(ClassLoader classLoader, ResourceSet resourceSet,
+			IndexedJvmTypeAccess indexedJvmTypeAccess, TypeResourceServices services, File cacheDirectory) {
+		this(classLoader, resourceSet, indexedJvmTypeAccess, services, cacheDirectory, null);
+	}
+
+	/**
+	 * Creates a type provider that uses the given cache directory and the given shared cache. Either of them may be
+	 * <code>null</code>.
+	 */
+	public CachingClasspathTypeProvider(ClassLoader classLoader, ResourceSet resourceSet,
+			IndexedJvmTypeAccess indexedJvmTypeAccess, TypeResourceServices services,
+			/* @Nullable */ File cacheDirectory, /* @Nullable */ SharedJvmTypeCache sharedCache) {
+		super(classLoader, resourceSet, indexedJvmTypeAccess, services);
+		this.classLoader = classLoader;
+		this.cacheDirectory = cacheDirectory;
+		this.sharedCache = sharedCache;
+	}
+
+	@Override
+	protected IMirror createMirrorForFQN(String name) {
+		String cacheKey = getCacheKey(name);
+		if (cacheKey == null) {
+			return super.createMirrorForFQN(name);
+		}
+		File cacheFile = cacheDirectory != null ? new File(cacheDirectory, cacheKey + CACHE_FILE_EXTENSION) : null;
+		return new CachingMirror(name, cacheKey, cacheFile);
+	}
+
+	/**
+	 * Returns the file that holds the cached type or <code>null</code> if the type is not contained in a jar or no
+	 * cache directory is used.
+	 */
+	/* @Nullable */
+	protected File getCacheFile(String name) {
+		String cacheKey = getCacheKey(name);
+		if (cacheKey == null || cacheDirectory == null) {
+			return null;
+		}
+		return new File(cacheDirectory, cacheKey + CACHE_FILE_EXTENSION);
+	}
+
+	/**
+	 * Returns the key of the type, i.e. the format version, the content hash of its jar and its name separated by
+	 * slashes, or <code>null</code> if the type is not contained in a jar.
+	 */
+	/* @Nullable */
+	protected String getCacheKey(String name) {
+		URL classFile = classLoader.getResource(name.replace('.', '/') + ".class");
+		if (classFile == null || !"jar".equals(classFile.getProtocol())) {
+			return null;
+		}
+		try {
+			URL jarURL = ((JarURLConnection) classFile.openConnection()).getJarFileURL();
+			if (!"file".equals(jarURL.getProtocol())) {
+				return null;
+			}
+			String jarHash = getJarHash(new File(jarURL.toURI()));
+			return getFormatVersion() + '/' + jarHash + '/' + name;
+		} catch (Exception e) {
+			log.debug("Unable to determine the jar of '" + name + "'", e);
+			return null;
+		}
+	}
+
+	private String getJarHash(File jar) throws IOException {
+		String key = jar.getAbsolutePath() + '@' + jar.lastModified() + ':' + jar.length();
+		String result = jarHashes.get(key);
+		if (result == null) {
+			result = IncrementalBuildState.hash(jar);
+			jarHashes.put(key, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the hash of the origins of the {@link #FORMAT_CLASSES}, i.e. the content hashes of their jars, or the
+	 * locations and modification times of their class files if they are not contained in a jar.
+	 */
+	protected String getFormatVersion() throws Exception {
+		String result = formatVersion;
+		if (result == null) {
+			Hasher hasher = Hashing.md5().newHasher();
+			hasher.putString(TypesPackage.eNS_URI, Charsets.UTF_8);
+			for (Class<?> clazz : FORMAT_CLASSES) {
+				hasher.putString(getOrigin(clazz), Charsets.UTF_8);
+			}
+			result = hasher.hash().toString();
+			formatVersion = result;
+		}
+		return result;
+	}
+
+	private String getOrigin(Class<?> clazz) throws Exception {
+		URL classFile = clazz.getResource(clazz.getSimpleName() + ".class");
+		if (classFile == null) {
+			return clazz.getName();
+		}
+		if ("jar".equals(classFile.getProtocol())) {
+			URL jarURL = ((JarURLConnection) classFile.openConnection()).getJarFileURL();
+			if ("file".equals(jarURL.getProtocol())) {
+				return getJarHash(new File(jarURL.toURI()));
+			}
+		} else if ("file".equals(classFile.getProtocol())) {
+			File file = new File(classFile.toURI());
+			return file.getAbsolutePath() + '@' + file.lastModified();
+		}
+		return classFile.toString();
+	}
+
+	private IMirror createClassMirror(String name) {
+		return super.createMirrorForFQN(name);
+	}
+
+	/**
+	 * Initializes the type resource from the shared cache or the cache directory if possible. Otherwise the class is
+	 * loaded, the type is derived by the class' mirror and added to the caches afterwards.
+	 */
+	private class CachingMirror implements IMirror {
+
+		private final String name;
+
+		private final String cacheKey;
+
+		/* @Nullable */
+		private final File cacheFile;
+
+		/* @Nullable */
+		private IMirror delegate;
+
+		CachingMirror(String name, String cacheKey, File cacheFile) {
+			this.name = name;
+			this.cacheKey = cacheKey;
+			this.cacheFile = cacheFile;
+		}
+
+		/* @Nullable */
+		private IMirror getDelegate() {
+			if (delegate == null) {
+				delegate = createClassMirror(name);
+			}
+			return delegate;
+		}
+
+		@Override
+		public void initialize(TypeResource typeResource) {
+			byte[] serializedType = sharedCache != null ? sharedCache.get(cacheKey) : null;
+			if (serializedType == null && cacheFile != null && cacheFile.isFile()) {
+				serializedType = read();
+				if (serializedType != null && load(typeResource, serializedType)) {
+					log.debug("Loaded the type '" + name + "' from '" + cacheFile + "'");
+					if (sharedCache != null) {
+						sharedCache.put(cacheKey, serializedType);
+					}
+					return;
+				}
+			} else if (serializedType != null && load(typeResource, serializedType)) {
+				log.debug("Loaded the type '" + name + "' from the shared cache");
+				return;
+			}
+			IMirror classMirror = getDelegate();
+			if (classMirror == null) {
+				return;
+			}
+			classMirror.initialize(typeResource);
+			serializedType = serialize(typeResource);
+			if (serializedType != null) {
+				if (sharedCache != null) {
+					sharedCache.put(cacheKey, serializedType);
+				}
+				if (cacheFile != null) {
+					write(serializedType);
+				}
+			}
+		}
+
+		/**
+		 * Any failure, e.g. a truncated file or a file that was written by an incompatible version, is treated as a
+		 * cache miss. The entry is overwritten with the freshly derived type afterwards.
+		 */
+		private boolean load(TypeResource typeResource, byte[] serializedType) {
+			try {
+				InputStream in = new ByteArrayInputStream(serializedType);
+				new BinaryResourceImpl.EObjectInputStream(in, null).loadResource(typeResource);
+				return true;
+			} catch (Exception e) {
+				log.warn("Unable to load the cached type '" + cacheKey + "'", e);
+				typeResource.getContents().clear();
+				return false;
+			}
+		}
+
+		/* @Nullable */
+		private byte[] serialize(TypeResource typeResource) {
+			try {
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				new BinaryResourceImpl.EObjectOutputStream(out, null).saveResource(typeResource);
+				return out.toByteArray();
+			} catch (IOException e) {
+				log.warn("Unable to serialize the type '" + cacheKey + "'", e);
+				return null;
+			}
+		}
+
+		/* @Nullable */
+		private byte[] read() {
+			InputStream in = null;
+			try {
+				in = new FileInputStream(cacheFile);
+				return ByteStreams.toByteArray(in);
+			} catch (IOException e) {
+				log.warn("Unable to read the cached type '" + cacheFile + "'", e);
+				return null;
+			} finally {
+				closeQuietly(in);
+			}
+		}
+
+		private void write(byte[] serializedType) {
+			File parent = cacheFile.getParentFile();
+			if (!parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory()) {
+				log.warn("Unable to create the type cache directory '" + parent + "'");
+				return;
+			}
+			// write to a unique temporary file first, since other processes may use the same cache concurrently
+			File tmpFile = null;
+			try {
+				tmpFile = File.createTempFile(cacheFile.getName(), ".tmp", parent);
+				Files.write(tmpFile.toPath(), serializedType);
+				Files.move(tmpFile.toPath(), cacheFile.toPath(), StandardCopyOption.ATOMIC_MOVE,
+						StandardCopyOption.REPLACE_EXISTING);
+			} catch (IOException e) {
+				log.warn("Unable to write the cached type '" + cacheFile + "'", e);
+				if (tmpFile != null) {
+					tmpFile.delete();
+				}
+			}
+		}
+
+		private void closeQuietly(Closeable closeable) {
+			if (closeable != null) {
+				try {
+					closeable.close();
+				} catch (IOException e) {
+					// ignore
+				}
+			}
+		}
+
+		/**
+		 * Array types are created by the class' mirror. All other fragments point into the loaded type resource.
+		 */
+		@Override
+		public EObject getEObject(Resource resource, String fragment, IFragmentProvider.Fallback fallback) {
+			IMirror classMirror = fragment.endsWith("[]") ? getDelegate() : null;
+			if (classMirror != null) {
+				return classMirror.getEObject(resource, fragment, fallback);
+			}
+			return fallback.getEObject(fragment);
+		}
+
+		/**
+		 * Mirrors of classes are always sealed.
+		 */
+		@Override
+		public boolean isSealed() {
+			return true;
+		}
+	}
+
+}
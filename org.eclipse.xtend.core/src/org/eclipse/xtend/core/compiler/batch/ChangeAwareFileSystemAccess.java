@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2017 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtend.core.compiler.batch;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.xtext.generator.JavaIoFileSystemAccess;
+import org.eclipse.xtext.util.RuntimeIOException;
+
+import com.google.common.io.ByteStreams;
+
+/**
+ * A {@link JavaIoFileSystemAccess} that does not touch existing files if their content would not change. The new
+ * content is compared against the existing file by streaming over it, so unchanged files keep their timestamp and
+ * downstream tools that rely on it do not redo their work.
+ *
+ * @since 2.13
+ */
+public class ChangeAwareFileSystemAccess extends JavaIoFileSystemAccess {
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private final AtomicInteger writtenFiles = new AtomicInteger();
+
+	private final AtomicInteger skippedFiles = new AtomicInteger();
+
+	@Override
+	public void generateFile(String fileName, String outputConfigName, CharSequence contents) throws RuntimeIOException {
+		File file = getFile(fileName, outputConfigName);
+		if (isComparable(file, outputConfigName)) {
+			String encoding = getEncoding(getURI(fileName, outputConfigName));
+			try {
+				byte[] bytes = postProcess(fileName, outputConfigName, contents, encoding).toString().getBytes(encoding);
+				if (hasContent(file, bytes)) {
+					skippedFiles.incrementAndGet();
+					if (isWriteTrace()) {
+						generateTrace(fileName, outputConfigName, contents);
+					}
+					return;
+				}
+			} catch (IOException e) {
+				throw new RuntimeIOException(e);
+			}
+		}
+		writtenFiles.incrementAndGet();
+		super.generateFile(fileName, outputConfigName, contents);
+	}
+
+	@Override
+	public void generateFile(String fileName, String outputConfigName, InputStream content) throws RuntimeIOException {
+		File file = getFile(fileName, outputConfigName);
+		if (isComparable(file, outputConfigName)) {
+			try {
+				byte[] bytes = ByteStreams.toByteArray(content);
+				if (hasContent(file, bytes)) {
+					skippedFiles.incrementAndGet();
+					return;
+				}
+				content = new ByteArrayInputStream(bytes);
+			} catch (IOException e) {
+				throw new RuntimeIOException(e);
+			}
+		}
+		writtenFiles.incrementAndGet();
+		super.generateFile(fileName, outputConfigName, content);
+	}
+
+	private boolean isComparable(File file, String outputConfigName) {
+		return file.isFile() && getOutputConfig(outputConfigName).isOverrideExistingResources();
+	}
+
+	/**
+	 * Compares the given bytes with the content of the file without reading the file into memory.
+	 */
+	protected boolean hasContent(File file, byte[] bytes) throws IOException {
+		if (file.length() != bytes.length) {
+			return false;
+		}
+		InputStream in = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+		try {
+			for (int i = 0; i < bytes.length; i++) {
+				if (in.read() != (bytes[i] & 0xFF)) {
+					return false;
+				}
+			}
+			return in.read() == -1;
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * The number of files that have been written, including new files.
+	 */
+	public int getWrittenFiles() {
+		return writtenFiles.get();
+	}
+
+	/**
+	 * The number of files that have not been written, since their content did not change.
+	 */
+	public int getSkippedFiles() {
+		return skippedFiles.get();
+	}
+
+}
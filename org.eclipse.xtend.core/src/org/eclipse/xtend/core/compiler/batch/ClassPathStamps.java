@@ -0,0 +1,49 @@
+/*******************************************************************************
+ * Copyright (c) 2017 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtend.core.compiler.batch;
+
+import java.io.File;
+import java.util.Arrays;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hasher;
+
+/**
+ * Adds cheap stamps of class path entries to a hash, i.e. the size and modification time of jars and of all files in
+ * directories. Hashing the contents of all jars would take longer than most of the builds that the stamps are meant
+ * to speed up.
+ */
+final class ClassPathStamps {
+
+	private ClassPathStamps() {
+	}
+
+	/**
+	 * Adds the stamps of the given jar or directory. The files in a directory, e.g. the output directory of another
+	 * module, are added recursively, so adding, removing or recompiling a class changes the hash.
+	 */
+	static void put(Hasher hasher, File entry) {
+		put(hasher, entry, entry.getPath());
+	}
+
+	private static void put(Hasher hasher, File file, String path) {
+		hasher.putString(path, Charsets.UTF_8).putChar('\0');
+		if (file.isDirectory()) {
+			File[] children = file.listFiles();
+			if (children != null) {
+				Arrays.sort(children);
+				for (File child : children) {
+					put(hasher, child, path + '/' + child.getName());
+				}
+			}
+		} else {
+			hasher.putLong(file.length()).putLong(file.lastModified());
+		}
+	}
+
+}
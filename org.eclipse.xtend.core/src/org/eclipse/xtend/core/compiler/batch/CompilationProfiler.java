@@ -0,0 +1,283 @@
+/*******************************************************************************
+ * Copyright (c) 2017 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtend.core.compiler.batch;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.xtend.core.macro.ActiveAnnotationTimings;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.Files;
+
+/**
+ * Collects the wall time, CPU time and allocated bytes of the phases of the {@link XtendBatchCompiler} and the time
+ * that is spent per file, and writes them as a JSON report.
+ *
+ * Phases are measured on the compiling thread. Work that is done per file on other threads, e.g. by the workers of a
+ * parallel build, adds its CPU time and allocations to the phase, too. CPU time and allocated bytes are reported as
+ * <code>-1</code> if the JVM does not support measuring them.
+ */
+class CompilationProfiler {
+
+	private static final int SLOWEST_FILES = 10;
+
+	static class Measurement {
+		private final long wallTime;
+		private final long cpuTime;
+		private final long allocatedBytes;
+
+		private Measurement(long wallTime, long cpuTime, long allocatedBytes) {
+			this.wallTime = wallTime;
+			this.cpuTime = cpuTime;
+			this.allocatedBytes = allocatedBytes;
+		}
+	}
+
+	private static class FileTime {
+		private final String file;
+		private final long wallTime;
+
+		private FileTime(String file, long wallTime) {
+			this.file = file;
+			this.wallTime = wallTime;
+		}
+	}
+
+	private static class Phase {
+		private long wallTime;
+		private long cpuTime;
+		private long allocatedBytes;
+		private final List<FileTime> files = Lists.newArrayList();
+	}
+
+	private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+	private final Method allocatedBytesMethod = findAllocatedBytesMethod(threadMXBean);
+
+	private final Thread compilingThread = Thread.currentThread();
+
+	private final Measurement start;
+
+	private final Map<String, Phase> phases = Maps.newLinkedHashMap();
+
+	private ActiveAnnotationTimings activeAnnotationTimings;
+
+	CompilationProfiler() {
+		start = begin();
+	}
+
+	void setActiveAnnotationTimings(ActiveAnnotationTimings activeAnnotationTimings) {
+		this.activeAnnotationTimings = activeAnnotationTimings;
+	}
+
+	/**
+	 * Takes a snapshot of the current thread, that is passed to {@link #endPhase(String, Measurement)} or
+	 * {@link #endFile(String, Resource, Measurement)} on the same thread.
+	 */
+	Measurement begin() {
+		return new Measurement(System.nanoTime(), getCpuTime(), getAllocatedBytes());
+	}
+
+	synchronized void endPhase(String name, Measurement begin) {
+		Measurement end = begin();
+		Phase phase = getPhase(name);
+		phase.wallTime += end.wallTime - begin.wallTime;
+		phase.cpuTime += difference(begin.cpuTime, end.cpuTime);
+		phase.allocatedBytes += difference(begin.allocatedBytes, end.allocatedBytes);
+	}
+
+	synchronized void endFile(String name, Resource resource, Measurement begin) {
+		Measurement end = begin();
+		Phase phase = getPhase(name);
+		phase.files.add(new FileTime(resource.getURI().toString(), end.wallTime - begin.wallTime));
+		if (Thread.currentThread() != compilingThread) {
+			phase.cpuTime += difference(begin.cpuTime, end.cpuTime);
+			phase.allocatedBytes += difference(begin.allocatedBytes, end.allocatedBytes);
+		}
+	}
+
+	void writeReport(File file) throws IOException {
+		File parent = file.getAbsoluteFile().getParentFile();
+		if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+			throw new IOException("Unable to create directory " + parent);
+		}
+		Files.write(toJson(), file, Charsets.UTF_8);
+	}
+
+	synchronized String toJson() {
+		Measurement end = begin();
+		StringBuilder result = new StringBuilder();
+		result.append("{\n");
+		result.append("  \"wallTimeMillis\": ").append(toMillis(end.wallTime - start.wallTime)).append(",\n");
+		result.append("  \"phases\": [");
+		String separator = "\n";
+		for (Map.Entry<String, Phase> entry : phases.entrySet()) {
+			Phase phase = entry.getValue();
+			result.append(separator);
+			result.append("    {\n");
+			result.append("      \"name\": ").append(quote(entry.getKey())).append(",\n");
+			result.append("      \"wallTimeMillis\": ").append(toMillis(phase.wallTime)).append(",\n");
+			result.append("      \"cpuTimeMillis\": ").append(start.cpuTime < 0 ? "-1" : toMillis(phase.cpuTime)).append(",\n");
+			result.append("      \"allocatedBytes\": ").append(start.allocatedBytes < 0 ? -1 : phase.allocatedBytes).append(",\n");
+			result.append("      \"files\": ").append(phase.files.size()).append(",\n");
+			result.append("      \"slowestFiles\": [");
+			String fileSeparator = "\n";
+			for (FileTime fileTime : getSlowestFiles(phase)) {
+				result.append(fileSeparator);
+				result.append("        { \"file\": ").append(quote(fileTime.file));
+				result.append(", \"wallTimeMillis\": ").append(toMillis(fileTime.wallTime)).append(" }");
+				fileSeparator = ",\n";
+			}
+			result.append(phase.files.isEmpty() ? "]\n" : "\n      ]\n");
+			result.append("    }");
+			separator = ",\n";
+		}
+		result.append(phases.isEmpty() ? "],\n" : "\n  ],\n");
+		result.append("  \"activeAnnotations\": [");
+		separator = "\n";
+		Map<String, Long> times = activeAnnotationTimings != null ? activeAnnotationTimings.getTimes()
+				: Collections.<String, Long> emptyMap();
+		for (Map.Entry<String, Long> entry : sortByTime(times)) {
+			result.append(separator);
+			result.append("    { \"processor\": ").append(quote(entry.getKey()));
+			result.append(", \"timeMillis\": ").append(toMillis(entry.getValue())).append(" }");
+			separator = ",\n";
+		}
+		result.append(times.isEmpty() ? "]\n" : "\n  ]\n");
+		result.append("}\n");
+		return result.toString();
+	}
+
+	private Phase getPhase(String name) {
+		Phase result = phases.get(name);
+		if (result == null) {
+			result = new Phase();
+			phases.put(name, result);
+		}
+		return result;
+	}
+
+	private List<FileTime> getSlowestFiles(Phase phase) {
+		List<FileTime> result = Lists.newArrayList(phase.files);
+		Collections.sort(result, new Comparator<FileTime>() {
+			@Override
+			public int compare(FileTime left, FileTime right) {
+				return Long.compare(right.wallTime, left.wallTime);
+			}
+		});
+		return result.subList(0, Math.min(SLOWEST_FILES, result.size()));
+	}
+
+	private List<Map.Entry<String, Long>> sortByTime(Map<String, Long> times) {
+		List<Map.Entry<String, Long>> result = Lists.newArrayList(times.entrySet());
+		Collections.sort(result, new Comparator<Map.Entry<String, Long>>() {
+			@Override
+			public int compare(Map.Entry<String, Long> left, Map.Entry<String, Long> right) {
+				return right.getValue().compareTo(left.getValue());
+			}
+		});
+		return result;
+	}
+
+	private long difference(long begin, long end) {
+		if (begin < 0 || end < 0) {
+			return 0;
+		}
+		return end - begin;
+	}
+
+	private long getCpuTime() {
+		if (threadMXBean.isCurrentThreadCpuTimeSupported()) {
+			return threadMXBean.getCurrentThreadCpuTime();
+		}
+		return -1;
+	}
+
+	private long getAllocatedBytes() {
+		if (allocatedBytesMethod == null) {
+			return -1;
+		}
+		try {
+			return (Long) allocatedBytesMethod.invoke(threadMXBean, Thread.currentThread().getId());
+		} catch (Exception e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * The allocated bytes are only available through the HotSpot specific <code>com.sun.management.ThreadMXBean</code>,
+	 * which is looked up reflectively to not depend on it.
+	 */
+	/* @Nullable */
+	private static Method findAllocatedBytesMethod(ThreadMXBean threadMXBean) {
+		for (Class<?> type = threadMXBean.getClass(); type != null; type = type.getSuperclass()) {
+			for (Class<?> candidate : type.getInterfaces()) {
+				if (ThreadMXBean.class.isAssignableFrom(candidate) && candidate != ThreadMXBean.class) {
+					try {
+						Method result = candidate.getMethod("getThreadAllocatedBytes", long.class);
+						if ((Long) result.invoke(threadMXBean, Thread.currentThread().getId()) >= 0) {
+							return result;
+						}
+					} catch (Exception e) {
+						// not supported
+					}
+				}
+			}
+		}
+		return null;
+	}
+
+	private static String toMillis(long nanos) {
+		return String.format(Locale.ROOT, "%.3f", nanos / 1000000d);
+	}
+
+	private static String quote(String value) {
+		StringBuilder result = new StringBuilder(value.length() + 2);
+		result.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+				case '"':
+					result.append("\\\"");
+					break;
+				case '\\':
+					result.append("\\\\");
+					break;
+				case '\n':
+					result.append("\\n");
+					break;
+				case '\r':
+					result.append("\\r");
+					break;
+				case '\t':
+					result.append("\\t");
+					break;
+				default:
+					if (c < 0x20) {
+						result.append(String.format("\\u%04x", (int) c));
+					} else {
+						result.append(c);
+					}
+			}
+		}
+		return result.append('"').toString();
+	}
+
+}
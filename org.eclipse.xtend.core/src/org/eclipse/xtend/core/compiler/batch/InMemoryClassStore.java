@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright (c) 2017 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtend.core.compiler.batch;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the class files that have been produced by the {@link InMemoryStubCompiler}, keyed by their internal name,
+ * e.g. <code>java/util/Map$Entry</code>. The classes of the Java sources are served to the type provider and to the
+ * annotation processing through {@link #createClassLoader(ClassLoader) class loaders}, so no temporary class directory
+ * is needed.
+ */
+class InMemoryClassStore {
+
+	private static final String CLASS_FILE_EXTENSION = ".class";
+
+	private final Map<String, byte[]> classes = new ConcurrentHashMap<String, byte[]>();
+
+	/**
+	 * The internal names of the packages of the stored classes and of their parent packages.
+	 */
+	private final Set<String> packages = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+	void put(String internalName, byte[] bytes) {
+		classes.put(internalName, bytes);
+		int index = internalName.lastIndexOf('/');
+		while (index > 0 && packages.add(internalName.substring(0, index))) {
+			index = internalName.lastIndexOf('/', index - 1);
+		}
+	}
+
+	/* @Nullable */
+	byte[] get(String internalName) {
+		return classes.get(internalName);
+	}
+
+	boolean isPackage(String internalName) {
+		return packages.contains(internalName);
+	}
+
+	int size() {
+		return classes.size();
+	}
+
+	/**
+	 * Creates a class loader that looks up classes in the given parent first and falls back to this store. Closing the
+	 * returned class loader closes the parent, too.
+	 */
+	ClassLoader createClassLoader(ClassLoader parent) {
+		return new InMemoryClassLoader(parent);
+	}
+
+	private class InMemoryClassLoader extends ClassLoader implements Closeable {
+
+		InMemoryClassLoader(ClassLoader parent) {
+			super(parent);
+		}
+
+		@Override
+		protected Class<?> findClass(String name) throws ClassNotFoundException {
+			byte[] bytes = get(name.replace('.', '/'));
+			if (bytes == null) {
+				throw new ClassNotFoundException(name);
+			}
+			return defineClass(name, bytes, 0, bytes.length);
+		}
+
+		@Override
+		public InputStream getResourceAsStream(String name) {
+			InputStream result = super.getResourceAsStream(name);
+			if (result == null && name.endsWith(CLASS_FILE_EXTENSION)) {
+				byte[] bytes = get(name.substring(0, name.length() - CLASS_FILE_EXTENSION.length()));
+				if (bytes != null) {
+					return new ByteArrayInputStream(bytes);
+				}
+			}
+			return result;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (getParent() instanceof Closeable) {
+				((Closeable) getParent()).close();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,336 @@
+/*******************************************************************************
+ * Copyright (c) 2017 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtend.core.compiler.batch;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.ProviderNotFoundException;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.log4j.Logger;
+import org.eclipse.jdt.core.compiler.CategorizedProblem;
+import org.eclipse.jdt.core.compiler.CharOperation;
+import org.eclipse.jdt.internal.compiler.ClassFile;
+import org.eclipse.jdt.internal.compiler.CompilationResult;
+import org.eclipse.jdt.internal.compiler.Compiler;
+import org.eclipse.jdt.internal.compiler.DefaultErrorHandlingPolicies;
+import org.eclipse.jdt.internal.compiler.ICompilerRequestor;
+import org.eclipse.jdt.internal.compiler.batch.CompilationUnit;
+import org.eclipse.jdt.internal.compiler.classfmt.ClassFileReader;
+import org.eclipse.jdt.internal.compiler.classfmt.ClassFormatException;
+import org.eclipse.jdt.internal.compiler.env.ICompilationUnit;
+import org.eclipse.jdt.internal.compiler.env.INameEnvironment;
+import org.eclipse.jdt.internal.compiler.env.NameEnvironmentAnswer;
+import org.eclipse.jdt.internal.compiler.impl.CompilerOptions;
+import org.eclipse.jdt.internal.compiler.problem.DefaultProblemFactory;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.io.ByteStreams;
+
+/**
+ * Compiles the Java stubs of the Xtend sources and afterwards the Java sources against them with the Eclipse Java
+ * compiler. The class files of the stubs are kept in a store of their own that only this compiler looks up, just like
+ * the temporary stubs directory of the javac based compilation. The class files of the Java sources are put into the
+ * given {@link InMemoryClassStore}. Referenced types are looked up in both stores and in a class loader that represents
+ * the classpath.
+ */
+class InMemoryStubCompiler {
+
+	private static final Logger log = Logger.getLogger(InMemoryStubCompiler.class);
+
+	private final InMemoryClassStore stubStore = new InMemoryClassStore();
+
+	private final InMemoryClassStore classStore;
+
+	private final ClassLoader classpath;
+
+	private final Iterable<File> classpathEntries;
+
+	private final boolean useRuntimeJdk;
+
+	/**
+	 * The internal names of the packages in the {@link #classpathEntries} and of the JDK, computed on demand.
+	 */
+	private Set<String> classpathPackages;
+
+	private final String javaVersion;
+
+	private final String encoding;
+
+	/**
+	 * @param classStore
+	 *            the store that receives the classes of the Java sources.
+	 * @param classpath
+	 *            the class loader that is used to look up the class files of referenced types.
+	 * @param classpathEntries
+	 *            the jars and directories that the class loader reads from, used to look up packages.
+	 * @param useRuntimeJdk
+	 *            whether the class loader reads the JDK from the running VM, since no boot class path is among the
+	 *            entries.
+	 * @param javaVersion
+	 *            the source and target level, e.g. <code>1.8</code>.
+	 * @param encoding
+	 *            the encoding of the sources, may be <code>null</code>.
+	 */
+	InMemoryStubCompiler(InMemoryClassStore classStore, ClassLoader classpath, Iterable<File> classpathEntries,
+			boolean useRuntimeJdk, String javaVersion, String encoding) {
+		this.classStore = classStore;
+		this.classpath = classpath;
+		this.classpathEntries = classpathEntries;
+		this.useRuntimeJdk = useRuntimeJdk;
+		this.javaVersion = javaVersion;
+		this.encoding = encoding;
+	}
+
+	/**
+	 * @param stubs
+	 *            the contents of the stubs, keyed by their file name relative to the source root.
+	 * @return <code>true</code> if the stubs were compiled without errors.
+	 */
+	boolean compileStubs(Map<String, char[]> stubs) {
+		return compile(stubs, stubStore);
+	}
+
+	/**
+	 * @param sources
+	 *            the Java files to compile, keyed by their path. The compiler reads a file if its contents are
+	 *            <code>null</code>.
+	 * @return <code>true</code> if the sources were compiled without errors.
+	 */
+	boolean compileJava(Map<String, char[]> sources) {
+		return compile(sources, classStore);
+	}
+
+	private boolean compile(Map<String, char[]> sources, InMemoryClassStore target) {
+		List<ICompilationUnit> compilationUnits = Lists.newArrayListWithCapacity(sources.size());
+		for (Map.Entry<String, char[]> source : sources.entrySet()) {
+			compilationUnits.add(new CompilationUnit(source.getValue(), source.getKey(), encoding));
+		}
+		Requestor requestor = new Requestor(target);
+		Compiler compiler = new Compiler(new NameEnvironment(), DefaultErrorHandlingPolicies.proceedWithAllProblems(),
+				getCompilerOptions(), requestor, new DefaultProblemFactory(Locale.getDefault()));
+		compiler.compile(compilationUnits.toArray(new ICompilationUnit[compilationUnits.size()]));
+		return !requestor.hasErrors;
+	}
+
+	private CompilerOptions getCompilerOptions() {
+		Map<String, String> settings = Maps.newHashMap();
+		settings.put(CompilerOptions.OPTION_Source, javaVersion);
+		settings.put(CompilerOptions.OPTION_Compliance, javaVersion);
+		settings.put(CompilerOptions.OPTION_TargetPlatform, javaVersion);
+		if (encoding != null) {
+			settings.put(CompilerOptions.OPTION_Encoding, encoding);
+		}
+		return new CompilerOptions(settings);
+	}
+
+	private Set<String> getClasspathPackages() {
+		if (classpathPackages == null) {
+			classpathPackages = Sets.newHashSet();
+			for (File entry : classpathEntries) {
+				if (entry.isDirectory()) {
+					addPackages(entry, "");
+				} else if (entry.isFile()) {
+					addPackages(entry);
+				}
+			}
+			if (useRuntimeJdk) {
+				addJdkPackages();
+			}
+		}
+		return classpathPackages;
+	}
+
+	/**
+	 * Adds the packages of the JDK of the running VM, which are read from the jars of its boot class path or, since
+	 * Java 9, from its module image.
+	 */
+	private void addJdkPackages() {
+		String bootClassPath = System.getProperty("sun.boot.class.path");
+		if (bootClassPath != null) {
+			for (String entry : bootClassPath.split(File.pathSeparator)) {
+				File file = new File(entry);
+				if (file.isDirectory()) {
+					addPackages(file, "");
+				} else if (file.isFile()) {
+					addPackages(file);
+				}
+			}
+			return;
+		}
+		try {
+			FileSystem jrt = FileSystems.getFileSystem(java.net.URI.create("jrt:/"));
+			DirectoryStream<Path> packages = Files.newDirectoryStream(jrt.getPath("/packages"));
+			try {
+				for (Path packageDirectory : packages) {
+					addPackage(packageDirectory.getFileName().toString().replace('.', '/'));
+				}
+			} finally {
+				packages.close();
+			}
+		} catch (FileSystemNotFoundException e) {
+			log.debug("Unable to read the packages of the JDK", e);
+		} catch (ProviderNotFoundException e) {
+			log.debug("Unable to read the packages of the JDK", e);
+		} catch (IOException e) {
+			log.debug("Unable to read the packages of the JDK", e);
+		}
+	}
+
+	/**
+	 * Adds the given package and its parent packages.
+	 */
+	private void addPackage(String internalName) {
+		if (classpathPackages.add(internalName)) {
+			int index = internalName.lastIndexOf('/');
+			while (index > 0 && classpathPackages.add(internalName.substring(0, index))) {
+				index = internalName.lastIndexOf('/', index - 1);
+			}
+		}
+	}
+
+	private void addPackages(File directory, String packagePrefix) {
+		File[] children = directory.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				if (child.isDirectory()) {
+					String internalName = packagePrefix + child.getName();
+					classpathPackages.add(internalName);
+					addPackages(child, internalName + '/');
+				}
+			}
+		}
+	}
+
+	private void addPackages(File jar) {
+		try {
+			ZipFile zipFile = new ZipFile(jar);
+			try {
+				Enumeration<? extends ZipEntry> entries = zipFile.entries();
+				while (entries.hasMoreElements()) {
+					String name = entries.nextElement().getName();
+					// jars need not contain entries for directories, so the packages are derived from the files
+					int index = name.lastIndexOf('/');
+					if (index > 0) {
+						addPackage(name.substring(0, index));
+					}
+				}
+			} finally {
+				zipFile.close();
+			}
+		} catch (IOException e) {
+			log.debug("Unable to read the entries of '" + jar + "'", e);
+		}
+	}
+
+	private static class Requestor implements ICompilerRequestor {
+
+		private final InMemoryClassStore target;
+
+		private boolean hasErrors = false;
+
+		Requestor(InMemoryClassStore target) {
+			this.target = target;
+		}
+
+		@Override
+		public void acceptResult(CompilationResult result) {
+			if (result.hasErrors()) {
+				hasErrors = true;
+				if (log.isDebugEnabled()) {
+					for (CategorizedProblem problem : result.getErrors()) {
+						log.debug(new String(problem.getOriginatingFileName()) + ":" + problem.getSourceLineNumber() + ": "
+								+ problem.getMessage());
+					}
+				}
+			}
+			for (ClassFile classFile : result.getClassFiles()) {
+				target.put(new String(classFile.fileName()), classFile.getBytes());
+			}
+		}
+	}
+
+	private class NameEnvironment implements INameEnvironment {
+
+		@Override
+		public NameEnvironmentAnswer findType(char[][] compoundTypeName) {
+			return findType(new String(CharOperation.concatWith(compoundTypeName, '/')));
+		}
+
+		@Override
+		public NameEnvironmentAnswer findType(char[] typeName, char[][] packageName) {
+			return findType(new String(CharOperation.concatWith(packageName, typeName, '/')));
+		}
+
+		private NameEnvironmentAnswer findType(String internalName) {
+			byte[] bytes = classStore.get(internalName);
+			if (bytes == null) {
+				bytes = stubStore.get(internalName);
+			}
+			if (bytes == null) {
+				bytes = readClassFile(internalName);
+			}
+			if (bytes == null) {
+				return null;
+			}
+			try {
+				return new NameEnvironmentAnswer(new ClassFileReader(bytes, (internalName + ".class").toCharArray()), null);
+			} catch (ClassFormatException e) {
+				log.debug("Unable to read class file for '" + internalName + "'", e);
+				return null;
+			}
+		}
+
+		/* @Nullable */
+		private byte[] readClassFile(String internalName) {
+			InputStream in = classpath.getResourceAsStream(internalName + ".class");
+			if (in == null) {
+				return null;
+			}
+			try {
+				return ByteStreams.toByteArray(in);
+			} catch (IOException e) {
+				log.debug("Unable to read class file for '" + internalName + "'", e);
+				return null;
+			} finally {
+				try {
+					in.close();
+				} catch (IOException e) {
+					// ignore
+				}
+			}
+		}
+
+		@Override
+		public boolean isPackage(char[][] parentPackageName, char[] packageName) {
+			String internalName = new String(CharOperation.concatWith(parentPackageName, packageName, '/'));
+			return classStore.isPackage(internalName) || stubStore.isPackage(internalName)
+					|| getClasspathPackages().contains(internalName);
+		}
+
+		@Override
+		public void cleanup() {
+		}
+	}
+
+}
@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright (c) 2017 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtend.core.compiler.batch;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.xtext.resource.IResourceDescription;
+import org.eclipse.xtext.resource.persistence.SerializableResourceDescription;
+
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+
+/**
+ * The state of a previous run of the {@link XtendBatchCompiler} that is used to compute the set of affected resources
+ * in incremental mode. For each source file it holds the hash of its content and a copy of its
+ * {@link IResourceDescription resource description} including the imported names. It also holds the content hash of
+ * each Java file in the source directories. The state is only valid as long as the
+ * {@link #getConfigurationFingerprint() configuration} of the compiler did not change.
+ *
+ * @since 2.13
+ */
+public class IncrementalBuildState implements Serializable {
+
+	private static final long serialVersionUID = 2L;
+
+	private static final Logger log = Logger.getLogger(IncrementalBuildState.class);
+
+	private static class Entry implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final String contentHash;
+
+		private final SerializableResourceDescription description;
+
+		private Entry(String contentHash, SerializableResourceDescription description) {
+			this.contentHash = contentHash;
+			this.description = description;
+		}
+	}
+
+	private final String configurationFingerprint;
+
+	private final Map<String, Entry> entries = Maps.newLinkedHashMap();
+
+	private final Map<String, String> javaFiles = Maps.newLinkedHashMap();
+
+	public IncrementalBuildState(String configurationFingerprint) {
+		this.configurationFingerprint = configurationFingerprint;
+	}
+
+	public String getConfigurationFingerprint() {
+		return configurationFingerprint;
+	}
+
+	public void put(URI uri, String contentHash, IResourceDescription description) {
+		entries.put(uri.toString(), new Entry(contentHash, SerializableResourceDescription.createCopy(description)));
+	}
+
+	/* @Nullable */
+	public String getContentHash(URI uri) {
+		Entry entry = entries.get(uri.toString());
+		return entry == null ? null : entry.contentHash;
+	}
+
+	/* @Nullable */
+	public IResourceDescription getResourceDescription(URI uri) {
+		Entry entry = entries.get(uri.toString());
+		return entry == null ? null : entry.description;
+	}
+
+	public Set<String> getURIs() {
+		return entries.keySet();
+	}
+
+	public void putJavaFile(URI uri, String contentHash) {
+		javaFiles.put(uri.toString(), contentHash);
+	}
+
+	/* @Nullable */
+	public String getJavaFileContentHash(URI uri) {
+		return javaFiles.get(uri.toString());
+	}
+
+	public Set<String> getJavaFileURIs() {
+		return javaFiles.keySet();
+	}
+
+	/**
+	 * Computes the hash of the given file's content.
+	 */
+	public static String hash(File file) throws IOException {
+		return Files.asByteSource(file).hash(Hashing.md5()).toString();
+	}
+
+	/**
+	 * Reads the state from the given file. Returns <code>null</code> if the file does not exist or cannot be read, in
+	 * which case a full build is necessary.
+	 */
+	/* @Nullable */
+	public static IncrementalBuildState load(File file) {
+		if (!file.isFile()) {
+			return null;
+		}
+		ObjectInputStream in = null;
+		try {
+			in = new BuildStateInputStream(new BufferedInputStream(new FileInputStream(file)));
+			return (IncrementalBuildState) in.readObject();
+		} catch (Exception e) {
+			log.warn("Unable to read the build state from '" + file + "', performing a full build.");
+			if (log.isDebugEnabled()) {
+				log.debug(e.getMessage(), e);
+			}
+			return null;
+		} finally {
+			closeQuietly(in);
+		}
+	}
+
+	public void save(File file) {
+		ObjectOutputStream out = null;
+		try {
+			file.getParentFile().mkdirs();
+			out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+			out.writeObject(this);
+		} catch (IOException e) {
+			log.warn("Unable to write the build state to '" + file + "'.", e);
+			file.delete();
+		} finally {
+			closeQuietly(out);
+		}
+	}
+
+	private static void closeQuietly(Closeable closeable) {
+		if (closeable != null) {
+			try {
+				closeable.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+	}
+
+	/**
+	 * Resolves classes against the compiler's class loader rather than the caller's, e.g. when running in a Maven
+	 * plugin realm.
+	 */
+	private static class BuildStateInputStream extends ObjectInputStream {
+
+		BuildStateInputStream(InputStream in) throws IOException {
+			super(in);
+		}
+
+		@Override
+		protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+			try {
+				return Class.forName(desc.getName(), false, IncrementalBuildState.class.getClassLoader());
+			} catch (ClassNotFoundException e) {
+				return super.resolveClass(desc);
+			}
+		}
+	}
+
+}
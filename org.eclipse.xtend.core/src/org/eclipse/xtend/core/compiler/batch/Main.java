@@ -8,6 +8,7 @@
 package org.eclipse.xtend.core.compiler.batch;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -26,14 +27,32 @@ import com.google.inject.Injector;
 public class Main {
 
 	public static void main(String[] args) {
-		BasicConfigurator.configure();
-		Injector injector = XtendInjectorSingleton.INJECTOR;
-		XtendBatchCompiler compiler = injector.getInstance(XtendBatchCompiler.class);
 		if ((args == null) || (args.length == 0)) {
 			printUsage();
 			return;
 		}
-		Iterator<String> arguments = Arrays.asList(args).iterator();
+		String mode = args[0].trim();
+		if ("-connect".equals(mode) && args.length > 1) {
+			int exitCode = connect(Integer.parseInt(args[1].trim()), Arrays.asList(args).subList(2, args.length));
+			if (exitCode != 0) {
+				System.exit(exitCode);
+			}
+			return;
+		}
+		BasicConfigurator.configure();
+		Injector injector = XtendInjectorSingleton.INJECTOR;
+		if ("-daemon".equals(mode) && args.length > 1) {
+			serve(new XtendCompilerDaemon(injector), Integer.parseInt(args[1].trim()));
+			return;
+		}
+		XtendBatchCompiler compiler = injector.getInstance(XtendBatchCompiler.class);
+		configure(compiler, Arrays.asList(args).iterator());
+		if (!compiler.compile()) {
+			System.exit(1);
+		}
+	}
+
+	static void configure(XtendBatchCompiler compiler, Iterator<String> arguments) {
 		while (arguments.hasNext()) {
 			String argument = arguments.next().trim();
 			if ("-d".equals(argument)) {
@@ -58,6 +77,24 @@ public class Main {
 				compiler.setUseCurrentClassLoaderAsParent(true);
 			} else if ("-writeTraceFiles".equals(argument)) {
 				compiler.setWriteTraceFiles(true);
+			} else if ("-compileStubsInMemory".equals(argument)) {
+				compiler.setCompileStubsInMemory(true);
+			} else if ("-incremental".equals(argument)) {
+				compiler.setIncremental(true);
+			} else if ("-reuseStorageFiles".equals(argument)) {
+				compiler.setReuseStorageFiles(true);
+			} else if ("-threads".equals(argument)) {
+				compiler.setNumberOfThreads(Integer.parseInt(arguments.next().trim()));
+			} else if ("-skipUnchangedFiles".equals(argument)) {
+				compiler.setSkipUnchangedFiles(true);
+			} else if ("-shardSize".equals(argument)) {
+				compiler.setShardSize(Integer.parseInt(arguments.next().trim()));
+			} else if ("-typeCache".equals(argument)) {
+				compiler.setJvmTypeCacheDirectory(arguments.next().trim());
+			} else if ("-reuseProcessorClassLoaders".equals(argument)) {
+				compiler.setReuseProcessorClassLoaders(true);
+			} else if ("-profile".equals(argument)) {
+				compiler.setProfileReport(arguments.next().trim());
 			} else {
 				List<String> existingDirs = new ArrayList<String>(compiler.getSourcePathDirectories());
 				existingDirs.add(argument);
@@ -65,14 +102,30 @@ public class Main {
 				compiler.setSourcePath(pathes);
 			}
 		}
-		if (!compiler.compile()) {
-			System.exit(1);
+	}
+
+	private static void serve(XtendCompilerDaemon daemon, int port) {
+		try {
+			daemon.serve(port);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static int connect(int port, List<String> arguments) {
+		try {
+			return XtendCompilerDaemon.connect(port, arguments, System.out);
+		} catch (IOException e) {
+			System.err.println("Unable to connect to the Xtend compiler daemon on port " + port + ": " + e.getMessage());
+			return 2;
 		}
 	}
 
 	private static void printUsage() {
 		PrintStream out = System.out;
 		out.println("Usage: Main <options> <source directories>");
+		out.println("   or: Main -daemon <port>");
+		out.println("   or: Main -connect <port> <options> <source directories>");
 		out.println("where possible options include:");
 		out.println("-d <directory>                      Specify where to place generated xtend files");
 		out.println("-tp <path>                          Temp directory to hold generated stubs and classes");
@@ -85,6 +138,18 @@ public class Main {
 		out.println("-generateAnnotationComment <string> If -generateGeneratedAnnotation is used, add a comment.");
 		out.println("-useCurrentClassLoader              Use current classloader as parent classloader");
 		out.println("-writeTraceFiles                    Write Trace-Files");
+		out.println("-compileStubsInMemory               Compile Java stubs in memory instead of a temp directory");
+		out.println("-incremental                        Only compile source files that changed since the last run");
+		out.println("-reuseStorageFiles                  In incremental mode, load unchanged source files from storage files");
+		out.println("-threads <number>                   Number of threads used to process source files concurrently");
+		out.println("-typeCache <directory>              Directory of a persistent cache for the types of classpath jars");
+		out.println("-skipUnchangedFiles                 Don't write generated files whose content did not change");
+		out.println("-shardSize <number>                 Validate and generate source files in shards of the given size");
+		out.println("-reuseProcessorClassLoaders         Keep active annotation processors loaded for subsequent runs");
+		out.println("-profile <file>                     Write a JSON report with the timings of the compiler phases");
+		out.println("-daemon <port>                      Start a compiler daemon that listens on the given local port");
+		out.println("-connect <port>                     Forward the compilation to the daemon on the given local port");
+		out.println("                                    The daemon's token is exchanged via ~/.xtend/daemon-<port>.token");
 	}
 
 }
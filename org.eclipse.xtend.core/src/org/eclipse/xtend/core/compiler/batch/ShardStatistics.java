@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (c) 2017 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtend.core.compiler.batch;
+
+/**
+ * Statistics about a compilation of the {@link XtendBatchCompiler} in sharded mode.
+ *
+ * @see XtendBatchCompiler#setShardSize(int)
+ * @since 2.13
+ */
+public class ShardStatistics {
+
+	private int shardCount;
+
+	private int maxLoadedResources;
+
+	private int resourcesLoadedOnDemand;
+
+	/**
+	 * Records a processed shard.
+	 * 
+	 * @param loadedResources
+	 *            the number of source resources that were loaded at the end of the shard.
+	 * @param loadedOnDemand
+	 *            the number of those that did not belong to the shard but were looked up by it.
+	 */
+	protected void shardProcessed(int loadedResources, int loadedOnDemand) {
+		shardCount++;
+		maxLoadedResources = Math.max(maxLoadedResources, loadedResources);
+		resourcesLoadedOnDemand += loadedOnDemand;
+	}
+
+	/**
+	 * The number of processed shards.
+	 */
+	public int getShardCount() {
+		return shardCount;
+	}
+
+	/**
+	 * The maximum number of source resources that were loaded at the same time.
+	 */
+	public int getMaxLoadedResources() {
+		return maxLoadedResources;
+	}
+
+	/**
+	 * The number of times a source resource that did not belong to the current shard was loaded, summed up over all
+	 * shards.
+	 */
+	public int getResourcesLoadedOnDemand() {
+		return resourcesLoadedOnDemand;
+	}
+
+	@Override
+	public String toString() {
+		return shardCount + " shards, at most " + maxLoadedResources + " source resources loaded at once, "
+				+ resourcesLoadedOnDemand + " loaded on demand";
+	}
+
+}
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2017 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtend.core.compiler.batch;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.InternalEObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.xtext.naming.QualifiedName;
+import org.eclipse.xtext.resource.EObjectDescription;
+import org.eclipse.xtext.resource.IEObjectDescription;
+import org.eclipse.xtext.resource.IReferenceDescription;
+import org.eclipse.xtext.resource.IResourceDescription;
+import org.eclipse.xtext.resource.impl.AbstractResourceDescription;
+import org.eclipse.xtext.resource.impl.ResourceDescriptionsData;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Splits the source resources into the shards in which the {@link XtendBatchCompiler} processes them in sharded mode.
+ *
+ * All resources are unloaded before the first shard and the {@link #createIndex(IResourceDescription.Manager) index}
+ * of their exported objects takes their place. A resource that a shard looks up is loaded again on demand. After each
+ * shard all source resources are unloaded again, so at most the resources of one shard and the ones it looks up are
+ * loaded at a time.
+ */
+class ShardedCompilationPlan {
+
+	private final List<Resource> resources;
+
+	ShardedCompilationPlan(List<Resource> resources) {
+		this.resources = resources;
+	}
+
+	List<List<Resource>> getShards(int shardSize) {
+		return Lists.partition(resources, shardSize);
+	}
+
+	/**
+	 * Creates an index of the objects that the resources export. The copied descriptions only refer to the exported
+	 * objects by their URIs, so they do not keep the resources' contents alive once they are unloaded.
+	 */
+	ResourceDescriptionsData createIndex(IResourceDescription.Manager manager) {
+		List<IResourceDescription> result = Lists.newArrayListWithCapacity(resources.size());
+		for (Resource resource : resources) {
+			result.add(new ExportedObjectsDescription(manager.getResourceDescription(resource)));
+		}
+		return new ResourceDescriptionsData(result);
+	}
+
+	/**
+	 * A copy of the exported objects of a resource description. Imported names and references are not needed to
+	 * look up types and would require to resolve the resource.
+	 */
+	private static class ExportedObjectsDescription extends AbstractResourceDescription {
+
+		private final URI uri;
+
+		private final List<IEObjectDescription> exportedObjects = Lists.newArrayList();
+
+		ExportedObjectsDescription(IResourceDescription original) {
+			this.uri = original.getURI();
+			for (IEObjectDescription description : original.getExportedObjects()) {
+				InternalEObject proxy = (InternalEObject) EcoreUtil.create(description.getEClass());
+				proxy.eSetProxyURI(description.getEObjectURI());
+				Map<String, String> userData = Maps.newHashMap();
+				for (String key : description.getUserDataKeys()) {
+					userData.put(key, description.getUserData(key));
+				}
+				exportedObjects.add(EObjectDescription.create(description.getName(), proxy, userData));
+			}
+		}
+
+		@Override
+		protected List<IEObjectDescription> computeExportedObjects() {
+			return exportedObjects;
+		}
+
+		@Override
+		public Iterable<QualifiedName> getImportedNames() {
+			return Collections.emptyList();
+		}
+
+		@Override
+		public Iterable<IReferenceDescription> getReferenceDescriptions() {
+			return Collections.emptyList();
+		}
+
+		@Override
+		public URI getURI() {
+			return uri;
+		}
+	}
+
+}
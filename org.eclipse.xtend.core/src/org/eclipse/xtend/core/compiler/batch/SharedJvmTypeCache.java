@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * Copyright (c) 2017 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtend.core.compiler.batch;
+
+import java.lang.ref.SoftReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An in-memory cache for the serialized JVM types of classes from jar files, that can be shared by several
+ * {@link XtendBatchCompiler} runs in the same JVM, e.g. by all modules of a build. The types are keyed by the content
+ * hash of their jar and their name, so identical jars on the classpaths of different runs share their entries. The
+ * entries are softly referenced and are dropped if memory gets low.
+ *
+ * @see CachingClasspathTypeProvider
+ * @since 2.13
+ */
+public class SharedJvmTypeCache {
+
+	private final ConcurrentMap<String, SoftReference<byte[]>> types = new ConcurrentHashMap<String, SoftReference<byte[]>>();
+
+	/**
+	 * Returns the serialized type resource or <code>null</code> if it is not cached.
+	 */
+	/* @Nullable */
+	public byte[] get(String key) {
+		SoftReference<byte[]> reference = types.get(key);
+		if (reference == null) {
+			return null;
+		}
+		byte[] result = reference.get();
+		if (result == null) {
+			types.remove(key, reference);
+		}
+		return result;
+	}
+
+	public void put(String key, byte[] serializedType) {
+		types.put(key, new SoftReference<byte[]>(serializedType));
+	}
+
+	public void clear() {
+		types.clear();
+	}
+
+}
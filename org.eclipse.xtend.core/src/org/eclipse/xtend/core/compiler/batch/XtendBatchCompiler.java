@@ -20,41 +20,60 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.log4j.Logger;
 import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.common.util.WrappedException;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.resource.ResourceSet;
 import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.jdt.core.compiler.batch.BatchCompiler;
+import org.eclipse.xtend.core.macro.ActiveAnnotationTimings;
+import org.eclipse.xtend.core.macro.ProcessorClassLoaderCache;
 import org.eclipse.xtend.core.macro.ProcessorInstanceForJvmTypeProvider;
 import org.eclipse.xtend.core.xtend.XtendFile;
 import org.eclipse.xtext.Constants;
+import org.eclipse.xtext.common.types.TypesPackage;
 import org.eclipse.xtext.common.types.access.impl.ClasspathTypeProvider;
 import org.eclipse.xtext.common.types.access.impl.IndexedJvmTypeAccess;
 import org.eclipse.xtext.common.types.descriptions.IStubGenerator;
 import org.eclipse.xtext.diagnostics.Severity;
 import org.eclipse.xtext.generator.GeneratorContext;
 import org.eclipse.xtext.generator.GeneratorDelegate;
+import org.eclipse.xtext.generator.IFileSystemAccess;
+import org.eclipse.xtext.generator.IFileSystemAccess2;
 import org.eclipse.xtext.generator.IOutputConfigurationProvider;
 import org.eclipse.xtext.generator.JavaIoFileSystemAccess;
 import org.eclipse.xtext.generator.OutputConfiguration;
 import org.eclipse.xtext.generator.OutputConfigurationAdapter;
+import org.eclipse.xtext.generator.trace.TraceFileNameProvider;
 import org.eclipse.xtext.mwe.NameBasedFilter;
 import org.eclipse.xtext.mwe.PathTraverser;
+import org.eclipse.xtext.naming.QualifiedName;
 import org.eclipse.xtext.parser.IEncodingProvider;
 import org.eclipse.xtext.parser.IParseResult;
 import org.eclipse.xtext.resource.CompilerPhases;
 import org.eclipse.xtext.resource.FileExtensionProvider;
+import org.eclipse.xtext.resource.IEObjectDescription;
 import org.eclipse.xtext.resource.IResourceDescription;
+import org.eclipse.xtext.resource.IResourceDescriptions;
 import org.eclipse.xtext.resource.IResourceServiceProvider;
 import org.eclipse.xtext.resource.XtextResource;
 import org.eclipse.xtext.resource.XtextResourceSet;
+import org.eclipse.xtext.resource.impl.DefaultResourceDescriptionDelta;
+import org.eclipse.xtext.resource.impl.ResourceDescriptionsData;
 import org.eclipse.xtext.resource.impl.ResourceSetBasedResourceDescriptions;
+import org.eclipse.xtext.resource.persistence.SourceLevelURIsAdapter;
 import org.eclipse.xtext.resource.persistence.StorageAwareResource;
 import org.eclipse.xtext.util.CancelIndicator;
 import org.eclipse.xtext.util.Files;
@@ -72,12 +91,16 @@ import org.eclipse.xtext.xbase.compiler.GeneratorConfigProvider;
 import org.eclipse.xtext.xbase.resource.BatchLinkableResource;
 
 import com.google.common.base.CharMatcher;
+import com.google.common.base.Charsets;
 import com.google.common.base.Function;
 import com.google.common.base.Joiner;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.name.Named;
@@ -105,6 +128,8 @@ public class XtendBatchCompiler {
 
 	private static Logger log = Logger.getLogger(XtendBatchCompiler.class.getName());
 
+	private static final String BUILD_STATE_FILE_NAME = ".xtend-build-state";
+
 	protected static final FileFilter ACCEPT_ALL_FILTER = new FileFilter() {
 		@Override
 		public boolean accept(File pathname) {
@@ -115,6 +140,11 @@ public class XtendBatchCompiler {
 	protected Provider<ResourceSet> resourceSetProvider;
 	@Inject
 	protected Provider<JavaIoFileSystemAccess> javaIoFileSystemAccessProvider;
+	/**
+	 * @since 2.13
+	 */
+	@Inject
+	protected Provider<ChangeAwareFileSystemAccess> changeAwareFileSystemAccessProvider;
 	@Inject
 	protected FileExtensionProvider fileExtensionProvider;
 	@Inject
@@ -136,6 +166,10 @@ public class XtendBatchCompiler {
 	@Inject
 	private GeneratorConfigProvider generatorConfigProvider;
 	@Inject
+	private TraceFileNameProvider traceFileNameProvider;
+	@Inject
+	private ProcessorClassLoaderCache processorClassLoaderCache;
+	@Inject
 	@Named(Constants.LANGUAGE_NAME)
 	private String languageName;
 
@@ -157,6 +191,47 @@ public class XtendBatchCompiler {
 	 * @since 2.8
 	 */
 	protected boolean writeStorageFiles = false;
+	/**
+	 * @since 2.13
+	 */
+	protected int numberOfThreads = 1;
+	/**
+	 * @since 2.13
+	 */
+	protected boolean incremental = false;
+	/**
+	 * @since 2.13
+	 */
+	protected boolean compileStubsInMemory = false;
+	/**
+	 * @since 2.13
+	 */
+	protected String jvmTypeCacheDirectory;
+	/**
+	 * @since 2.13
+	 */
+	protected SharedJvmTypeCache sharedJvmTypeCache;
+	/**
+	 * @since 2.13
+	 */
+	protected boolean skipUnchangedFiles = false;
+	/**
+	 * @since 2.13
+	 */
+	protected int shardSize = 0;
+	private ShardStatistics shardStatistics;
+	/**
+	 * @since 2.13
+	 */
+	protected boolean reuseStorageFiles = false;
+	/**
+	 * @since 2.13
+	 */
+	protected String profileReport;
+	/**
+	 * @since 2.13
+	 */
+	protected boolean reuseProcessorClassLoaders = false;
 	private GeneratorConfig generatorConfig = new GeneratorConfig();
 	protected ClassLoader currentClassLoader = getClass().getClassLoader();
 
@@ -166,10 +241,35 @@ public class XtendBatchCompiler {
 
 	private ClassLoader annotationProcessingClassLoader;
 
+	/**
+	 * The class loader for the stable classpath entries that was acquired from the {@link ProcessorClassLoaderCache}.
+	 */
+	/* @Nullable */
+	private ClassLoader cachedProcessorClassLoader;
+
+	/**
+	 * The adapter that holds the annotation processing class loader if its parent is the
+	 * {@link #cachedProcessorClassLoader}.
+	 */
+	/* @Nullable */
+	private ProcessorInstanceForJvmTypeProvider.ProcessorClassloaderAdapter cachedProcessorClassloaderAdapter;
+
 	private FileProjectConfig projectConfig;
 
 	private OutputConfiguration outputConfiguration;
 
+	/**
+	 * The URIs of the source resources that have to be validated and generated, or <code>null</code> if all of them
+	 * are affected.
+	 */
+	private Set<URI> affectedResources;
+
+	/**
+	 * Collects the timings of the current run if a {@link #getProfileReport() profile report} was requested.
+	 */
+	/* @Nullable */
+	private CompilationProfiler profiler;
+
 	public void setCurrentClassLoader(ClassLoader currentClassLoader) {
 		this.currentClassLoader = currentClassLoader;
 	}
@@ -208,6 +308,199 @@ public class XtendBatchCompiler {
 		this.writeStorageFiles = writeStorageFiles;
 	}
 	
+	/**
+	 * @since 2.13
+	 */
+	public int getNumberOfThreads() {
+		return numberOfThreads;
+	}
+
+	/**
+	 * Sets the number of worker threads that are used to process independent resources concurrently, i.e. to parse
+	 * them. Resources are always validated and generated on the calling thread. A value less than or equal to one means
+	 * that all resources are processed sequentially on the calling thread.
+	 * 
+	 * @since 2.13
+	 */
+	public void setNumberOfThreads(int numberOfThreads) {
+		this.numberOfThreads = numberOfThreads;
+	}
+
+	/**
+	 * @since 2.13
+	 */
+	public boolean isIncremental() {
+		return incremental;
+	}
+
+	/**
+	 * Enables the incremental mode. The compiler stores its state in the output directory and only validates and
+	 * generates the source files that were changed since the last successful run or that are affected by these
+	 * changes. A full build is performed if there is no state or if the configuration has changed.
+	 * 
+	 * @since 2.13
+	 */
+	public void setIncremental(boolean incremental) {
+		this.incremental = incremental;
+	}
+
+	/**
+	 * @since 2.13
+	 */
+	public boolean isCompileStubsInMemory() {
+		return compileStubsInMemory;
+	}
+
+	/**
+	 * If enabled, the Java stubs of the Xtend sources are kept in memory and compiled together with the Java sources
+	 * into an in-memory class store that is used by the type provider, instead of writing them to temporary
+	 * <code>stubs</code> and <code>classes</code> directories.
+	 * 
+	 * @since 2.13
+	 */
+	public void setCompileStubsInMemory(boolean compileStubsInMemory) {
+		this.compileStubsInMemory = compileStubsInMemory;
+	}
+
+	/**
+	 * @since 2.13
+	 */
+	public String getJvmTypeCacheDirectory() {
+		return jvmTypeCacheDirectory;
+	}
+
+	/**
+	 * Sets the directory of a persistent cache for the JVM types of the classpath jars. The types that are derived from
+	 * the classes in a jar are stored per jar, keyed by the hash of its content, and are loaded from the cache in
+	 * subsequent runs instead of being created by reflection. The cache may be shared by several projects. If no
+	 * directory is set, no cache is used.
+	 * 
+	 * @since 2.13
+	 */
+	public void setJvmTypeCacheDirectory(String jvmTypeCacheDirectory) {
+		this.jvmTypeCacheDirectory = jvmTypeCacheDirectory;
+	}
+
+	/**
+	 * @since 2.13
+	 */
+	public SharedJvmTypeCache getSharedJvmTypeCache() {
+		return sharedJvmTypeCache;
+	}
+
+	/**
+	 * Sets an in-memory cache for the JVM types of the classpath jars that may be shared with other compiler
+	 * instances in the same JVM. It is consulted before the {@link #setJvmTypeCacheDirectory(String) cache directory}.
+	 * If no cache is set, the types are not shared.
+	 * 
+	 * @since 2.13
+	 */
+	public void setSharedJvmTypeCache(SharedJvmTypeCache sharedJvmTypeCache) {
+		this.sharedJvmTypeCache = sharedJvmTypeCache;
+	}
+
+	/**
+	 * @since 2.13
+	 */
+	public boolean isSkipUnchangedFiles() {
+		return skipUnchangedFiles;
+	}
+
+	/**
+	 * If enabled, generated Java files, trace files and storage files are compared with the existing files in the
+	 * output directory and are only written if their content has changed. Unchanged files keep their timestamp.
+	 * 
+	 * @since 2.13
+	 */
+	public void setSkipUnchangedFiles(boolean skipUnchangedFiles) {
+		this.skipUnchangedFiles = skipUnchangedFiles;
+	}
+
+	/**
+	 * The statistics of the last compilation in sharded mode, or <code>null</code> if there was none.
+	 * 
+	 * @since 2.13
+	 */
+	/* @Nullable */
+	public ShardStatistics getShardStatistics() {
+		return shardStatistics;
+	}
+
+	/**
+	 * @since 2.13
+	 */
+	public int getShardSize() {
+		return shardSize;
+	}
+
+	/**
+	 * Enables the sharded mode if the given size is positive. All source files are still parsed and indexed at once,
+	 * but they are resolved, validated and generated in shards of the given size. All source resources are unloaded
+	 * after each shard. This bounds the memory that is needed for resolved types and validation state by the shard size
+	 * and the resources the shard looks up rather than by the size of the project.
+	 * 
+	 * @since 2.13
+	 */
+	public void setShardSize(int shardSize) {
+		this.shardSize = shardSize;
+	}
+
+	/**
+	 * @since 2.13
+	 */
+	public boolean isReuseStorageFiles() {
+		return reuseStorageFiles;
+	}
+
+	/**
+	 * If enabled in {@link #setIncremental(boolean) incremental mode}, the compiler writes storage files and loads the
+	 * sources whose content did not change since the last successful run from these files, including their inferred
+	 * JVM model, instead of parsing them. Sources that are affected by changes are loaded from the source file again.
+	 * 
+	 * @since 2.13
+	 */
+	public void setReuseStorageFiles(boolean reuseStorageFiles) {
+		this.reuseStorageFiles = reuseStorageFiles;
+	}
+
+	/**
+	 * @since 2.13
+	 */
+	public String getProfileReport() {
+		return profileReport;
+	}
+
+	/**
+	 * Sets the file that a profile of each run is written to. The report is a JSON document that contains the wall
+	 * time, CPU time and allocated bytes per compiler phase, the slowest files per phase and the time that was spent
+	 * in each active annotation processor. If no file is set, the compiler is not profiled.
+	 * 
+	 * @since 2.13
+	 */
+	public void setProfileReport(String profileReport) {
+		this.profileReport = profileReport;
+	}
+
+	/**
+	 * @since 2.13
+	 */
+	public boolean isReuseProcessorClassLoaders() {
+		return reuseProcessorClassLoaders;
+	}
+
+	/**
+	 * If enabled, the class loader for active annotation processors is taken from the {@link ProcessorClassLoaderCache}
+	 * and is kept alive after the run. Subsequent runs in the same JVM reuse the loaded processor classes as long as
+	 * the classpath did not change. Note that the cached class loaders keep the classpath jars open. The stubs of the
+	 * current run are loaded by a fresh child of the cached class loader. Stubs that are compiled in memory are never
+	 * cached.
+	 * 
+	 * @since 2.13
+	 */
+	public void setReuseProcessorClassLoaders(boolean reuseProcessorClassLoaders) {
+		this.reuseProcessorClassLoaders = reuseProcessorClassLoaders;
+	}
+
 	@Inject
 	public void setResourceSetProvider(Provider<ResourceSet> resourceSetProvider) {
 		this.resourceSetProvider = resourceSetProvider;
@@ -468,34 +761,110 @@ public class XtendBatchCompiler {
 				return false;
 			}
 			generatorConfigProvider.install(resourceSet, generatorConfig);
-			File classDirectory = createTempDir("classes");
+			if (getProfileReport() != null) {
+				profiler = new CompilationProfiler();
+				profiler.setActiveAnnotationTimings(ActiveAnnotationTimings.installNew(resourceSet));
+			}
+			String configurationFingerprint = null;
+			IncrementalBuildState previousBuildState = null;
+			if (isIncremental()) {
+				configurationFingerprint = computeConfigurationFingerprint();
+				previousBuildState = loadBuildState(configurationFingerprint);
+				if (isReuseStorageFiles()) {
+					installSourceLevelURIs(resourceSet, previousBuildState);
+				}
+			} else if (isReuseStorageFiles()) {
+				log.warn("Storage files are only reused in incremental mode.");
+			}
+			File classDirectory = null;
+			InMemoryClassStore classStore = null;
 			try {
 				compilerPhases.setIndexing(resourceSet, true);
-				// install a type provider without index lookup for the first phase
-				installJvmTypeProvider(resourceSet, classDirectory, true);
-				loadXtendFiles(resourceSet);
-				File sourceDirectory = createStubs(resourceSet);
-				if (!preCompileStubs(sourceDirectory, classDirectory)) {
-					log.warn("Compilation of stubs had errors.");
-				}
-				if (!preCompileJava(sourceDirectory, classDirectory)) {
-					log.debug("Compilation of Java code against stubs had errors. This is expected and usually is not a probblem.");
+				if (isCompileStubsInMemory()) {
+					classStore = new InMemoryClassStore();
+					// install a type provider without index lookup for the first phase
+					internalInstallJvmTypeProvider(resourceSet, classStore, true);
+					CompilationProfiler.Measurement measurement = beginProfiling();
+					loadXtendFiles(resourceSet);
+					endPhase("loadXtendFiles", measurement);
+					measurement = beginProfiling();
+					Map<String, char[]> stubs = createStubsInMemory(resourceSet);
+					endPhase("createStubs", measurement);
+					measurement = beginProfiling();
+					preCompileInMemory(stubs, classStore);
+					endPhase("preCompileInMemory", measurement);
+				} else {
+					classDirectory = createTempDir("classes");
+					// install a type provider without index lookup for the first phase
+					installJvmTypeProvider(resourceSet, classDirectory, true);
+					CompilationProfiler.Measurement measurement = beginProfiling();
+					loadXtendFiles(resourceSet);
+					endPhase("loadXtendFiles", measurement);
+					measurement = beginProfiling();
+					File sourceDirectory = createStubs(resourceSet);
+					endPhase("createStubs", measurement);
+					measurement = beginProfiling();
+					if (!preCompileStubs(sourceDirectory, classDirectory)) {
+						log.warn("Compilation of stubs had errors.");
+					}
+					endPhase("preCompileStubs", measurement);
+					measurement = beginProfiling();
+					if (!preCompileJava(sourceDirectory, classDirectory)) {
+						log.debug("Compilation of Java code against stubs had errors. This is expected and usually is not a probblem.");
+					}
+					endPhase("preCompileJava", measurement);
 				}
 			} finally {
 				compilerPhases.setIndexing(resourceSet, false);
 			}
 			// install a fresh type provider for the second phase, so we clear all previously cached classes and misses.
-			installJvmTypeProvider(resourceSet, classDirectory, false);
-			EcoreUtil.resolveAll(resourceSet);
+			if (classStore != null) {
+				internalInstallJvmTypeProvider(resourceSet, classStore, false);
+			} else {
+				installJvmTypeProvider(resourceSet, classDirectory, false);
+			}
+			IncrementalBuildState buildState = null;
+			if (isIncremental()) {
+				buildState = computeAffectedResources(resourceSet, configurationFingerprint, previousBuildState);
+			}
+			if (getShardSize() > 0) {
+				if (!validateAndGenerateSharded(resourceSet)) {
+					return false;
+				}
+				if (buildState != null) {
+					buildState.save(getBuildStateFile());
+				}
+				return true;
+			}
+			CompilationProfiler.Measurement measurement = beginProfiling();
+			// same as EcoreUtil.resolveAll(ResourceSet), resources that are added in the meantime are resolved, too
+			List<Resource> resources = resourceSet.getResources();
+			for (int i = 0; i < resources.size(); i++) {
+				Resource resource = resources.get(i);
+				if (isAffected(resource)) {
+					resolveAll(resource);
+				}
+			}
+			endPhase("resolveAll", measurement);
+			measurement = beginProfiling();
 			List<Issue> issues = validate(resourceSet);
+			endPhase("validate", measurement);
 			Iterable<Issue> errors = Iterables.filter(issues, SeverityFilter.ERROR);
 			Iterable<Issue> warnings = Iterables.filter(issues, SeverityFilter.WARNING);
 			reportIssues(Iterables.concat(errors, warnings));
 			if (!Iterables.isEmpty(errors)) {
 				return false;
 			}
+			measurement = beginProfiling();
 			generateJavaFiles(resourceSet);
+			endPhase("generateJavaFiles", measurement);
+			if (buildState != null) {
+				buildState.save(getBuildStateFile());
+			}
 		} finally {
+			affectedResources = null;
+			writeProfileReport();
+			releaseCachedProcessorClassLoader(null);
 			destroyClassLoader(jvmTypesClassLoader);
 			destroyClassLoader(annotationProcessingClassLoader);
 			if (isDeleteTempDirectory()) {
@@ -507,6 +876,41 @@ public class XtendBatchCompiler {
 	
 	
 
+	private void writeProfileReport() {
+		if (profiler != null) {
+			try {
+				profiler.writeReport(new File(getProfileReport()));
+			} catch (IOException e) {
+				log.warn("Unable to write the profile report to " + getProfileReport(), e);
+			} finally {
+				profiler = null;
+			}
+		}
+	}
+
+	/* @Nullable */
+	private CompilationProfiler.Measurement beginProfiling() {
+		return profiler != null ? profiler.begin() : null;
+	}
+
+	private void endPhase(String phase, CompilationProfiler.Measurement measurement) {
+		if (profiler != null) {
+			profiler.endPhase(phase, measurement);
+		}
+	}
+
+	private void endFile(String phase, Resource resource, CompilationProfiler.Measurement measurement) {
+		if (profiler != null) {
+			profiler.endFile(phase, resource, measurement);
+		}
+	}
+
+	private void resolveAll(Resource resource) {
+		CompilationProfiler.Measurement measurement = beginProfiling();
+		EcoreUtil.resolveAll(resource);
+		endFile("resolveAll", resource, measurement);
+	}
+
 	/**
 	 * @since 2.8
 	 */
@@ -552,6 +956,23 @@ public class XtendBatchCompiler {
 
 	protected ResourceSet loadXtendFiles(final ResourceSet resourceSet) {
 		encodingProvider.setDefaultEncoding(getFileEncoding());
+		List<URI> uris = findXtendFiles();
+		if (isParallel(uris)) {
+			loadXtendFilesParallel(resourceSet, uris);
+			return resourceSet;
+		}
+		for (URI uri : uris) {
+			if (log.isDebugEnabled()) {
+				log.debug("load xtend file '" + uri + "'");
+			}
+			CompilationProfiler.Measurement measurement = beginProfiling();
+			Resource resource = resourceSet.getResource(uri, true);
+			endFile("loadXtendFiles", resource, measurement);
+		}
+		return resourceSet;
+	}
+
+	private List<URI> findXtendFiles() {
 		final NameBasedFilter nameBasedFilter = new NameBasedFilter();
 		nameBasedFilter.setExtension(fileExtensionProvider.getPrimaryFileExtension());
 		PathTraverser pathTraverser = new PathTraverser();
@@ -563,15 +984,58 @@ public class XtendBatchCompiler {
 				return matches;
 			}
 		});
+		List<URI> uris = Lists.newArrayList();
 		for (String src : pathes.keySet()) {
-			for (URI uri : pathes.get(src)) {
-				if (log.isDebugEnabled()) {
-					log.debug("load xtend file '" + uri + "'");
-				}
-				resourceSet.getResource(uri, true);
+			uris.addAll(pathes.get(src));
+		}
+		return uris;
+	}
+
+	/**
+	 * Parses the given files on a pool of {@link #getNumberOfThreads() worker threads}. The resource set is not
+	 * thread-safe, so the resources are created and attached on the calling thread in the order of the given URIs and
+	 * only their contents are loaded concurrently. Loading a resource does not touch the resource set or the type
+	 * provider, since linking is lazy and the JVM model is inferred on demand.
+	 */
+	private void loadXtendFilesParallel(final ResourceSet resourceSet, List<URI> uris) {
+		List<Resource> resources = Lists.newArrayListWithCapacity(uris.size());
+		for (URI uri : uris) {
+			Resource resource = resourceSet.getResource(uri, false);
+			if (resource == null) {
+				resource = resourceSet.createResource(uri);
+			}
+			if (!resource.isLoaded()) {
+				resources.add(resource);
 			}
 		}
-		return resourceSet;
+		ExecutorService executor = createExecutorService();
+		try {
+			List<Future<?>> results = Lists.newArrayListWithCapacity(resources.size());
+			for (final Resource resource : resources) {
+				results.add(executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws Exception {
+						if (log.isDebugEnabled()) {
+							log.debug("load xtend file '" + resource.getURI() + "'");
+						}
+						CompilationProfiler.Measurement measurement = beginProfiling();
+						try {
+							resource.load(resourceSet.getLoadOptions());
+						} catch (IOException e) {
+							// same as a demand load through the resource set
+							throw new WrappedException(e);
+						}
+						endFile("loadXtendFiles", resource, measurement);
+						return null;
+					}
+				}));
+			}
+			for (Future<?> result : results) {
+				getResult(result);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
 	}
 
 	@Deprecated
@@ -585,13 +1049,154 @@ public class XtendBatchCompiler {
 		JavaIoFileSystemAccess fileSystemAccess = javaIoFileSystemAccessProvider.get();
 		fileSystemAccess.setOutputPath(outputDirectory.toString());
 		List<Resource> resources = Lists.newArrayList(resourceSet.getResources());
+		if (isParallel(resources)) {
+			createStubsWithQueuedWriter(resources, fileSystemAccess);
+			return outputDirectory;
+		}
 		for (Resource resource : resources) {
+			CompilationProfiler.Measurement measurement = beginProfiling();
 			IResourceDescription description = resourceDescriptionManager.getResourceDescription(resource);
 			stubGenerator.doGenerateStubs(fileSystemAccess, description);
+			endFile("createStubs", resource, measurement);
 		}
 		return outputDirectory;
 	}
 
+	/**
+	 * Generates the stubs on the calling thread and writes them on a separate writer thread, so the JVM model
+	 * inference of the next resource does not wait for the file system. The inference itself cannot run concurrently,
+	 * since it resolves types through the resource set and runs the active annotation processors. A single writer
+	 * is used because {@link JavaIoFileSystemAccess} creates the package directories without synchronization.
+	 */
+	private void createStubsWithQueuedWriter(List<Resource> resources, final IFileSystemAccess delegate) {
+		ThreadFactoryBuilder threadFactory = new ThreadFactoryBuilder().setNameFormat("XtendBatchCompiler-stubs").setDaemon(true);
+		final ExecutorService writer = Executors.newSingleThreadExecutor(threadFactory.build());
+		try {
+			final List<Future<?>> results = Lists.newArrayList();
+			IFileSystemAccess fileSystemAccess = new IFileSystemAccess() {
+				@Override
+				public void generateFile(final String fileName, CharSequence contents) {
+					final String text = contents.toString();
+					results.add(writer.submit(new Runnable() {
+						@Override
+						public void run() {
+							delegate.generateFile(fileName, text);
+						}
+					}));
+				}
+
+				@Override
+				public void generateFile(final String fileName, final String outputConfigurationName, CharSequence contents) {
+					final String text = contents.toString();
+					results.add(writer.submit(new Runnable() {
+						@Override
+						public void run() {
+							delegate.generateFile(fileName, outputConfigurationName, text);
+						}
+					}));
+				}
+
+				@Override
+				public void deleteFile(final String fileName) {
+					results.add(writer.submit(new Runnable() {
+						@Override
+						public void run() {
+							delegate.deleteFile(fileName);
+						}
+					}));
+				}
+			};
+			for (Resource resource : resources) {
+				CompilationProfiler.Measurement measurement = beginProfiling();
+				IResourceDescription description = resourceDescriptionManager.getResourceDescription(resource);
+				stubGenerator.doGenerateStubs(fileSystemAccess, description);
+				endFile("createStubs", resource, measurement);
+			}
+			for (Future<?> result : results) {
+				getResult(result);
+			}
+		} finally {
+			writer.shutdownNow();
+		}
+	}
+
+	/**
+	 * Generates the Java stubs for all resources and returns their contents, keyed by the file name relative to the
+	 * source root.
+	 * 
+	 * @since 2.13
+	 */
+	protected Map<String, char[]> createStubsInMemory(ResourceSet resourceSet) {
+		final Map<String, char[]> stubs = newLinkedHashMap();
+		IFileSystemAccess fileSystemAccess = new IFileSystemAccess() {
+			@Override
+			public void generateFile(String fileName, CharSequence contents) {
+				stubs.put(fileName, contents.toString().toCharArray());
+			}
+
+			@Override
+			public void generateFile(String fileName, String outputConfigurationName, CharSequence contents) {
+				generateFile(fileName, contents);
+			}
+
+			@Override
+			public void deleteFile(String fileName) {
+				stubs.remove(fileName);
+			}
+		};
+		List<Resource> resources = Lists.newArrayList(resourceSet.getResources());
+		for (Resource resource : resources) {
+			CompilationProfiler.Measurement measurement = beginProfiling();
+			IResourceDescription description = resourceDescriptionManager.getResourceDescription(resource);
+			stubGenerator.doGenerateStubs(fileSystemAccess, description);
+			endFile("createStubs", resource, measurement);
+		}
+		return stubs;
+	}
+
+	/**
+	 * Compiles the given stubs and afterwards the Java sources in the source directories against them. Only the class
+	 * files of the Java sources are put into the given store, the ones of the stubs are only visible to the compiler.
+	 */
+	private void preCompileInMemory(Map<String, char[]> stubs, InMemoryClassStore classStore) {
+		List<String> classPathEntries = getClassPathEntries();
+		if (classPathEntries.isEmpty()) {
+			// same default as the batch compiler
+			classPathEntries = getDirectories(System.getProperty("java.class.path"));
+		}
+		ClassLoader classpath = createClassLoader(transform(classPathEntries, TO_FILE), createBootClassLoader());
+		try {
+			Iterable<File> classpathFiles = transform(concat(getBootClassPathEntries(), classPathEntries), TO_FILE);
+			InMemoryStubCompiler compiler = new InMemoryStubCompiler(classStore, classpath, classpathFiles,
+					isEmpty(bootClassPath), getJavaSourceVersion(), encodingProvider.getDefaultEncoding());
+			if (!compiler.compileStubs(stubs)) {
+				log.warn("Compilation of stubs had errors.");
+			}
+			Map<String, char[]> javaSources = newLinkedHashMap();
+			for (URI javaFile : findJavaFiles().values()) {
+				// the compiler reads the contents lazily
+				javaSources.put(javaFile.toFileString(), null);
+			}
+			if (!compiler.compileJava(javaSources)) {
+				log.debug("Compilation of Java code against stubs had errors. This is expected and usually is not a probblem.");
+			}
+			if (log.isDebugEnabled()) {
+				log.debug("Compiled " + classStore.size() + " classes in memory");
+			}
+		} finally {
+			destroyClassLoader(classpath);
+		}
+	}
+
+	private Multimap<String, URI> findJavaFiles() {
+		return new PathTraverser().resolvePathes(getSourcePathDirectories(), new Predicate<URI>() {
+			@Override
+			public boolean apply(URI input) {
+				return "java".equals(input.fileExtension());
+			}
+		});
+	}
+
 	protected boolean preCompileStubs(File tmpSourceDirectory, File classDirectory) {
 		return preCompile(tmpSourceDirectory, singletonList(tmpSourceDirectory.toString()), getClassPathEntries());
 	}	
@@ -659,20 +1264,70 @@ public class XtendBatchCompiler {
 	}
 
 	protected List<Issue> validate(ResourceSet resourceSet) {
+		return validate(Lists.newArrayList(resourceSet.getResources()));
+	}
+
+	/**
+	 * Validates the given resources on the calling thread. Validation resolves types and installs derived state
+	 * through the shared resource set and type provider, which are not thread-safe, so it never runs concurrently.
+	 */
+	private List<Issue> validate(List<Resource> resources) {
 		List<Issue> issues = Lists.newArrayList();
-		List<Resource> resources = Lists.newArrayList(resourceSet.getResources());
 		for (Resource resource : resources) {
-			IResourceServiceProvider resourceServiceProvider = IResourceServiceProvider.Registry.INSTANCE
-					.getResourceServiceProvider(resource.getURI());
-			if (resourceServiceProvider != null && isSourceFile(resource)) {
-				IResourceValidator resourceValidator = resourceServiceProvider.getResourceValidator();
-				List<Issue> result = resourceValidator.validate(resource, CheckMode.ALL, null);
-				addAll(issues, result);
-			}
+			CompilationProfiler.Measurement measurement = beginProfiling();
+			addAll(issues, validate(resource));
+			endFile("validate", resource, measurement);
 		}
 		return issues;
 	}
 
+	/**
+	 * Validates a single resource. Returns an empty list if the resource is not a source file.
+	 * 
+	 * @since 2.13
+	 */
+	protected List<Issue> validate(Resource resource) {
+		IResourceServiceProvider resourceServiceProvider = IResourceServiceProvider.Registry.INSTANCE
+				.getResourceServiceProvider(resource.getURI());
+		if (resourceServiceProvider != null && isSourceFile(resource) && isAffected(resource)) {
+			IResourceValidator resourceValidator = resourceServiceProvider.getResourceValidator();
+			return resourceValidator.validate(resource, CheckMode.ALL, null);
+		}
+		return emptyList();
+	}
+
+	private boolean isParallel(List<?> resources) {
+		return getNumberOfThreads() > 1 && resources.size() > 1;
+	}
+
+	/**
+	 * Creates the pool that is used to process resources concurrently.
+	 * 
+	 * @since 2.13
+	 */
+	protected ExecutorService createExecutorService() {
+		ThreadFactoryBuilder threadFactory = new ThreadFactoryBuilder().setNameFormat("XtendBatchCompiler-%d").setDaemon(true);
+		return Executors.newFixedThreadPool(getNumberOfThreads(), threadFactory.build());
+	}
+
+	private <T> T getResult(Future<T> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new RuntimeException(cause);
+		}
+	}
+
 	/**
 	 * @since 2.8
 	 */
@@ -683,6 +1338,366 @@ public class XtendBatchCompiler {
 		return false;
 	}
 
+	private boolean isAffected(Resource resource) {
+		return affectedResources == null || affectedResources.contains(resource.getURI());
+	}
+
+	/**
+	 * Computes the source resources that have to be validated and generated with respect to the state of the previous
+	 * run and removes the outputs of types that no longer exist. A source is affected if it changed, if it depends on a
+	 * changed source or on a type in the package of a changed Java file, or if one of its outputs is missing. Returns
+	 * the new state that is to be saved after a successful build.
+	 */
+	private IncrementalBuildState computeAffectedResources(ResourceSet resourceSet, String configurationFingerprint,
+			/* @Nullable */ IncrementalBuildState oldState) {
+		IncrementalBuildState newState = new IncrementalBuildState(configurationFingerprint);
+		Map<URI, Resource> sourceResources = newLinkedHashMap();
+		Map<URI, String> contentHashes = newHashMap();
+		for (Resource resource : resourceSet.getResources()) {
+			if (isSourceFile(resource) || isLoadedFromStorage(resource)) {
+				sourceResources.put(resource.getURI(), resource);
+				contentHashes.put(resource.getURI(), computeContentHash(resource));
+			}
+		}
+		Map<URI, String> javaContentHashes = computeJavaContentHashes();
+		Set<URI> affected = newLinkedHashSet();
+		List<IResourceDescription.Delta> deltas = newArrayList();
+		if (oldState == null) {
+			affected.addAll(sourceResources.keySet());
+		} else {
+			Set<QualifiedName> changedJavaPackages = getChangedJavaPackages(javaContentHashes, oldState);
+			for (Resource resource : sourceResources.values()) {
+				URI uri = resource.getURI();
+				String contentHash = contentHashes.get(uri);
+				IResourceDescription oldDescription = oldState.getResourceDescription(uri);
+				if (contentHash == null || !contentHash.equals(oldState.getContentHash(uri))) {
+					affected.add(uri);
+					IResourceDescription newDescription = resourceDescriptionManager.getResourceDescription(resource);
+					deltas.add(new DefaultResourceDescriptionDelta(oldDescription, newDescription));
+				} else if (importsFromPackage(oldDescription, changedJavaPackages) || isOutputMissing(resource, oldDescription)) {
+					affected.add(uri);
+					if (isLoadedFromStorage(resource)) {
+						reloadFromSource(resource);
+					}
+					IResourceDescription.Delta delta = new DefaultResourceDescriptionDelta(oldDescription,
+							resourceDescriptionManager.getResourceDescription(resource));
+					if (delta.haveEObjectDescriptionsChanged()) {
+						deltas.add(delta);
+					}
+				}
+			}
+			for (String uriAsString : oldState.getURIs()) {
+				URI uri = URI.createURI(uriAsString);
+				if (!sourceResources.containsKey(uri)) {
+					deltas.add(new DefaultResourceDescriptionDelta(oldState.getResourceDescription(uri), null));
+				}
+			}
+			IResourceDescriptions context = getResourceDescriptions(resourceSet);
+			List<IResourceDescription.Delta> pending = deltas;
+			while (!pending.isEmpty()) {
+				List<IResourceDescription.Delta> next = newArrayList();
+				for (Resource resource : sourceResources.values()) {
+					URI uri = resource.getURI();
+					IResourceDescription oldDescription = oldState.getResourceDescription(uri);
+					if (!affected.contains(uri) && resourceDescriptionManager.isAffected(pending, oldDescription, context)) {
+						affected.add(uri);
+						if (isLoadedFromStorage(resource)) {
+							reloadFromSource(resource);
+						}
+						IResourceDescription newDescription = resourceDescriptionManager.getResourceDescription(resource);
+						IResourceDescription.Delta delta = new DefaultResourceDescriptionDelta(oldDescription, newDescription);
+						if (delta.haveEObjectDescriptionsChanged()) {
+							next.add(delta);
+							deltas.add(delta);
+						}
+					}
+				}
+				pending = next;
+			}
+			deleteObsoleteOutputs(deltas);
+			log.info("Incremental build: " + affected.size() + " of " + sourceResources.size() + " source files are affected.");
+		}
+		for (Resource resource : sourceResources.values()) {
+			URI uri = resource.getURI();
+			IResourceDescription description;
+			if (affected.contains(uri)) {
+				description = resourceDescriptionManager.getResourceDescription(resource);
+			} else {
+				description = oldState.getResourceDescription(uri);
+			}
+			newState.put(uri, contentHashes.get(uri), description);
+		}
+		for (Map.Entry<URI, String> entry : javaContentHashes.entrySet()) {
+			if (entry.getValue() != null) {
+				newState.putJavaFile(entry.getKey(), entry.getValue());
+			}
+		}
+		affectedResources = affected;
+		return newState;
+	}
+
+	/**
+	 * Computes the content hashes of the Java files in the source directories. The hash of a file that cannot be read
+	 * is <code>null</code>, so the file is considered as changed.
+	 */
+	private Map<URI, String> computeJavaContentHashes() {
+		Map<URI, String> result = newLinkedHashMap();
+		for (URI javaFile : findJavaFiles().values()) {
+			try {
+				result.put(javaFile, IncrementalBuildState.hash(new File(javaFile.toFileString())));
+			} catch (IOException e) {
+				log.warn("Unable to compute the content hash of '" + javaFile + "'", e);
+				result.put(javaFile, null);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the lower case names of the packages that contain a Java file that was added, removed or changed since
+	 * the previous run.
+	 */
+	private Set<QualifiedName> getChangedJavaPackages(Map<URI, String> javaContentHashes, IncrementalBuildState oldState) {
+		Set<QualifiedName> result = newLinkedHashSet();
+		for (Map.Entry<URI, String> entry : javaContentHashes.entrySet()) {
+			if (entry.getValue() == null || !entry.getValue().equals(oldState.getJavaFileContentHash(entry.getKey()))) {
+				result.add(getJavaPackageName(entry.getKey()));
+			}
+		}
+		for (String uriAsString : oldState.getJavaFileURIs()) {
+			URI uri = URI.createURI(uriAsString);
+			if (!javaContentHashes.containsKey(uri)) {
+				result.add(getJavaPackageName(uri));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the lower case name of the package of the given Java file, which is derived from its location in the
+	 * source directories. A file outside of them yields the empty name, i.e. it may declare any type.
+	 */
+	private QualifiedName getJavaPackageName(URI javaFile) {
+		String path = javaFile.toFileString();
+		for (String sourceDirectory : getSourcePathDirectories()) {
+			String prefix = sourceDirectory.endsWith(File.separator) ? sourceDirectory : sourceDirectory + File.separator;
+			if (path.startsWith(prefix)) {
+				List<String> segments = split(path.substring(prefix.length()), File.separator);
+				return QualifiedName.create(segments.subList(0, segments.size() - 1)).toLowerCase();
+			}
+		}
+		return QualifiedName.EMPTY;
+	}
+
+	/**
+	 * Whether the given resource description of the previous run imports a type from one of the given packages. A Java
+	 * file may declare nested and secondary types besides the one it is named after, so any type of the package counts.
+	 */
+	private boolean importsFromPackage(/* @Nullable */ IResourceDescription description, Set<QualifiedName> packageNames) {
+		if (description == null || packageNames.isEmpty()) {
+			return false;
+		}
+		for (QualifiedName importedName : description.getImportedNames()) {
+			for (QualifiedName packageName : packageNames) {
+				if (importedName.getSegmentCount() > packageName.getSegmentCount() && importedName.startsWith(packageName)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Whether one of the files that the previous run generated for the given resource is missing, e.g. because it was
+	 * deleted. These are the Java files of its top level types, their trace files and its storage file.
+	 */
+	private boolean isOutputMissing(Resource resource, /* @Nullable */ IResourceDescription oldDescription) {
+		if (oldDescription == null) {
+			return true;
+		}
+		File outputDirectory = getOutputPathFile();
+		for (QualifiedName typeName : getTopLevelTypeNames(oldDescription)) {
+			String javaFileName = typeName.toString("/") + ".java";
+			if (!new File(outputDirectory, javaFileName).isFile()) {
+				return true;
+			}
+			if (writeTraceFiles && !new File(outputDirectory, traceFileNameProvider.getTraceFromJava(javaFileName)).isFile()) {
+				return true;
+			}
+		}
+		if ((isWriteStorageFiles() || isReuseStorageFiles()) && resource instanceof StorageAwareResource) {
+			StorageAwareResource storageAwareResource = (StorageAwareResource) resource;
+			return !storageAwareResource.getResourceStorageFacade().hasStorageFor(resource.getURI());
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the names of the exported types that are not nested in another exported type.
+	 */
+	private List<QualifiedName> getTopLevelTypeNames(IResourceDescription description) {
+		List<QualifiedName> typeNames = newArrayList();
+		for (IEObjectDescription type : description.getExportedObjectsByType(TypesPackage.Literals.JVM_DECLARED_TYPE)) {
+			typeNames.add(type.getQualifiedName());
+		}
+		List<QualifiedName> result = newArrayList();
+		for (QualifiedName typeName : typeNames) {
+			boolean nested = false;
+			for (QualifiedName other : typeNames) {
+				if (other.getSegmentCount() < typeName.getSegmentCount() && typeName.startsWith(other)) {
+					nested = true;
+					break;
+				}
+			}
+			if (!nested) {
+				result.add(typeName);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Reads the state of the previous run. Returns <code>null</code> if there is none or if it was computed for a
+	 * different configuration.
+	 */
+	/* @Nullable */
+	private IncrementalBuildState loadBuildState(String configurationFingerprint) {
+		IncrementalBuildState result = IncrementalBuildState.load(getBuildStateFile());
+		if (result != null && !configurationFingerprint.equals(result.getConfigurationFingerprint())) {
+			log.info("The compiler configuration has changed, performing a full build.");
+			return null;
+		}
+		return result;
+	}
+
+	/**
+	 * Marks all sources whose content has changed since the previous run as source level resources. All other
+	 * resources are loaded from their storage files if these exist.
+	 */
+	private void installSourceLevelURIs(ResourceSet resourceSet, /* @Nullable */ IncrementalBuildState previousBuildState) {
+		Set<URI> sourceLevelURIs = newLinkedHashSet();
+		List<URI> xtendFiles = findXtendFiles();
+		for (URI uri : xtendFiles) {
+			if (previousBuildState == null || !uri.isFile()) {
+				sourceLevelURIs.add(uri);
+				continue;
+			}
+			try {
+				String contentHash = IncrementalBuildState.hash(new File(uri.toFileString()));
+				if (!contentHash.equals(previousBuildState.getContentHash(uri))) {
+					sourceLevelURIs.add(uri);
+				}
+			} catch (IOException e) {
+				sourceLevelURIs.add(uri);
+			}
+		}
+		if (log.isDebugEnabled()) {
+			log.debug((xtendFiles.size() - sourceLevelURIs.size()) + " unchanged source files may be loaded from storage.");
+		}
+		SourceLevelURIsAdapter.setSourceLevelUris(resourceSet, sourceLevelURIs);
+	}
+
+	private boolean isLoadedFromStorage(Resource resource) {
+		return resource instanceof StorageAwareResource && ((StorageAwareResource) resource).isLoadedFromStorage();
+	}
+
+	/**
+	 * Loads a resource that was loaded from its storage file again from its source, since it is affected by a change.
+	 */
+	private void reloadFromSource(Resource resource) {
+		ResourceSet resourceSet = resource.getResourceSet();
+		SourceLevelURIsAdapter adapter = SourceLevelURIsAdapter.findInstalledAdapter(resourceSet);
+		Set<URI> sourceLevelURIs = newLinkedHashSet();
+		if (adapter != null) {
+			sourceLevelURIs.addAll(adapter.getSourceLevelURIs());
+		}
+		sourceLevelURIs.add(resource.getURI());
+		SourceLevelURIsAdapter.setSourceLevelUris(resourceSet, sourceLevelURIs);
+		if (log.isDebugEnabled()) {
+			log.debug("reload xtend file '" + resource.getURI() + "' from source");
+		}
+		resource.unload();
+		try {
+			resource.load(resourceSet.getLoadOptions());
+		} catch (IOException e) {
+			throw new WrappedException(e);
+		}
+	}
+
+	/**
+	 * Deletes the generated Java and trace files of types that have been exported by a previous run but are no longer
+	 * exported by the same source file.
+	 */
+	private void deleteObsoleteOutputs(List<IResourceDescription.Delta> deltas) {
+		JavaIoFileSystemAccess fileSystemAccess = javaIoFileSystemAccessProvider.get();
+		fileSystemAccess.setOutputPath(outputPath);
+		for (IResourceDescription.Delta delta : deltas) {
+			if (delta.getOld() == null) {
+				continue;
+			}
+			Set<QualifiedName> remainingTypes = newHashSet();
+			if (delta.getNew() != null) {
+				for (IEObjectDescription type : delta.getNew().getExportedObjectsByType(TypesPackage.Literals.JVM_DECLARED_TYPE)) {
+					remainingTypes.add(type.getQualifiedName());
+				}
+			}
+			for (IEObjectDescription type : delta.getOld().getExportedObjectsByType(TypesPackage.Literals.JVM_DECLARED_TYPE)) {
+				if (!remainingTypes.contains(type.getQualifiedName())) {
+					String javaFileName = type.getQualifiedName().toString("/") + ".java";
+					if (log.isDebugEnabled()) {
+						log.debug("delete obsolete file '" + javaFileName + "'");
+					}
+					fileSystemAccess.deleteFile(javaFileName);
+					fileSystemAccess.deleteFile(traceFileNameProvider.getTraceFromJava(javaFileName));
+				}
+			}
+		}
+	}
+
+	/* @Nullable */
+	private String computeContentHash(Resource resource) {
+		URI uri = resource.getURI();
+		if (!uri.isFile()) {
+			return null;
+		}
+		try {
+			return IncrementalBuildState.hash(new File(uri.toFileString()));
+		} catch (IOException e) {
+			log.warn("Unable to compute the content hash of '" + uri + "'", e);
+			return null;
+		}
+	}
+
+	/**
+	 * Computes a fingerprint of the environment of the compilation, i.e. the settings of the compiler, its paths and the
+	 * contents of the jars and class directories on the class path. Source directories on the class path are not
+	 * stamped, since they change with every edit. Changed Java sources are handled per file by
+	 * {@link #computeAffectedResources(ResourceSet, String, IncrementalBuildState)}.
+	 */
+	private String computeConfigurationFingerprint() {
+		Hasher hasher = Hashing.md5().newHasher();
+		for (String value : asList(classPath, bootClassPath, sourcePath, outputPath, fileEncoding, getJavaSourceVersion(),
+				getGeneratedAnnotationComment())) {
+			hasher.putString(emptyIfNull(value), Charsets.UTF_8).putChar('\0');
+		}
+		hasher.putBoolean(isGenerateSyntheticSuppressWarnings())
+			.putBoolean(isGenerateGeneratedAnnotation())
+			.putBoolean(isIncludeDateInGeneratedAnnotation())
+			.putBoolean(writeTraceFiles)
+			.putBoolean(writeStorageFiles);
+		for (String entry : concat(getBootClassPathEntries(), getBinaryClassPathEntries())) {
+			ClassPathStamps.put(hasher, new File(entry));
+		}
+		return hasher.hash().toString();
+	}
+
+	/**
+	 * @since 2.13
+	 */
+	protected File getBuildStateFile() {
+		return new File(getOutputPathFile(), BUILD_STATE_FILE_NAME);
+	}
+
 	/**
 	 * Installs the complete JvmTypeProvider including index access into the {@link ResourceSet}. The lookup classpath
 	 * is enhanced with the given tmp directory.
@@ -711,14 +1726,26 @@ public class XtendBatchCompiler {
 	 * Performs the actual installation of the JvmTypeProvider.
 	 */
 	private void internalInstallJvmTypeProvider(ResourceSet resourceSet, File tmpClassDirectory, boolean skipIndexLookup) {
-		Iterable<String> classPathEntries = concat(getClassPathEntries(), getSourcePathDirectories(),
-				asList(tmpClassDirectory.toString()));
-		classPathEntries = filter(classPathEntries, new Predicate<String>() {
-			@Override
-			public boolean apply(String input) {
-				return !Strings.isEmpty(input.trim());
-			}
-		});
+		internalInstallJvmTypeProvider(resourceSet, asList(tmpClassDirectory.toString()), null, skipIndexLookup);
+	}
+
+	/**
+	 * Installs the JvmTypeProvider that looks up the classes compiled in memory.
+	 */
+	private void internalInstallJvmTypeProvider(ResourceSet resourceSet, InMemoryClassStore classStore, boolean skipIndexLookup) {
+		internalInstallJvmTypeProvider(resourceSet, Collections.<String>emptyList(), classStore, skipIndexLookup);
+	}
+
+	private void internalInstallJvmTypeProvider(ResourceSet resourceSet, List<String> tmpClassPathEntries,
+			/* @Nullable */ InMemoryClassStore classStore, boolean skipIndexLookup) {
+		Iterable<String> stableClassPathEntries = filter(concat(getClassPathEntries(), getSourcePathDirectories()),
+				new Predicate<String>() {
+					@Override
+					public boolean apply(String input) {
+						return !Strings.isEmpty(input.trim());
+					}
+				});
+		Iterable<String> classPathEntries = concat(stableClassPathEntries, tmpClassPathEntries);
 		
 		Iterable<File> classpath = transform(classPathEntries, TO_FILE);
 		if (log.isDebugEnabled()) {
@@ -728,22 +1755,76 @@ public class XtendBatchCompiler {
 		if (useCurrentClassLoaderAsParent) {
 			parentClassLoader = currentClassLoader;
 		} else {
-			if (isEmpty(bootClassPath)) {
-				parentClassLoader = ClassLoader.getSystemClassLoader().getParent();
-			} else {
-				Iterable<File> bootClassPathEntries = transform(getBootClassPathEntries(), TO_FILE);
-				parentClassLoader = new AlternateJdkLoader(bootClassPathEntries);
-			}
+			parentClassLoader = createBootClassLoader();
 		}
 		jvmTypesClassLoader = createClassLoader(classpath, parentClassLoader);
-		new ClasspathTypeProvider(jvmTypesClassLoader, resourceSet, skipIndexLookup ? null : indexedJvmTypeAccess, null);
+		if (classStore != null) {
+			jvmTypesClassLoader = classStore.createClassLoader(jvmTypesClassLoader);
+		}
+		IndexedJvmTypeAccess typeAccess = skipIndexLookup ? null : indexedJvmTypeAccess;
+		if (Strings.isEmpty(jvmTypeCacheDirectory) && sharedJvmTypeCache == null) {
+			new ClasspathTypeProvider(jvmTypesClassLoader, resourceSet, typeAccess, null);
+		} else {
+			File cacheDirectory = Strings.isEmpty(jvmTypeCacheDirectory) ? null : new File(jvmTypeCacheDirectory);
+			new CachingClasspathTypeProvider(jvmTypesClassLoader, resourceSet, typeAccess, null, cacheDirectory,
+					sharedJvmTypeCache);
+		}
 		((XtextResourceSet) resourceSet).setClasspathURIContext(jvmTypesClassLoader);
 
 		// for annotation processing we need to have the compiler's classpath as a parent.
+		if (isReuseProcessorClassLoaders() && classStore == null) {
+			releaseCachedProcessorClassLoader(resourceSet);
+			// the source directories change with every edit and the temporary class directory is new in every run, so
+			// they are loaded by a child of the cached class loader
+			final List<String> binaryClassPathEntries = getBinaryClassPathEntries();
+			Iterable<String> volatileClassPathEntries = filter(classPathEntries, new Predicate<String>() {
+				@Override
+				public boolean apply(String input) {
+					return !binaryClassPathEntries.contains(input);
+				}
+			});
+			cachedProcessorClassLoader = processorClassLoaderCache.acquire(
+					newArrayList(transform(transform(binaryClassPathEntries, TO_FILE), TO_URL)), currentClassLoader);
+			annotationProcessingClassLoader = createClassLoader(transform(volatileClassPathEntries, TO_FILE),
+					cachedProcessorClassLoader);
+			cachedProcessorClassloaderAdapter = new ProcessorInstanceForJvmTypeProvider.ProcessorClassloaderAdapter(
+					annotationProcessingClassLoader);
+			resourceSet.eAdapters().add(cachedProcessorClassloaderAdapter);
+			return;
+		}
 		annotationProcessingClassLoader = createClassLoader(classpath, currentClassLoader);
+		if (classStore != null) {
+			annotationProcessingClassLoader = classStore.createClassLoader(annotationProcessingClassLoader);
+		}
 		resourceSet.eAdapters().add(new ProcessorInstanceForJvmTypeProvider.ProcessorClassloaderAdapter(annotationProcessingClassLoader));
 	}
+
+	/**
+	 * Closes the class loader for the temporary class directory and hands its parent, that was acquired from the
+	 * {@link ProcessorClassLoaderCache}, back to the cache. The adapter is removed from the given resource set, so it
+	 * does not shadow a new one.
+	 */
+	private void releaseCachedProcessorClassLoader(/* @Nullable */ ResourceSet resourceSet) {
+		if (cachedProcessorClassloaderAdapter != null) {
+			if (resourceSet != null) {
+				resourceSet.eAdapters().remove(cachedProcessorClassloaderAdapter);
+			}
+			cachedProcessorClassloaderAdapter.discard();
+			cachedProcessorClassloaderAdapter = null;
+			annotationProcessingClassLoader = null;
+			processorClassLoaderCache.release(cachedProcessorClassLoader);
+			cachedProcessorClassLoader = null;
+		}
+	}
 	
+	private ClassLoader createBootClassLoader() {
+		if (isEmpty(bootClassPath)) {
+			return ClassLoader.getSystemClassLoader().getParent();
+		}
+		Iterable<File> bootClassPathEntries = transform(getBootClassPathEntries(), TO_FILE);
+		return new AlternateJdkLoader(bootClassPathEntries);
+	}
+
 	private static final Function<String, File> TO_FILE = new Function<String, File>() {
 		@Override
 		public File apply(String from) {
@@ -797,21 +1878,139 @@ public class XtendBatchCompiler {
 	}
 
 	protected void generateJavaFiles(ResourceSet resourceSet) {
-		JavaIoFileSystemAccess javaIoFileSystemAccess = javaIoFileSystemAccessProvider.get();
+		JavaIoFileSystemAccess javaIoFileSystemAccess = createOutputFileSystemAccess();
+		generateJavaFiles(resourceSet.getResources(), javaIoFileSystemAccess);
+		reportWrittenFiles(javaIoFileSystemAccess);
+	}
+
+	private JavaIoFileSystemAccess createOutputFileSystemAccess() {
+		JavaIoFileSystemAccess javaIoFileSystemAccess = isSkipUnchangedFiles() ? changeAwareFileSystemAccessProvider.get()
+				: javaIoFileSystemAccessProvider.get();
 		javaIoFileSystemAccess.setOutputPath(outputPath);
 		javaIoFileSystemAccess.setWriteTrace(writeTraceFiles);
+		return javaIoFileSystemAccess;
+	}
 
+	private void generateJavaFiles(Iterable<Resource> resources, JavaIoFileSystemAccess javaIoFileSystemAccess) {
 		GeneratorContext context = new GeneratorContext();
 		context.setCancelIndicator(CancelIndicator.NullImpl);
-		for (Resource resource : newArrayList(resourceSet.getResources())) {
-			if (isSourceFile(resource)) {
-				if (isWriteStorageFiles()) {
-					StorageAwareResource storageAwareResource = (StorageAwareResource)resource;
-					storageAwareResource.getResourceStorageFacade().saveResource(storageAwareResource, javaIoFileSystemAccess);
+		List<Resource> sourceResources = Lists.newArrayList(filter(resources, new Predicate<Resource>() {
+			@Override
+			public boolean apply(Resource resource) {
+				return isSourceFile(resource) && isAffected(resource);
+			}
+		}));
+		// the generator resolves types and runs code generation participants, so it never runs concurrently
+		for (Resource resource : sourceResources) {
+			CompilationProfiler.Measurement measurement = beginProfiling();
+			generateJavaFiles(resource, javaIoFileSystemAccess, context);
+			endFile("generateJavaFiles", resource, measurement);
+		}
+	}
+
+	private void reportWrittenFiles(JavaIoFileSystemAccess javaIoFileSystemAccess) {
+		if (javaIoFileSystemAccess instanceof ChangeAwareFileSystemAccess) {
+			ChangeAwareFileSystemAccess changeAwareFileSystemAccess = (ChangeAwareFileSystemAccess) javaIoFileSystemAccess;
+			log.info("Wrote " + changeAwareFileSystemAccess.getWrittenFiles() + " files, skipped "
+					+ changeAwareFileSystemAccess.getSkippedFiles() + " unchanged files.");
+		}
+	}
+
+	/**
+	 * Resolves, validates and generates the source resources in shards of {@link #getShardSize()} resources. All
+	 * source resources are unloaded after the stubs were compiled and an index of their exported objects is installed
+	 * instead, so only the resources of the current shard and the ones they look up are loaded. All source resources
+	 * are unloaded again after each shard. The issues of all shards are reported, but once a shard had errors no further
+	 * files are generated.
+	 * 
+	 * @return <code>true</code> if there were no errors.
+	 */
+	private boolean validateAndGenerateSharded(ResourceSet resourceSet) {
+		List<Resource> sourceResources = Lists.newArrayList(filter(resourceSet.getResources(), new Predicate<Resource>() {
+			@Override
+			public boolean apply(Resource resource) {
+				return isSourceFile(resource);
+			}
+		}));
+		ShardedCompilationPlan plan = new ShardedCompilationPlan(sourceResources);
+		ResourceDescriptionsData.ResourceSetAdapter.installResourceDescriptionsData(resourceSet,
+				plan.createIndex(resourceDescriptionManager));
+		for (Resource resource : sourceResources) {
+			resource.unload();
+		}
+		JavaIoFileSystemAccess javaIoFileSystemAccess = createOutputFileSystemAccess();
+		boolean hasErrors = false;
+		shardStatistics = new ShardStatistics();
+		for (List<Resource> shard : plan.getShards(getShardSize())) {
+			CompilationProfiler.Measurement measurement = beginProfiling();
+			for (Resource resource : shard) {
+				load(resource);
+			}
+			endPhase("loadXtendFiles", measurement);
+			measurement = beginProfiling();
+			for (Resource resource : shard) {
+				if (isAffected(resource)) {
+					resolveAll(resource);
 				}
-				generator.generate(resource, javaIoFileSystemAccess, context);
 			}
+			endPhase("resolveAll", measurement);
+			measurement = beginProfiling();
+			List<Issue> issues = validate(shard);
+			endPhase("validate", measurement);
+			Iterable<Issue> errors = Iterables.filter(issues, SeverityFilter.ERROR);
+			Iterable<Issue> warnings = Iterables.filter(issues, SeverityFilter.WARNING);
+			reportIssues(Iterables.concat(errors, warnings));
+			hasErrors |= !Iterables.isEmpty(errors);
+			if (!hasErrors) {
+				measurement = beginProfiling();
+				generateJavaFiles(shard, javaIoFileSystemAccess);
+				endPhase("generateJavaFiles", measurement);
+			}
+			Set<Resource> shardResources = newHashSet(shard);
+			int loaded = 0;
+			int loadedOnDemand = 0;
+			for (Resource resource : sourceResources) {
+				if (resource.isLoaded()) {
+					loaded++;
+					if (!shardResources.contains(resource)) {
+						loadedOnDemand++;
+					}
+					resource.unload();
+				}
+			}
+			shardStatistics.shardProcessed(loaded, loadedOnDemand);
+		}
+		if (log.isDebugEnabled()) {
+			log.debug("Sharded compilation: " + shardStatistics);
 		}
+		reportWrittenFiles(javaIoFileSystemAccess);
+		return !hasErrors;
+	}
+
+	/**
+	 * Loads an unloaded source resource again, with the same options as a demand load through the resource set.
+	 */
+	private void load(Resource resource) {
+		if (!resource.isLoaded()) {
+			try {
+				resource.load(resource.getResourceSet().getLoadOptions());
+			} catch (IOException e) {
+				throw new WrappedException(e);
+			}
+		}
+	}
+
+	/**
+	 * Generates the Java files and, if enabled, the storage file for a single source resource.
+	 * 
+	 * @since 2.13
+	 */
+	protected void generateJavaFiles(Resource resource, IFileSystemAccess2 fileSystemAccess, GeneratorContext context) {
+		if (isWriteStorageFiles() || isIncremental() && isReuseStorageFiles()) {
+			StorageAwareResource storageAwareResource = (StorageAwareResource)resource;
+			storageAwareResource.getResourceStorageFacade().saveResource(storageAwareResource, fileSystemAccess);
+		}
+		generator.generate(resource, fileSystemAccess, context);
 	}
 
 	protected ResourceSetBasedResourceDescriptions getResourceDescriptions(ResourceSet resourceSet) {
@@ -838,6 +2037,20 @@ public class XtendBatchCompiler {
 		return getDirectories(classPath);
 	}
 
+	/**
+	 * Returns the class path entries that are not source directories, i.e. the jars and class directories. Their
+	 * contents do not change if a source file is edited.
+	 */
+	private List<String> getBinaryClassPathEntries() {
+		final Set<String> sourcePathDirectories = newHashSet(getSourcePathDirectories());
+		return newArrayList(filter(getClassPathEntries(), new Predicate<String>() {
+			@Override
+			public boolean apply(String input) {
+				return !Strings.isEmpty(input.trim()) && !sourcePathDirectories.contains(input);
+			}
+		}));
+	}
+
 	/**
 	 * @since 2.7
 	 */
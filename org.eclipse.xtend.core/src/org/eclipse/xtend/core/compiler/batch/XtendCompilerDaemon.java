@@ -0,0 +1,375 @@
+/*******************************************************************************
+ * Copyright (c) 2017 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtend.core.compiler.batch;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import org.apache.log4j.Logger;
+import org.apache.log4j.PatternLayout;
+import org.apache.log4j.WriterAppender;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.BaseEncoding;
+import com.google.inject.Injector;
+
+/**
+ * A long-lived compiler process that keeps the injector and the JIT state alive between compilations. Compile
+ * requests are accepted on a local socket. A request consists of the command line arguments of {@link Main}, one per
+ * line, followed by an empty line. The daemon answers with the log output of the compilation followed by a line that
+ * carries the exit code.
+ *
+ * Every request has to start with a secret token that the daemon writes to a token file only readable by the current
+ * user, so other users of the machine can neither run compilations nor write files with the daemon's permissions.
+ *
+ * Class loaders for the classpath are reused across requests as long as the fingerprint of the classpath, i.e. the
+ * entries and the size and modification time of all files in them, is unchanged. Therefore the stubs are always
+ * compiled in memory.
+ *
+ * @since 2.13
+ */
+public class XtendCompilerDaemon {
+
+	private static final Logger log = Logger.getLogger(XtendCompilerDaemon.class);
+
+	static final String EXIT_CODE_PREFIX = "#xtend-exit-code:";
+
+	static final String SHUTDOWN = "-shutdown";
+
+	static final String INVALID_TOKEN = "Rejected a request with an invalid token.";
+
+	private static final int CLASS_LOADER_CACHE_SIZE = 8;
+
+	private static final int TOKEN_LENGTH = 32;
+
+	private static final Set<String> PATH_OPTIONS = ImmutableSet.of("-d", "-tempdir", "-td", "-typeCache", "-profile");
+
+	private static final Set<String> CLASSPATH_OPTIONS = ImmutableSet.of("-classpath", "-cp");
+
+	private static final Set<String> VALUE_OPTIONS = ImmutableSet.of("-encoding", "-javaSourceVersion",
+			"-generateAnnotationComment", "-threads", "-shardSize");
+
+	private final Injector injector;
+
+	private final Cache<String, URLClassLoader> classLoaders = CacheBuilder.newBuilder()
+			.maximumSize(CLASS_LOADER_CACHE_SIZE)
+			.removalListener(new RemovalListener<String, URLClassLoader>() {
+				@Override
+				public void onRemoval(RemovalNotification<String, URLClassLoader> notification) {
+					try {
+						notification.getValue().close();
+					} catch (IOException e) {
+						log.warn("Unable to close a classloader", e);
+					}
+				}
+			}).build();
+
+	public XtendCompilerDaemon(Injector injector) {
+		this.injector = injector;
+	}
+
+	/**
+	 * Serves compile requests on the given port of the loopback interface until a shutdown request is received.
+	 *
+	 * @see #getDefaultTokenFile(int)
+	 */
+	public void serve(int port) throws IOException {
+		ServerSocket serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+		serve(serverSocket, getDefaultTokenFile(serverSocket.getLocalPort()));
+	}
+
+	/**
+	 * Serves compile requests on the given socket until a shutdown request is received. The token that clients have
+	 * to send is written to the given file, which is deleted when the daemon stops.
+	 */
+	public void serve(ServerSocket serverSocket, File tokenFile) throws IOException {
+		try {
+			byte[] token = createToken(tokenFile);
+			try {
+				log.info("Xtend compiler daemon listening on port " + serverSocket.getLocalPort());
+				boolean running = true;
+				while (running) {
+					Socket socket = serverSocket.accept();
+					try {
+						running = handle(socket, token);
+					} catch (IOException e) {
+						log.warn("Unable to handle a compile request", e);
+					} finally {
+						socket.close();
+					}
+				}
+			} finally {
+				Files.deleteIfExists(tokenFile.toPath());
+			}
+		} finally {
+			classLoaders.invalidateAll();
+			serverSocket.close();
+		}
+	}
+
+	/**
+	 * The file that a daemon on the given port stores its token in, i.e. {@code ~/.xtend/daemon-<port>.token}.
+	 */
+	public static File getDefaultTokenFile(int port) {
+		return new File(new File(System.getProperty("user.home"), ".xtend"), "daemon-" + port + ".token");
+	}
+
+	/**
+	 * Writes a new random token to the given file. The file is created with owner-only permissions where the file
+	 * system supports them and is moved into place atomically, so clients never read a partial token.
+	 */
+	private byte[] createToken(File tokenFile) throws IOException {
+		byte[] random = new byte[TOKEN_LENGTH];
+		new SecureRandom().nextBytes(random);
+		byte[] token = BaseEncoding.base16().encode(random).getBytes(Charsets.UTF_8);
+		Path directory = tokenFile.getAbsoluteFile().getParentFile().toPath();
+		Path tmpFile;
+		if (directory.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+			Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+			tmpFile = Files.createTempFile(directory, tokenFile.getName(), ".tmp", PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+		} else {
+			Files.createDirectories(directory);
+			tmpFile = Files.createTempFile(directory, tokenFile.getName(), ".tmp");
+		}
+		try {
+			Files.write(tmpFile, token);
+			Files.move(tmpFile, tokenFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(tmpFile);
+		}
+		return token;
+	}
+
+	private boolean handle(Socket socket, byte[] token) throws IOException {
+		BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), Charsets.UTF_8));
+		Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), Charsets.UTF_8));
+		String receivedToken = in.readLine();
+		if (receivedToken == null || !MessageDigest.isEqual(token, receivedToken.getBytes(Charsets.UTF_8))) {
+			log.warn(INVALID_TOKEN);
+			out.write("ERROR " + INVALID_TOKEN + "\n");
+			out.write(EXIT_CODE_PREFIX + 1 + "\n");
+			out.flush();
+			return true;
+		}
+		List<String> arguments = Lists.newArrayList();
+		String line = in.readLine();
+		while (line != null && !line.isEmpty()) {
+			arguments.add(line);
+			line = in.readLine();
+		}
+		if (arguments.size() == 1 && SHUTDOWN.equals(arguments.get(0))) {
+			out.write(EXIT_CODE_PREFIX + 0 + "\n");
+			out.flush();
+			return false;
+		}
+		int exitCode = compile(arguments, out);
+		out.write(EXIT_CODE_PREFIX + exitCode + "\n");
+		out.flush();
+		return true;
+	}
+
+	/**
+	 * The class loaders that are currently cached for reuse by later requests.
+	 *
+	 * @noreference This method is not intended to be referenced by clients. Only for testing.
+	 */
+	public Collection<URLClassLoader> getCachedClassLoaders() {
+		return ImmutableSet.copyOf(classLoaders.asMap().values());
+	}
+
+	/**
+	 * Runs a single compilation and writes its log output to the given writer.
+	 *
+	 * @return the exit code
+	 */
+	protected int compile(List<String> arguments, Writer out) {
+		WriterAppender appender = new WriterAppender(new PatternLayout("%-5p %m%n"), out);
+		appender.setImmediateFlush(true);
+		Logger rootLogger = Logger.getRootLogger();
+		rootLogger.addAppender(appender);
+		try {
+			CachingBatchCompiler compiler = injector.getInstance(CachingBatchCompiler.class);
+			compiler.classLoaders = classLoaders;
+			compiler.setCompileStubsInMemory(true);
+			Main.configure(compiler, arguments.iterator());
+			return compiler.compile() ? 0 : 1;
+		} catch (Exception e) {
+			log.error(e.getMessage(), e);
+			return 1;
+		} finally {
+			rootLogger.removeAppender(appender);
+		}
+	}
+
+	/**
+	 * Forwards the given arguments to the daemon that listens on the given port and prints its output.
+	 *
+	 * @return the exit code of the compilation
+	 * @see #getDefaultTokenFile(int)
+	 */
+	public static int connect(int port, List<String> arguments, PrintStream out) throws IOException {
+		return connect(port, getDefaultTokenFile(port), arguments, out);
+	}
+
+	/**
+	 * Forwards the given arguments to the daemon that listens on the given port and prints its output. The request is
+	 * authenticated with the token from the given file.
+	 *
+	 * @return the exit code of the compilation
+	 */
+	public static int connect(int port, File tokenFile, List<String> arguments, PrintStream out) throws IOException {
+		if (!tokenFile.isFile()) {
+			throw new IOException("The token file " + tokenFile + " does not exist. Is the daemon running?");
+		}
+		String token = new String(Files.readAllBytes(tokenFile.toPath()), Charsets.UTF_8).trim();
+		Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+		try {
+			Writer writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), Charsets.UTF_8));
+			writer.write(token);
+			writer.write('\n');
+			for (String argument : toAbsolutePaths(arguments)) {
+				writer.write(argument);
+				writer.write('\n');
+			}
+			writer.write('\n');
+			writer.flush();
+			BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), Charsets.UTF_8));
+			String line = in.readLine();
+			while (line != null) {
+				if (line.startsWith(EXIT_CODE_PREFIX)) {
+					return Integer.parseInt(line.substring(EXIT_CODE_PREFIX.length()));
+				}
+				out.println(line);
+				line = in.readLine();
+			}
+			throw new IOException("The connection to the Xtend compiler daemon was closed unexpectedly.");
+		} finally {
+			socket.close();
+		}
+	}
+
+	/**
+	 * The daemon does not share the working directory of the client, so all paths are made absolute before they are
+	 * sent.
+	 */
+	private static List<String> toAbsolutePaths(List<String> arguments) {
+		List<String> result = Lists.newArrayListWithCapacity(arguments.size());
+		for (int i = 0; i < arguments.size(); i++) {
+			String argument = arguments.get(i).trim();
+			result.add(argument);
+			if (PATH_OPTIONS.contains(argument) && i + 1 < arguments.size()) {
+				result.add(new File(arguments.get(++i).trim()).getAbsolutePath());
+			} else if (CLASSPATH_OPTIONS.contains(argument) && i + 1 < arguments.size()) {
+				List<String> entries = Lists.newArrayList();
+				for (String entry : Splitter.on(File.pathSeparator).omitEmptyStrings().split(arguments.get(++i).trim())) {
+					entries.add(new File(entry).getAbsolutePath());
+				}
+				result.add(Joiner.on(File.pathSeparator).join(entries));
+			} else if (VALUE_OPTIONS.contains(argument) && i + 1 < arguments.size()) {
+				result.add(arguments.get(++i).trim());
+			} else if (!argument.startsWith("-")) {
+				result.set(result.size() - 1, new File(argument).getAbsolutePath());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * A batch compiler that obtains the class loaders for the classpath from the daemon's cache.
+	 */
+	static class CachingBatchCompiler extends XtendBatchCompiler {
+
+		private Cache<String, URLClassLoader> classLoaders;
+
+		@Override
+		protected ClassLoader createClassLoader(final Iterable<File> jarsAndFolders, final ClassLoader parentClassLoader) {
+			if (!isShareable(parentClassLoader)) {
+				return super.createClassLoader(jarsAndFolders, parentClassLoader);
+			}
+			try {
+				return classLoaders.get(getFingerprint(jarsAndFolders, parentClassLoader), new Callable<URLClassLoader>() {
+					@Override
+					public URLClassLoader call() throws Exception {
+						return createURLClassLoader(jarsAndFolders, parentClassLoader);
+					}
+				});
+			} catch (ExecutionException e) {
+				throw new RuntimeException(e.getCause());
+			}
+		}
+
+		private URLClassLoader createURLClassLoader(Iterable<File> jarsAndFolders, ClassLoader parentClassLoader) {
+			return (URLClassLoader) super.createClassLoader(jarsAndFolders, parentClassLoader);
+		}
+
+		/**
+		 * Only class loaders with a parent that is the same for every request can be reused.
+		 */
+		private boolean isShareable(ClassLoader parentClassLoader) {
+			return parentClassLoader == currentClassLoader || parentClassLoader == ClassLoader.getSystemClassLoader().getParent();
+		}
+
+		/**
+		 * Directories are stamped recursively, so e.g. recompiling a class in the output directory of another module
+		 * yields a new class loader instead of one that still holds the stale class.
+		 */
+		private String getFingerprint(Iterable<File> jarsAndFolders, ClassLoader parentClassLoader) {
+			Hasher hasher = Hashing.md5().newHasher();
+			hasher.putInt(System.identityHashCode(parentClassLoader));
+			for (File file : jarsAndFolders) {
+				ClassPathStamps.put(hasher, file.getAbsoluteFile());
+			}
+			return hasher.hash().toString();
+		}
+
+		@Override
+		protected void destroyClassLoader(ClassLoader classLoader) {
+			if (classLoader == null || isCached(classLoader) || isCached(classLoader.getParent())) {
+				return;
+			}
+			super.destroyClassLoader(classLoader);
+		}
+
+		private boolean isCached(ClassLoader classLoader) {
+			return classLoader instanceof URLClassLoader && Iterables.contains(classLoaders.asMap().values(), classLoader);
+		}
+	}
+
+}
@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (c) 2017 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtend.core.macro
+
+import java.util.Map
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
+import org.eclipse.emf.common.notify.impl.AdapterImpl
+import org.eclipse.emf.ecore.resource.Resource
+import org.eclipse.emf.ecore.resource.ResourceSet
+
+/**
+ * Accumulates the time that is spent in the active annotation processors, per processor type. The times are only
+ * recorded for resources whose resource set has an instance of this adapter installed.
+ * 
+ * @since 2.13
+ */
+class ActiveAnnotationTimings extends AdapterImpl {
+
+	val Map<String, AtomicLong> nanos = new ConcurrentHashMap
+
+	def static ActiveAnnotationTimings installNew(ResourceSet resourceSet) {
+		resourceSet.eAdapters.removeAll(resourceSet.eAdapters.filter(ActiveAnnotationTimings).toList)
+		val result = new ActiveAnnotationTimings
+		resourceSet.eAdapters += result
+		return result
+	}
+
+	def static ActiveAnnotationTimings find(Resource resource) {
+		val resourceSet = resource?.resourceSet
+		if (resourceSet === null)
+			return null
+		return resourceSet.eAdapters.filter(ActiveAnnotationTimings).head
+	}
+
+	def void record(Object processor, long elapsedNanos) {
+		val name = processor.class.name
+		var total = nanos.get(name)
+		if (total === null) {
+			nanos.putIfAbsent(name, new AtomicLong)
+			total = nanos.get(name)
+		}
+		total.addAndGet(elapsedNanos)
+	}
+
+	/**
+	 * The accumulated time in nanoseconds, keyed by the name of the processor class.
+	 */
+	def Map<String, Long> getTimes() {
+		val result = <String, Long>newHashMap
+		for (entry : nanos.entrySet) {
+			result.put(entry.key, entry.value.get)
+		}
+		return result
+	}
+
+	override isAdapterForType(Object type) {
+		return type === ActiveAnnotationTimings
+	}
+
+}
@@ -8,26 +8,34 @@
 
 package org.eclipse.xtend.core.macro
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder
 import com.google.inject.Inject
 import com.google.inject.Provider
+import com.google.inject.Singleton
+import java.util.Collections
+import java.util.Set
 import java.util.concurrent.CancellationException
-import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.ScheduledFuture
+import java.util.concurrent.TimeUnit
+import org.apache.log4j.Logger
+import org.eclipse.xtend.core.macro.declaration.CompilationUnitImpl
 import org.eclipse.xtend.core.xtend.XtendMember
+import org.eclipse.xtend.core.xtend.XtendParameter
+import org.eclipse.xtend.lib.annotations.Accessors
 import org.eclipse.xtend.lib.macro.RegisterGlobalsParticipant
 import org.eclipse.xtend.lib.macro.TransformationParticipant
+import org.eclipse.xtend.lib.macro.ValidationParticipant
 import org.eclipse.xtend.lib.macro.declaration.MutableNamedElement
 import org.eclipse.xtend.lib.macro.declaration.NamedElement
 import org.eclipse.xtext.util.CancelIndicator
 import org.eclipse.xtext.util.internal.Stopwatches
 import org.eclipse.xtext.xbase.jvmmodel.IJvmDeclaredTypeAcceptor
-import org.eclipse.xtend.core.xtend.XtendParameter
-import org.eclipse.xtend.lib.macro.ValidationParticipant
-import java.util.concurrent.ExecutorService
-import java.util.concurrent.Executors
-import com.google.inject.Singleton
-import org.eclipse.xtend.lib.annotations.Accessors
-import java.util.concurrent.RejectedExecutionException
-import org.apache.log4j.Logger
 
 /**
  * It checks whether the files contain macro annotations and calls their register and processing functions.
@@ -123,51 +131,224 @@ class AnnotationProcessor {
 	}
 	
 	/**
-	 * runs the given runnable and another thread in parallel, that sets the timeout property on the compilation unit to true
-	 * when the given amount of milliseconds have passed by.
+	 * runs the given runnable and cancels it when the given cancel indicator is canceled or when the processor exceeded
+	 * its timeout. A timeout only cancels this processor and is reported with an {@link IllegalStateException}.
 	 */
-	private def runWithCancelIndiciator(ActiveAnnotationContext ctx, CancelIndicator cancelIndicator, Runnable runnable) {
-		val AtomicBoolean isFinished = new AtomicBoolean(false)
-		cancellationObserver.monitorUntil(ctx, cancelIndicator, [isFinished.get])
+	private def Object runWithCancelIndiciator(ActiveAnnotationContext ctx, CancelIndicator cancelIndicator, Runnable runnable) {
+		val monitor = cancellationObserver.monitor(ctx.compilationUnit, cancelIndicator)
+		val timings = ActiveAnnotationTimings.find(ctx.compilationUnit.xtendFile.eResource)
+		val start = System.nanoTime
+		ctx.compilationUnit.processorCancelIndicator = monitor
 		try {
 			runnable.run
 		} catch (CancellationException e) {
 		} finally {
-			isFinished.set(true)
+			ctx.compilationUnit.processorCancelIndicator = null
+			monitor.stop
+			timings?.record(ctx.processorInstance, System.nanoTime - start)
+		}
+		if (monitor.timedOut) {
+			throw new IllegalStateException('''The annotation processor ctx.processorInstance.class.name did not finish within cancellationObserver.processorTimeout ms.''')
 		}
+		return null
 	}
 	
+	/**
+	 * Watches the running annotation processors. A single scheduled task checks all of them periodically, so running a
+	 * processor does not occupy a thread of its own. A processor is canceled if its cancel indicator is canceled or if it
+	 * runs longer than the {@link #getProcessorTimeout() processor timeout}.
+	 */
 	@Singleton
 	protected static class CancellationObserver {
-		private static final Logger log = Logger.getLogger(CancellationObserver)
+		static val log = Logger.getLogger(CancellationObserver)
+		
+		/**
+		 * The system property that specifies the default processor timeout in milliseconds.
+		 * 
+		 * @since 2.13
+		 */
+		public static val PROCESSOR_TIMEOUT_PROPERTY = "xtend.processorTimeout"
+		
+		static val CHECK_INTERVAL_MILLIS = 50L
+		
+		val Set<ProcessorMonitor> running = Collections.newSetFromMap(new ConcurrentHashMap)
+		
+		volatile long processorTimeout = Long.getLong(PROCESSOR_TIMEOUT_PROPERTY, 0L)
+		
+		@Accessors(PROTECTED_GETTER)
+		ScheduledExecutorService watchdog = initWatchdog()
+		
+		ScheduledFuture<?> check
 		
+		/**
+		 * @deprecated the processors are watched by the {@link #getWatchdog() watchdog}
+		 */
+		@Deprecated
 		@Accessors(PROTECTED_GETTER)
-		private ExecutorService pool = initPool()
+		ExecutorService pool = initPool()
 		
+		/**
+		 * @deprecated the processors are watched by the {@link #getWatchdog() watchdog}
+		 */
+		@Deprecated
 		protected def ExecutorService initPool() {
 			return Executors.newCachedThreadPool();
 		}
-	
-		def monitorUntil(ActiveAnnotationContext ctx, CancelIndicator cancelIndicator, ()=>boolean isFinished) {
-			val Runnable r = [
-				while (!isFinished.apply) {
-					if (cancelIndicator.canceled) {
-						ctx.compilationUnit.canceled = true
-						return;
+		
+		/**
+		 * @since 2.13
+		 */
+		protected def ScheduledExecutorService initWatchdog() {
+			val threadFactory = new ThreadFactoryBuilder().setNameFormat("AnnotationProcessor-watchdog").setDaemon(true)
+			return Executors.newSingleThreadScheduledExecutor(threadFactory.build)
+		}
+		
+		/**
+		 * @since 2.13
+		 */
+		def long getProcessorTimeout() {
+			processorTimeout
+		}
+		
+		/**
+		 * Sets the time in milliseconds an annotation processor may spend in a single phase of a single file before it
+		 * is canceled. Cancellation takes effect the next time the processor uses the compilation unit. A value of zero or
+		 * less disables the timeout. Defaults to the value of the system property {@value #PROCESSOR_TIMEOUT_PROPERTY}.
+		 * 
+		 * @since 2.13
+		 */
+		def void setProcessorTimeout(long processorTimeout) {
+			this.processorTimeout = processorTimeout
+		}
+		
+		/**
+		 * Starts to watch a processor. The returned monitor has to be {@link ProcessorMonitor#stop() stopped} when the
+		 * processor returned.
+		 * 
+		 * @since 2.13
+		 */
+		def ProcessorMonitor monitor(CompilationUnitImpl compilationUnit, CancelIndicator cancelIndicator) {
+			val timeout = processorTimeout
+			if (cancelIndicator === CancelIndicator.NullImpl && timeout <= 0) {
+				// nothing to watch
+				return new ProcessorMonitor(compilationUnit, cancelIndicator, 0, null)
+			}
+			val result = new ProcessorMonitor(compilationUnit, cancelIndicator, TimeUnit.MILLISECONDS.toNanos(timeout), this)
+			register(result)
+			return result
+		}
+		
+		/**
+		 * Marks the compilation unit of the given context as canceled when the given cancel indicator is canceled before
+		 * the processor is finished.
+		 * 
+		 * @return always <code>null</code>
+		 * @deprecated use {@link #monitor(CompilationUnitImpl, CancelIndicator)} instead
+		 */
+		@Deprecated
+		def Future<?> monitorUntil(ActiveAnnotationContext ctx, CancelIndicator cancelIndicator, ()=>boolean isFinished) {
+			val monitor = new ProcessorMonitor(ctx.compilationUnit, cancelIndicator, 0, this) {
+				override check() {
+					if (isFinished.apply) {
+						stop
+					} else {
+						super.check
 					}
-					Thread.sleep(100)
 				}
-			]
-			try {
-				pool.submit(r)
-			} catch(RejectedExecutionException e) {
-				log.debug(e.message, e)
-				// fallback to a fresh thread
-				new Thread(r).start
+			}
+			register(monitor)
+			return null
+		}
+		
+		protected def synchronized void register(ProcessorMonitor monitor) {
+			running += monitor
+			if (check === null) {
+				try {
+					check = watchdog.scheduleWithFixedDelay([checkRunning], CHECK_INTERVAL_MILLIS, CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)
+				} catch(RejectedExecutionException e) {
+					log.debug(e.message, e)
+					// fallback to a fresh watchdog
+					watchdog = initWatchdog()
+					check = watchdog.scheduleWithFixedDelay([checkRunning], CHECK_INTERVAL_MILLIS, CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)
+				}
+			}
+		}
+		
+		protected def synchronized void unregister(ProcessorMonitor monitor) {
+			running -= monitor
+			if (running.empty && check !== null) {
+				check.cancel(false)
+				check = null
+			}
+		}
+		
+		protected def void checkRunning() {
+			for (monitor : running) {
+				try {
+					monitor.check
+				} catch (Throwable t) {
+					// an exception would suppress all subsequent checks
+					log.error(t.message, t)
+				}
 			}
 		}
 	
 	}
 	
+	/**
+	 * The state of a running annotation processor that is watched by the {@link CancellationObserver}. It is the cancel
+	 * indicator of the processor, so a timeout does not affect the other processors of the compilation unit. If the
+	 * given cancel indicator is canceled, the whole compilation unit is canceled.
+	 * 
+	 * @since 2.13
+	 */
+	protected static class ProcessorMonitor implements CancelIndicator {
+		val CompilationUnitImpl compilationUnit
+		val CancelIndicator cancelIndicator
+		val long timeoutNanos
+		val long start = System.nanoTime
+		val CancellationObserver observer
+		volatile boolean canceled = false
+		volatile boolean timedOut = false
+		
+		new(CompilationUnitImpl compilationUnit, CancelIndicator cancelIndicator, long timeoutNanos, CancellationObserver observer) {
+			this.compilationUnit = compilationUnit
+			this.cancelIndicator = cancelIndicator
+			this.timeoutNanos = timeoutNanos
+			this.observer = observer
+		}
+		
+		/**
+		 * Cancels the processor if its cancel indicator is canceled or if it exceeded its timeout.
+		 */
+		def void check() {
+			if (cancelIndicator.canceled) {
+				cancel
+			} else if (timeoutNanos > 0 && System.nanoTime - start > timeoutNanos) {
+				timedOut = true
+				canceled = true
+			}
+		}
+		
+		override boolean isCanceled() {
+			if (!canceled && cancelIndicator.canceled) {
+				cancel
+			}
+			return canceled
+		}
+		
+		private def void cancel() {
+			canceled = true
+			compilationUnit?.canceled = true
+		}
+		
+		def boolean isTimedOut() {
+			timedOut
+		}
+		
+		def void stop() {
+			observer?.unregister(this)
+		}
+	}
+	
 }
-
@@ -0,0 +1,271 @@
+/*******************************************************************************
+ * Copyright (c) 2017 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtend.core.macro;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.inject.Singleton;
+
+/**
+ * Keeps the class loaders for active annotation processors alive across builds, so processor classes are not loaded,
+ * verified and compiled by the JIT again as long as their classpath did not change.
+ *
+ * A class loader is reused for the same URLs and parent if the fingerprint of the classpath is unchanged. Jars and the
+ * files in directories are fingerprinted by their size and modification time, so temporary directories that are
+ * recreated by every build must not be part of a cached classpath. Class loaders are reference counted: a class loader that is
+ * {@link #acquire(List, ClassLoader) acquired} has to be {@link #release(ClassLoader) released} when the build is done.
+ * Unused class loaders are closed if they are outdated or if more than {@link #getMaximumUnusedClassLoaders()} of them
+ * are kept, least recently used first.
+ *
+ * @since 2.13
+ */
+@Singleton
+public class ProcessorClassLoaderCache {
+
+	private static final Logger logger = Logger.getLogger(ProcessorClassLoaderCache.class);
+
+	private static class Key {
+		private final List<URL> urls;
+		private final ClassLoader parent;
+		private final String fingerprint;
+
+		private Key(List<URL> urls, ClassLoader parent, String fingerprint) {
+			this.urls = urls;
+			this.parent = parent;
+			this.fingerprint = fingerprint;
+		}
+
+		private boolean hasSameClassPath(Key other) {
+			return parent == other.parent && urls.toString().equals(other.urls.toString());
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return hasSameClassPath(other) && fingerprint.equals(other.fingerprint);
+		}
+
+		@Override
+		public int hashCode() {
+			return urls.toString().hashCode() * 31 + fingerprint.hashCode();
+		}
+	}
+
+	private static class Entry {
+		private final Key key;
+		private final ClassLoader classLoader;
+		private final long creation;
+		private int references;
+
+		private Entry(Key key, ClassLoader classLoader, long creation) {
+			this.key = key;
+			this.classLoader = classLoader;
+			this.creation = creation;
+		}
+	}
+
+	/**
+	 * The cached class loaders in the order of their last use.
+	 */
+	private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+
+	private final Map<ClassLoader, Entry> entriesByClassLoader = new IdentityHashMap<ClassLoader, Entry>();
+
+	private int maximumUnusedClassLoaders = 4;
+
+	private long creations = 0;
+
+	public synchronized int getMaximumUnusedClassLoaders() {
+		return maximumUnusedClassLoaders;
+	}
+
+	public synchronized void setMaximumUnusedClassLoaders(int maximumUnusedClassLoaders) {
+		this.maximumUnusedClassLoaders = maximumUnusedClassLoaders;
+		evictUnused();
+	}
+
+	/**
+	 * Returns a class loader for the given URLs and parent and increments its reference count. A cached class loader
+	 * is returned if the classpath did not change since it was created.
+	 */
+	public ClassLoader acquire(List<URL> urls, ClassLoader parent) {
+		Key key = new Key(ImmutableList.copyOf(urls), parent, getFingerprint(urls));
+		synchronized (this) {
+			Entry entry = entries.get(key);
+			if (entry == null) {
+				evictOutdated(key);
+				entry = new Entry(key, createClassLoader(urls, parent), creations++);
+				entries.put(key, entry);
+				entriesByClassLoader.put(entry.classLoader, entry);
+			}
+			entry.references++;
+			return entry.classLoader;
+		}
+	}
+
+	/**
+	 * Decrements the reference count of the given class loader. Class loaders that were not acquired from this cache
+	 * are ignored.
+	 */
+	public synchronized void release(ClassLoader classLoader) {
+		Entry entry = entriesByClassLoader.get(classLoader);
+		if (entry == null || entry.references == 0) {
+			return;
+		}
+		entry.references--;
+		if (entry.references == 0) {
+			if (isOutdated(entry)) {
+				remove(entry);
+			} else {
+				evictUnused();
+			}
+		}
+	}
+
+	/**
+	 * Closes all class loaders that are not in use.
+	 */
+	public synchronized void clear() {
+		Iterator<Entry> iterator = entries.values().iterator();
+		while (iterator.hasNext()) {
+			Entry entry = iterator.next();
+			if (entry.references == 0) {
+				iterator.remove();
+				entriesByClassLoader.remove(entry.classLoader);
+				close(entry.classLoader);
+			}
+		}
+	}
+
+	protected ClassLoader createClassLoader(List<URL> urls, ClassLoader parent) {
+		return new URLClassLoader(urls.toArray(new URL[urls.size()]), parent);
+	}
+
+	/**
+	 * Computes the fingerprint of the given classpath. Class loaders are only reused for the same fingerprint.
+	 */
+	protected String getFingerprint(List<URL> urls) {
+		Hasher hasher = Hashing.md5().newHasher();
+		for (URL url : urls) {
+			File file = toFile(url);
+			if (file != null) {
+				putFingerprint(hasher, file);
+			}
+		}
+		return hasher.hash().toString();
+	}
+
+	private void putFingerprint(Hasher hasher, File file) {
+		if (file.isDirectory()) {
+			File[] children = file.listFiles();
+			if (children != null) {
+				Arrays.sort(children);
+				for (File child : children) {
+					hasher.putString(child.getName(), Charsets.UTF_8);
+					putFingerprint(hasher, child);
+				}
+			}
+		} else {
+			hasher.putLong(file.length()).putLong(file.lastModified());
+		}
+	}
+
+	/* @Nullable */
+	private File toFile(URL url) {
+		if (!"file".equals(url.getProtocol())) {
+			return null;
+		}
+		try {
+			return new File(url.toURI());
+		} catch (URISyntaxException e) {
+			return new File(url.getPath());
+		} catch (IllegalArgumentException e) {
+			return new File(url.getPath());
+		}
+	}
+
+	/**
+	 * An entry is outdated if there is a more recent class loader for the same classpath.
+	 */
+	private boolean isOutdated(Entry entry) {
+		for (Entry other : entries.values()) {
+			if (other.creation > entry.creation && other.key.hasSameClassPath(entry.key)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void evictOutdated(Key key) {
+		Iterator<Entry> iterator = entries.values().iterator();
+		while (iterator.hasNext()) {
+			Entry entry = iterator.next();
+			if (entry.references == 0 && entry.key.hasSameClassPath(key)) {
+				iterator.remove();
+				entriesByClassLoader.remove(entry.classLoader);
+				close(entry.classLoader);
+			}
+		}
+	}
+
+	private void evictUnused() {
+		int unused = 0;
+		for (Entry entry : entries.values()) {
+			if (entry.references == 0) {
+				unused++;
+			}
+		}
+		Iterator<Entry> iterator = entries.values().iterator();
+		while (unused > maximumUnusedClassLoaders && iterator.hasNext()) {
+			Entry entry = iterator.next();
+			if (entry.references == 0) {
+				iterator.remove();
+				entriesByClassLoader.remove(entry.classLoader);
+				close(entry.classLoader);
+				unused--;
+			}
+		}
+	}
+
+	private void remove(Entry entry) {
+		entries.remove(entry.key);
+		entriesByClassLoader.remove(entry.classLoader);
+		close(entry.classLoader);
+	}
+
+	private void close(ClassLoader classLoader) {
+		if (classLoader instanceof Closeable) {
+			try {
+				((Closeable) classLoader).close();
+			} catch (IOException e) {
+				logger.error(e.getMessage(), e);
+			}
+		}
+	}
+
+}
@@ -11,10 +11,12 @@ import com.google.inject.Singleton
 import java.io.Closeable
 import java.io.IOException
 import java.net.URLClassLoader
+import java.util.Map
 import org.apache.log4j.Logger
 import org.eclipse.emf.common.notify.Notifier
 import org.eclipse.emf.common.notify.impl.AdapterImpl
 import org.eclipse.emf.ecore.EObject
+import org.eclipse.emf.ecore.resource.ResourceSet
 import org.eclipse.xtend.lib.annotations.Accessors
 import org.eclipse.xtend.lib.macro.TransformationContext
 import org.eclipse.xtext.common.types.JvmType
@@ -26,6 +28,20 @@ import java.net.URL
 class ProcessorInstanceForJvmTypeProvider {
 	static val logger = Logger.getLogger(ProcessorInstanceForJvmTypeProvider)
 	
+	/**
+	 * The processors of the library's active annotations, which do not keep any state between the invocations of their
+	 * methods. A single instance of such a processor is created per resource set and is shared by all files.
+	 * @since 2.13
+	 */
+	public static val BUILT_IN_STATELESS_PROCESSORS = #{
+		'org.eclipse.xtend.lib.annotations.AccessorsProcessor',
+		'org.eclipse.xtend.lib.annotations.DataProcessor',
+		'org.eclipse.xtend.lib.annotations.DelegateProcessor',
+		'org.eclipse.xtend.lib.annotations.EqualsHashCodeProcessor',
+		'org.eclipse.xtend.lib.annotations.FinalFieldsConstructorProcessor',
+		'org.eclipse.xtend.lib.annotations.ToStringProcessor'
+	}
+	
 	@Accessors public static class ProcessorClassloaderAdapter extends AdapterImpl {
 		var ClassLoader classLoader
 		
@@ -62,18 +78,75 @@ class ProcessorInstanceForJvmTypeProvider {
 	
 	
 	
+	/**
+	 * Holds the instances of the {@link ProcessorInstanceForJvmTypeProvider#isStateless(Class) stateless} processors of a
+	 * resource set, keyed by their class and thereby by their class loader.
+	 * @since 2.13
+	 */
+	static class ProcessorInstanceRegistry extends AdapterImpl {
+		val Map<Class<?>, Object> instances = newHashMap
+		
+		def static ProcessorInstanceRegistry findOrInstall(ResourceSet resourceSet) {
+			val existing = resourceSet.eAdapters.filter(ProcessorInstanceRegistry).head
+			if (existing !== null) {
+				return existing
+			}
+			val result = new ProcessorInstanceRegistry
+			resourceSet.eAdapters += result
+			return result
+		}
+		
+		def Object getInstance(Class<?> processorClass) {
+			var result = instances.get(processorClass)
+			if (result === null) {
+				result = processorClass.newInstance
+				instances.put(processorClass, result)
+			}
+			return result
+		}
+		
+		override isAdapterForType(Object type) {
+			type == ProcessorInstanceRegistry
+		}
+	}
+	
 	/**
 	 * @return an instance of the given JvmType
 	 */
 	def Object getProcessorInstance(JvmType type) {
 		try {
 			val loadClass = type.classLoader?.loadClass(type.identifier)
-			return loadClass?.newInstance
+			if (loadClass === null) {
+				return null
+			}
+			return instantiate(loadClass, type)
 		} catch (Exception e) {
 			throw new IllegalStateException("Problem during instantiation of "+type.identifier+" : "+e.getMessage, e);
 		}
 	}
 	
+	/**
+	 * Creates a new instance of the given processor class, or returns the instance that was created before for the
+	 * same resource set if the processor is {@link #isStateless(Class) stateless}.
+	 * @since 2.13
+	 */
+	def protected Object instantiate(Class<?> processorClass, JvmType type) {
+		val resourceSet = type.eResource?.resourceSet
+		if (resourceSet !== null && processorClass.isStateless) {
+			return ProcessorInstanceRegistry.findOrInstall(resourceSet).getInstance(processorClass)
+		}
+		return processorClass.newInstance
+	}
+	
+	/**
+	 * Whether a single instance of the given processor class may be shared by all files of a resource set. By default
+	 * this is only true for the {@link #BUILT_IN_STATELESS_PROCESSORS built-in processors}.
+	 * @since 2.13
+	 */
+	def protected boolean isStateless(Class<?> processorClass) {
+		BUILT_IN_STATELESS_PROCESSORS.contains(processorClass.name)
+	}
+	
 	def protected getClassLoader(EObject ctx) {
 		val resourceSet = ctx.eResource.resourceSet
 		val adapter = resourceSet.eAdapters.filter(ProcessorClassloaderAdapter).head
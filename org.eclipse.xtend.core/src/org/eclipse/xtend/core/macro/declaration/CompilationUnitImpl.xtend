@@ -116,6 +116,7 @@ import org.eclipse.xtext.naming.IQualifiedNameConverter
 import org.eclipse.xtext.naming.IQualifiedNameProvider
 import org.eclipse.xtext.resource.CompilerPhases
 import org.eclipse.xtext.scoping.IScopeProvider
+import org.eclipse.xtext.util.CancelIndicator
 import org.eclipse.xtext.util.Strings
 import org.eclipse.xtext.validation.EObjectDiagnosticImpl
 import org.eclipse.xtext.xbase.XExpression
@@ -168,15 +169,35 @@ class CompilationUnitImpl implements CompilationUnit {
 
 	volatile boolean canceled = false
 	
+	val processorCancelIndicator = new ThreadLocal<CancelIndicator>
+	
 	def setCanceled(boolean canceled) {
 		this.canceled = canceled
 	}
 	
+	/**
+	 * Sets the cancel indicator of the processor that runs on the current thread, so a processor can be canceled
+	 * without canceling the other processors of this compilation unit. <code>null</code> removes it.
+	 * 
+	 * @since 2.13
+	 */
+	def void setProcessorCancelIndicator(CancelIndicator cancelIndicator) {
+		if (cancelIndicator === null)
+			processorCancelIndicator.remove
+		else
+			processorCancelIndicator.set(cancelIndicator)
+	}
+	
 	def checkCanceled() {
-		if (canceled)
+		if (canceled || isProcessorCanceled)
 			throw new CancellationException("compilation was canceled.")
 	}
 	
+	def private boolean isProcessorCanceled() {
+		val cancelIndicator = processorCancelIndicator.get
+		return cancelIndicator !== null && cancelIndicator.canceled
+	}
+	
 	@Inject TypesFactory typesFactory
 	
 	@Inject CompilerPhases compilerPhases;
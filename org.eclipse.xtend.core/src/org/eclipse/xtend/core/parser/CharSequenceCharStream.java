@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2017 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtend.core.parser;
+
+import java.util.List;
+
+import org.antlr.runtime.CharStream;
+
+import com.google.common.collect.Lists;
+
+/**
+ * An implementation of Antlr's {@link CharStream} on top of a {@link CharSequence}. Like the {@link ReaderCharStream},
+ * it mainly funnels the text through the {@link org.eclipse.xtext.parser.antlr.AbstractAntlrParser existing API}, so
+ * that the JFlex based lexer can read it without copying it first. It is a complete char stream nevertheless, which
+ * tracks the line and the position in the line like Antlr's {@link org.antlr.runtime.ANTLRStringStream}.
+ * 
+ * @since 2.13
+ */
+public class CharSequenceCharStream implements CharStream {
+
+	private final CharSequence text;
+
+	private int position;
+
+	private int line = 1;
+
+	private int charPositionInLine;
+
+	/**
+	 * The position, line and position in the line for each marker, the marker is the index plus one.
+	 */
+	private final List<int[]> markers = Lists.newArrayList();
+
+	private int lastMarker;
+
+	public CharSequenceCharStream(CharSequence text) {
+		this.text = text;
+	}
+
+	public CharSequence getText() {
+		return text;
+	}
+
+	@Override
+	public void consume() {
+		if (position < text.length()) {
+			charPositionInLine++;
+			if (text.charAt(position) == '\n') {
+				line++;
+				charPositionInLine = 0;
+			}
+			position++;
+		}
+	}
+
+	@Override
+	public int LA(int i) {
+		if (i == 0) {
+			return 0;
+		}
+		int index = i < 0 ? position + i : position + i - 1;
+		if (index < 0 || index >= text.length()) {
+			return CharStream.EOF;
+		}
+		return text.charAt(index);
+	}
+
+	@Override
+	public int LT(int i) {
+		return LA(i);
+	}
+
+	@Override
+	public int mark() {
+		int[] state = new int[] { position, line, charPositionInLine };
+		markers.add(state);
+		lastMarker = markers.size();
+		return lastMarker;
+	}
+
+	@Override
+	public int index() {
+		return position;
+	}
+
+	@Override
+	public void rewind(int marker) {
+		int[] state = markers.get(marker - 1);
+		seek(state[0]);
+		line = state[1];
+		charPositionInLine = state[2];
+		release(marker);
+	}
+
+	@Override
+	public void rewind() {
+		rewind(lastMarker);
+	}
+
+	@Override
+	public void release(int marker) {
+		while (markers.size() >= marker && !markers.isEmpty()) {
+			markers.remove(markers.size() - 1);
+		}
+	}
+
+	/**
+	 * Moves backwards without updating the line information, like the {@link org.antlr.runtime.ANTLRStringStream}.
+	 * Callers restore it with {@link #rewind(int)}.
+	 */
+	@Override
+	public void seek(int index) {
+		if (index <= position) {
+			position = index;
+			return;
+		}
+		while (position < index && position < text.length()) {
+			consume();
+		}
+	}
+
+	@Override
+	public int size() {
+		return text.length();
+	}
+
+	@Override
+	public String getSourceName() {
+		return null;
+	}
+
+	@Override
+	public String substring(int start, int stop) {
+		return text.subSequence(start, stop + 1).toString();
+	}
+
+	@Override
+	public int getLine() {
+		return line;
+	}
+
+	@Override
+	public void setLine(int line) {
+		this.line = line;
+	}
+
+	@Override
+	public void setCharPositionInLine(int pos) {
+		this.charPositionInLine = pos;
+	}
+
+	@Override
+	public int getCharPositionInLine() {
+		return charPositionInLine;
+	}
+
+}
@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright (c) 2017 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtend.core.parser;
+
+import java.io.Reader;
+
+/**
+ * A {@link Reader} that reads the characters of a {@link CharSequence} without copying it first. Strings are read in
+ * bulk.
+ * 
+ * @since 2.13
+ */
+public class CharSequenceReader extends Reader {
+
+	private final CharSequence text;
+
+	private int position;
+
+	public CharSequenceReader(CharSequence text) {
+		this.text = text;
+	}
+
+	public CharSequence getText() {
+		return text;
+	}
+
+	@Override
+	public int read(char[] buffer, int offset, int length) {
+		if (position >= text.length()) {
+			return -1;
+		}
+		int count = Math.min(length, text.length() - position);
+		if (text instanceof String) {
+			((String) text).getChars(position, position + count, buffer, offset);
+		} else {
+			for (int i = 0; i < count; i++) {
+				buffer[offset + i] = text.charAt(position + i);
+			}
+		}
+		position += count;
+		return count;
+	}
+
+	@Override
+	public int read() {
+		if (position >= text.length()) {
+			return -1;
+		}
+		return text.charAt(position++);
+	}
+
+	@Override
+	public long skip(long n) {
+		int count = (int) Math.min(Math.max(n, 0), text.length() - position);
+		position += count;
+		return count;
+	}
+
+	@Override
+	public boolean ready() {
+		return true;
+	}
+
+	@Override
+	public void close() {
+		// nothing to do
+	}
+
+}
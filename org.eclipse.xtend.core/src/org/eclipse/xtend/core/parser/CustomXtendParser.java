@@ -12,11 +12,13 @@ import java.io.Reader;
 import org.antlr.runtime.CharStream;
 import org.antlr.runtime.TokenSource;
 import org.eclipse.xtend.core.parser.antlr.XtendParser;
+import org.eclipse.xtend.core.parser.antlr.internal.FlexTokenSource;
 import org.eclipse.xtend.core.parser.antlr.internal.FlexerFactory;
 import org.eclipse.xtext.ParserRule;
 import org.eclipse.xtext.RuleCall;
 import org.eclipse.xtext.nodemodel.impl.NodeModelBuilder;
 import org.eclipse.xtext.parser.IParseResult;
+import org.eclipse.xtext.parser.antlr.XtextTokenStream;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
@@ -34,15 +36,74 @@ public class CustomXtendParser extends XtendParser {
 	@Inject
 	private FlexerFactory flexerFactory;
 	
+	/**
+	 * The token sources of the current thread. Creating a flexer allocates its large character buffer, so each
+	 * thread reuses its token source for subsequent files. The parser itself is not reused, its DFA tables are
+	 * static already and the per-parse state of {@link org.eclipse.xtext.parser.antlr.AbstractInternalAntlrParser}
+	 * cannot be reset.
+	 */
+	private final ThreadLocal<ThreadTokenSources> tokenSources = new ThreadLocal<ThreadTokenSources>() {
+		@Override
+		protected ThreadTokenSources initialValue() {
+			return new ThreadTokenSources();
+		}
+	};
+	
+	@Override
+	protected IParseResult doParse(String ruleName, CharStream in, NodeModelBuilder nodeModelBuilder, int initialLookAhead) {
+		ThreadTokenSources threadTokenSources = tokenSources.get();
+		// a nested parse on the same thread finds no idle token source and creates its own one
+		FlexTokenSource tokenSource = threadTokenSources.idle;
+		threadTokenSources.idle = null;
+		if (tokenSource == null) {
+			tokenSource = flexerFactory.createSharedBufferTokenSource(null);
+		}
+		threadTokenSources.next = tokenSource;
+		try {
+			return super.doParse(ruleName, in, nodeModelBuilder, initialLookAhead);
+		} finally {
+			threadTokenSources.next = null;
+			// don't keep the parsed text reachable, the tokens of the result refer to it on their own
+			tokenSource.reset("");
+			threadTokenSources.idle = tokenSource;
+		}
+	}
+	
 	@Override
 	protected TokenSource createLexer(CharStream stream) {
+		ThreadTokenSources threadTokenSources = tokenSources.get();
+		FlexTokenSource tokenSource = threadTokenSources.next;
+		threadTokenSources.next = null;
 		if (stream instanceof ReaderCharStream) {
 			Reader reader = ((ReaderCharStream) stream).getReader();
-			return flexerFactory.createTokenSource(reader);
+			if (reader instanceof CharSequenceReader) {
+				return createLexer(tokenSource, ((CharSequenceReader) reader).getText());
+			}
+			if (tokenSource == null) {
+				return flexerFactory.createSharedBufferTokenSource(reader);
+			}
+			tokenSource.reset(reader);
+			return tokenSource;
+		}
+		if (stream instanceof CharSequenceCharStream) {
+			return createLexer(tokenSource, ((CharSequenceCharStream) stream).getText());
 		}
 		throw new IllegalArgumentException(stream.getClass().getName());
 	}
 	
+	private TokenSource createLexer(FlexTokenSource tokenSource, CharSequence text) {
+		if (tokenSource == null) {
+			return flexerFactory.createCharSequenceTokenSource(text);
+		}
+		tokenSource.reset(text);
+		return tokenSource;
+	}
+	
+	@Override
+	protected XtextTokenStream createTokenStream(TokenSource tokenSource) {
+		return new FlexTokenStream(tokenSource, getTokenDefProvider());
+	}
+	
 	@Override
 	public IParseResult parse(ParserRule rule, Reader reader) {
 		IParseResult parseResult = parse(rule.getName(), new ReaderCharStream(reader));
@@ -62,4 +123,36 @@ public class CustomXtendParser extends XtendParser {
 		return parseResult;
 	}
 	
+	/**
+	 * Parses the given text, e.g. a string or a decoded {@link java.nio.CharBuffer}, without copying it into another
+	 * buffer. The tokens and the node model refer to the given text, so it must not be modified afterwards.
+	 * <p>
+	 * This is an API entry point for clients that hold the text already. Resources still load their contents through
+	 * a {@link Reader}, thus neither the {@link org.eclipse.xtext.resource.XtextResource} nor the batch compiler use it.
+	 * </p>
+	 * 
+	 * @since 2.13
+	 */
+	public IParseResult doParse(CharSequence text) {
+		return parse(getDefaultRuleName(), new CharSequenceCharStream(text));
+	}
+	
+	/**
+	 * @since 2.13
+	 */
+	public IParseResult parse(ParserRule rule, CharSequence text) {
+		return parse(rule.getName(), new CharSequenceCharStream(text));
+	}
+	
+	private static class ThreadTokenSources {
+		/**
+		 * The token source that is not used by any parse of the thread.
+		 */
+		private FlexTokenSource idle;
+		/**
+		 * The token source that the next call to {@link CustomXtendParser#createLexer(CharStream)} uses.
+		 */
+		private FlexTokenSource next;
+	}
+	
 }
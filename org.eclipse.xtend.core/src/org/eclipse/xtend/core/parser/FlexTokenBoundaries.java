@@ -0,0 +1,264 @@
+/*******************************************************************************
+ * Copyright (c) 2017 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtend.core.parser;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import org.antlr.runtime.Token;
+import org.eclipse.xtend.core.parser.antlr.internal.FlexerFactory;
+
+/**
+ * The start offsets and types of all tokens of a text as produced by an {@link InternalFlexer}.
+ *
+ * The Xtend lexer has no lexical states, so it can be restarted at any token start. A modified text is therefore
+ * {@link #update(FlexerFactory, String) re-lexed} only from shortly before the first change, or from a multi-line
+ * comment that the change may close, until the new tokens line up with the old ones again, i.e. until they start at
+ * the same offset in the unchanged tail of the text.
+ *
+ * Instances are immutable.
+ *
+ * @since 2.13
+ */
+public class FlexTokenBoundaries {
+
+	/**
+	 * A token that ends before a change may still have looked at some characters behind it. Apart from the comment in
+	 * a rich string, which scans to the end of the line, and a multi-line comment, which scans to its end or to the
+	 * end of the text, the lexer never looks further ahead than this.
+	 */
+	private static final int MAX_LOOKAHEAD = 4;
+
+	private final String text;
+
+	/**
+	 * The token start offsets. Has {@code count + 1} elements, the last one is the length of the text.
+	 */
+	private final int[] starts;
+
+	private final int[] types;
+
+	private final int count;
+
+	/**
+	 * The index of the first token that was lexed by the {@link #update(FlexerFactory, String) update} that produced
+	 * this instance. Everything before is known to be unchanged.
+	 */
+	private final int firstRelexed;
+
+	/**
+	 * The index of the first token that was taken over from the previous instance behind the changed window.
+	 */
+	private final int firstReused;
+
+	/**
+	 * The index of the same token in the previous instance.
+	 */
+	private final int previousFirstReused;
+
+	protected FlexTokenBoundaries(String text, int[] starts, int[] types, int count, int firstRelexed, int firstReused,
+			int previousFirstReused) {
+		this.text = text;
+		this.starts = starts;
+		this.types = types;
+		this.count = count;
+		this.firstRelexed = firstRelexed;
+		this.firstReused = firstReused;
+		this.previousFirstReused = previousFirstReused;
+	}
+
+	/**
+	 * Lexes the complete text.
+	 */
+	public static FlexTokenBoundaries compute(FlexerFactory flexerFactory, String text) {
+		Builder builder = new Builder(text.length() / 4 + 1);
+		builder.lex(flexerFactory, text, 0, null, 0, 0);
+		return builder.build(text, 0, builder.count, builder.count);
+	}
+
+	/**
+	 * Computes the token boundaries of the given new text by re-lexing only the changed window of this text.
+	 */
+	public FlexTokenBoundaries update(FlexerFactory flexerFactory, String newText) {
+		if (text.equals(newText)) {
+			return new FlexTokenBoundaries(text, starts, types, count, count, count, count);
+		}
+		int minLength = Math.min(text.length(), newText.length());
+		int prefix = 0;
+		while (prefix < minLength && text.charAt(prefix) == newText.charAt(prefix)) {
+			prefix++;
+		}
+		int suffix = 0;
+		int maxSuffix = minLength - prefix;
+		while (suffix < maxSuffix
+				&& text.charAt(text.length() - suffix - 1) == newText.charAt(newText.length() - suffix - 1)) {
+			suffix++;
+		}
+		int restartIndex = findRestartIndex(prefix);
+		int restartOffset = starts[restartIndex];
+		Builder builder = new Builder(count + 16);
+		builder.append(starts, types, 0, restartIndex, 0);
+		int reused = builder.lex(flexerFactory, newText, restartOffset, this, restartIndex,
+				newText.length() - suffix);
+		int firstReused = builder.count;
+		if (reused >= 0) {
+			builder.append(starts, types, reused, count, newText.length() - text.length());
+		} else {
+			reused = count;
+		}
+		return builder.build(newText, restartIndex, firstReused, reused);
+	}
+
+	/**
+	 * The index of the token at which the lexer may safely restart if the text was changed at the given offset.
+	 */
+	protected int findRestartIndex(int changeOffset) {
+		int safeOffset = changeOffset - MAX_LOOKAHEAD;
+		while (safeOffset > 0) {
+			char c = text.charAt(safeOffset - 1);
+			if (c == '\n' || c == '\r') {
+				break;
+			}
+			safeOffset--;
+		}
+		// a change may close or reopen a preceding multi-line comment that is not closed before it
+		int commentStart = text.lastIndexOf("/*", changeOffset - 1);
+		if (commentStart >= 0 && commentStart < safeOffset) {
+			int commentEnd = text.indexOf("*/", commentStart + 2);
+			if (commentEnd < 0 || commentEnd + 2 > changeOffset) {
+				safeOffset = commentStart;
+			}
+		}
+		int index = Arrays.binarySearch(starts, 0, count, Math.max(safeOffset, 0));
+		if (index < 0) {
+			index = -index - 2;
+		}
+		return Math.max(index, 0);
+	}
+
+	public String getText() {
+		return text;
+	}
+
+	/**
+	 * The number of tokens.
+	 */
+	public int getTokenCount() {
+		return count;
+	}
+
+	/**
+	 * The start offset of the token with the given index. The index {@link #getTokenCount()} yields the length of
+	 * the text.
+	 */
+	public int getTokenStart(int index) {
+		return starts[index];
+	}
+
+	public int getTokenType(int index) {
+		return types[index];
+	}
+
+	/**
+	 * The index of the token that contains the given offset. Yields {@link #getTokenCount()} if the offset is at or
+	 * behind the end of the text.
+	 */
+	public int getTokenIndex(int offset) {
+		int index = Arrays.binarySearch(starts, 0, count + 1, offset);
+		if (index < 0) {
+			index = -index - 2;
+		}
+		return Math.max(index, 0);
+	}
+
+	/**
+	 * Whether the types of the first {@code previous.getTokenCount()} tokens of this instance are the ones of the
+	 * given previous instance, from which this one was {@link #update(FlexerFactory, String) updated}.
+	 */
+	public boolean startsWithSameTokenTypes(FlexTokenBoundaries previous) {
+		if (count < previous.count) {
+			return false;
+		}
+		// tokens before the re-lexed window are unchanged, tokens behind it are unchanged if they were not shifted
+		int end = firstReused == previousFirstReused ? Math.min(firstReused, previous.count) : previous.count;
+		for (int i = firstRelexed; i < end; i++) {
+			if (types[i] != previous.types[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	protected static class Builder {
+		private int[] starts;
+		private int[] types;
+		private int count;
+
+		protected Builder(int capacity) {
+			starts = new int[capacity + 1];
+			types = new int[capacity];
+		}
+
+		protected void add(int start, int type) {
+			if (count == types.length) {
+				int newCapacity = types.length * 2 + 1;
+				starts = Arrays.copyOf(starts, newCapacity + 1);
+				types = Arrays.copyOf(types, newCapacity);
+			}
+			starts[count] = start;
+			types[count] = type;
+			count++;
+		}
+
+		protected void append(int[] otherStarts, int[] otherTypes, int from, int to, int shift) {
+			for (int i = from; i < to; i++) {
+				add(otherStarts[i] + shift, otherTypes[i]);
+			}
+		}
+
+		/**
+		 * Lexes the text from the given offset. If previous boundaries are given, lexing stops as soon as a token
+		 * starts at or behind {@code unchangedFrom} at the same position as a token of the previous boundaries. The
+		 * index of that previous token is returned, or {@code -1} if the end of the text was reached.
+		 */
+		protected int lex(FlexerFactory flexerFactory, String text, int offset, FlexTokenBoundaries previous,
+				int previousIndex, int unchangedFrom) {
+			try {
+				StringReader reader = new StringReader(text);
+				reader.skip(offset);
+				InternalFlexer flexer = flexerFactory.createFlexer(reader);
+				int shift = previous != null ? previous.text.length() - text.length() : 0;
+				int token = flexer.advance();
+				while (token != Token.EOF) {
+					if (previous != null && offset >= unchangedFrom) {
+						int previousOffset = offset + shift;
+						while (previousIndex < previous.count && previous.starts[previousIndex] < previousOffset) {
+							previousIndex++;
+						}
+						if (previousIndex < previous.count && previous.starts[previousIndex] == previousOffset) {
+							return previousIndex;
+						}
+					}
+					add(offset, token);
+					offset += flexer.getTokenLength();
+					token = flexer.advance();
+				}
+				return -1;
+			} catch (IOException e) {
+				throw new RuntimeException(e); // cannot happen since StringReader doesn't throw IOException
+			}
+		}
+
+		protected FlexTokenBoundaries build(String text, int firstRelexed, int firstReused, int previousFirstReused) {
+			starts[count] = text.length();
+			return new FlexTokenBoundaries(text, starts, types, count, firstRelexed, firstReused, previousFirstReused);
+		}
+	}
+
+}
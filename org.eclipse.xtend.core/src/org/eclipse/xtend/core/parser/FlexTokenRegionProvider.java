@@ -7,48 +7,98 @@
  *******************************************************************************/
 package org.eclipse.xtend.core.parser;
 
-import java.io.IOException;
-import java.io.StringReader;
-
-import org.antlr.runtime.Token;
 import org.eclipse.xtend.core.parser.antlr.internal.FlexerFactory;
 import org.eclipse.xtext.parser.impl.TokenRegionProvider;
 import org.eclipse.xtext.util.ITextRegion;
 import org.eclipse.xtext.util.TextRegion;
 
 import com.google.inject.Inject;
+import com.google.inject.Singleton;
 
 /**
  * @author Sebastian Zarnekow - Initial contribution and API
  */
+@Singleton
 public class FlexTokenRegionProvider extends TokenRegionProvider {
 	
+	/**
+	 * The number of documents whose token boundaries are kept.
+	 */
+	private static final int CACHED_DOCUMENTS = 4;
+	
 	@Inject
 	private FlexerFactory flexerFactory;
+	
+	/**
+	 * The token boundaries of the recently requested texts, most recently used first.
+	 */
+	private final FlexTokenBoundaries[] recentTokenBoundaries = new FlexTokenBoundaries[CACHED_DOCUMENTS];
 
 	@Override
 	public ITextRegion getTokenRegion(String text, ITextRegion region) {
-		try {
-			InternalFlexer flexer = flexerFactory.createFlexer(new StringReader(text));
-			int token = flexer.advance();
-			int prevStart = 0;
-			int nextStart = flexer.getTokenLength();
-			
-			final int regionStartOffset = region.getOffset();
-			final int regionEnd = regionStartOffset + region.getLength();
-			while (token != Token.EOF && nextStart <= regionStartOffset) {
-				prevStart = nextStart;
-				token = flexer.advance();
-				nextStart += flexer.getTokenLength();
+		FlexTokenBoundaries boundaries = getTokenBoundaries(text);
+		int count = boundaries.getTokenCount();
+		final int regionStartOffset = region.getOffset();
+		final int regionEnd = regionStartOffset + region.getLength();
+		int first = boundaries.getTokenIndex(regionStartOffset);
+		int next = boundaries.getTokenIndex(regionEnd);
+		if (boundaries.getTokenStart(next) < regionEnd) {
+			next++;
+		}
+		next = Math.min(Math.max(next, first + 1), count);
+		int prevStart = boundaries.getTokenStart(first);
+		int nextStart = boundaries.getTokenStart(next);
+		return new TextRegion(prevStart, nextStart - prevStart);
+	}
+	
+	/**
+	 * The token boundaries of the given text. If the text is not cached, the boundaries of a cached text with a
+	 * similar length, i.e. presumably a previous version of the same document, are updated incrementally and replace
+	 * that entry.
+	 */
+	protected FlexTokenBoundaries getTokenBoundaries(String text) {
+		FlexTokenBoundaries previous;
+		int previousIndex;
+		synchronized (recentTokenBoundaries) {
+			previousIndex = -1;
+			for (int i = 0; i < CACHED_DOCUMENTS && recentTokenBoundaries[i] != null; i++) {
+				FlexTokenBoundaries candidate = recentTokenBoundaries[i];
+				if (candidate.getText().equals(text)) {
+					moveToFront(i, candidate);
+					return candidate;
+				}
+				if (previousIndex == -1 || lengthDelta(candidate, text) < lengthDelta(recentTokenBoundaries[previousIndex], text)) {
+					previousIndex = i;
+				}
 			}
-			while (token != Token.EOF && nextStart < regionEnd) {
-				token = flexer.advance();
-				nextStart += flexer.getTokenLength();
+			previous = previousIndex != -1 ? recentTokenBoundaries[previousIndex] : null;
+		}
+		FlexTokenBoundaries result;
+		if (previous == null) {
+			result = FlexTokenBoundaries.compute(flexerFactory, text);
+		} else {
+			result = previous.update(flexerFactory, text);
+		}
+		synchronized (recentTokenBoundaries) {
+			int index = CACHED_DOCUMENTS - 1;
+			for (int i = 0; i < CACHED_DOCUMENTS; i++) {
+				if (recentTokenBoundaries[i] == previous || recentTokenBoundaries[i] == null) {
+					index = i;
+					break;
+				}
 			}
-			return new TextRegion(prevStart, nextStart - prevStart);
-		} catch(IOException e) {
-			throw new RuntimeException(e); // cannot happen since StringReader doesn't throw IOException
+			moveToFront(index, result);
 		}
+		return result;
+	}
+	
+	private int lengthDelta(FlexTokenBoundaries boundaries, String text) {
+		return Math.abs(boundaries.getText().length() - text.length());
+	}
+	
+	private void moveToFront(int index, FlexTokenBoundaries boundaries) {
+		System.arraycopy(recentTokenBoundaries, 0, recentTokenBoundaries, 1, index);
+		recentTokenBoundaries[0] = boundaries;
 	}
 
 }
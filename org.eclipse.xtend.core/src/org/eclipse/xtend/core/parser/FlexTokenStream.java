@@ -0,0 +1,43 @@
+/*******************************************************************************
+ * Copyright (c) 2017 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtend.core.parser;
+
+import org.antlr.runtime.TokenSource;
+import org.eclipse.xtend.core.parser.antlr.internal.FlexTokenSource;
+import org.eclipse.xtext.parser.antlr.ITokenDefProvider;
+import org.eclipse.xtext.parser.antlr.XtextTokenStream;
+
+/**
+ * A token stream that answers the complete text from its {@link FlexTokenSource} rather than by concatenating the text
+ * of all tokens. The parser uses that text as the content of the node model, so the tokens don't have to create their
+ * text just for that.
+ * 
+ * @since 2.13
+ */
+public class FlexTokenStream extends XtextTokenStream {
+
+	public FlexTokenStream(TokenSource tokenSource, ITokenDefProvider tokenDefProvider) {
+		super(tokenSource, tokenDefProvider);
+	}
+
+	@Override
+	public String toString() {
+		if (p == -1) {
+			fillBuffer();
+		}
+		TokenSource tokenSource = getTokenSource();
+		if (tokenSource instanceof FlexTokenSource) {
+			String result = ((FlexTokenSource) tokenSource).getConsumedText();
+			if (result != null) {
+				return result;
+			}
+		}
+		return super.toString();
+	}
+
+}
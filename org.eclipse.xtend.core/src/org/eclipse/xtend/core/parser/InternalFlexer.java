@@ -36,6 +36,18 @@ public interface InternalFlexer {
 	 */
 	String getTokenText();
 
+	/**
+	 * Copies the text of the previously consumed token into the given array
+	 * without creating a string. The default implementation copies the
+	 * {@link #getTokenText() token text}.
+	 * 
+	 * @since 2.13
+	 */
+	default void copyTokenText(char[] destination, int destinationOffset) {
+		String text = getTokenText();
+		text.getChars(0, text.length(), destination, destinationOffset);
+	}
+
 	/**
 	 * Allows to reuse the current lexer.
 	 */
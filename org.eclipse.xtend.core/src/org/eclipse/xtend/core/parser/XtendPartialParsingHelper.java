@@ -7,14 +7,11 @@
  *******************************************************************************/
 package org.eclipse.xtend.core.parser;
 
-import java.io.IOException;
-import java.io.StringReader;
-
-import org.antlr.runtime.Token;
 import org.eclipse.xtend.core.parser.antlr.internal.FlexerFactory;
 import org.eclipse.xtext.xbase.parser.TokenSequencePreservingPartialParsingHelper;
 
 import com.google.inject.Inject;
+import com.google.inject.Singleton;
 
 /**
  * A customized partial parsing helper that falls eagerly back to a full parse
@@ -27,29 +24,34 @@ import com.google.inject.Inject;
  * 
  * @author Sebastian Zarnekow
  */
+@Singleton
 public class XtendPartialParsingHelper extends TokenSequencePreservingPartialParsingHelper {
 
 	@Inject
 	private FlexerFactory flexerFactory;
+	
+	/**
+	 * The token boundaries of the most recently checked new text. Usually that is the original text of the next edit.
+	 */
+	private volatile FlexTokenBoundaries lastTokenBoundaries;
 
 	@Override
 	protected boolean isSameTokenSequence(String originalText, String newText, int expectedLength) {
-		try {
-			InternalFlexer originalSequence = flexerFactory.createFlexer(new StringReader(originalText));
-			InternalFlexer newSequence = flexerFactory.createFlexer(new StringReader(newText));
-			int token = originalSequence.advance();
-			int newLength = 0;
-			while(token != Token.EOF) {
-				if (token != newSequence.advance()) {
-					return false;
-				}
-				newLength += newSequence.getTokenLength();
-				token = originalSequence.advance();
-			}
-			return newLength == expectedLength;
-		} catch(IOException e) {
-			throw new RuntimeException(e);
+		FlexTokenBoundaries originalBoundaries = getTokenBoundaries(originalText);
+		FlexTokenBoundaries newBoundaries = originalBoundaries.update(flexerFactory, newText);
+		lastTokenBoundaries = newBoundaries;
+		if (!newBoundaries.startsWithSameTokenTypes(originalBoundaries)) {
+			return false;
+		}
+		return newBoundaries.getTokenStart(originalBoundaries.getTokenCount()) == expectedLength;
+	}
+	
+	protected FlexTokenBoundaries getTokenBoundaries(String text) {
+		FlexTokenBoundaries result = lastTokenBoundaries;
+		if (result != null && result.getText().equals(text)) {
+			return result;
 		}
+		return FlexTokenBoundaries.compute(flexerFactory, text);
 	}
 	
 }
\ No newline at end of file
@@ -9,10 +9,12 @@ package org.eclipse.xtend.core.parser.antlr.internal;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.util.Arrays;
 
 import org.antlr.runtime.CommonToken;
 import org.antlr.runtime.Token;
 import org.antlr.runtime.TokenSource;
+import org.eclipse.xtend.core.parser.CharSequenceReader;
 import org.eclipse.xtend.core.parser.InternalFlexer;
 
 /**
@@ -20,17 +22,82 @@ import org.eclipse.xtend.core.parser.InternalFlexer;
  */
 public class FlexTokenSource implements TokenSource {
 
+	private static final boolean[] KEYWORD_TYPES = new boolean[InternalXtendParser.tokenNames.length];
+
+	/**
+	 * The interned text of the keyword types of the {@link InternalXtendParser}. Entries are filled on first use.
+	 */
+	private static final String[] KEYWORD_TEXTS = new String[InternalXtendParser.tokenNames.length];
+
+	static {
+		for (int i = 0; i < KEYWORD_TYPES.length; i++) {
+			KEYWORD_TYPES[i] = InternalXtendParser.tokenNames[i].startsWith("KW_");
+		}
+	}
+
 	private final InternalFlexer flexer;
+	private final boolean sharedBuffer;
 	private int offset;
+	private TextBuffer buffer;
 
 	protected FlexTokenSource(InternalFlexer flexer) {
+		this(flexer, false);
+	}
+
+	/**
+	 * @param sharedBuffer
+	 *            if <code>true</code>, the text of the tokens is copied into a single buffer and only turned into a
+	 *            string when it is requested. Keywords share their interned text.
+	 * @since 2.13
+	 */
+	protected FlexTokenSource(InternalFlexer flexer, boolean sharedBuffer) {
 		this.flexer = flexer;
+		this.sharedBuffer = sharedBuffer;
 		offset = 0;
+		if (sharedBuffer) {
+			buffer = new TextBuffer(null);
+		}
+	}
+
+	/**
+	 * Creates a token source that lexes the given text. The tokens create their text from it on demand.
+	 * 
+	 * @since 2.13
+	 */
+	protected FlexTokenSource(InternalFlexer flexer, CharSequence text) {
+		this(flexer, true);
+		buffer = new TextBuffer(text);
 	}
 	
 	public void reset(Reader reader) {
 		flexer.yyreset(reader);
 		offset = 0;
+		// tokens of the previous input may still be around
+		buffer = sharedBuffer ? new TextBuffer(null) : null;
+	}
+
+	/**
+	 * Lexes the given text from now on. The tokens create their text from it on demand.
+	 * 
+	 * @since 2.13
+	 */
+	public void reset(CharSequence text) {
+		flexer.yyreset(new CharSequenceReader(text));
+		offset = 0;
+		buffer = new TextBuffer(text);
+	}
+
+	/**
+	 * The complete text that was consumed so far, or <code>null</code> if the token text is not
+	 * {@link #FlexTokenSource(InternalFlexer, boolean) kept in a shared buffer}.
+	 * 
+	 * @since 2.13
+	 */
+	public String getConsumedText() {
+		if (buffer == null) {
+			return null;
+		}
+		return buffer.substring(0, offset);
 	}
 
 	@Override
@@ -41,8 +108,19 @@ public class FlexTokenSource implements TokenSource {
 				return Token.EOF_TOKEN;
 			}
 			int length = flexer.getTokenLength();
-			final String tokenText = flexer.getTokenText();
-			CommonToken result = new CommonTokenWithText(tokenText, type, Token.DEFAULT_CHANNEL, offset);
+			CommonToken result;
+			if (buffer != null) {
+				buffer.append(flexer, length);
+				String keyword = getKeywordText(type);
+				if (keyword != null) {
+					result = new CommonTokenWithText(keyword, type, Token.DEFAULT_CHANNEL, offset);
+				} else {
+					result = new SharedBufferToken(buffer, type, Token.DEFAULT_CHANNEL, offset, length);
+				}
+			} else {
+				final String tokenText = flexer.getTokenText();
+				result = new CommonTokenWithText(tokenText, type, Token.DEFAULT_CHANNEL, offset);
+			}
 			offset += length;
 			return result;
 		} catch (IOException e) {
@@ -50,6 +128,23 @@ public class FlexTokenSource implements TokenSource {
 		}
 	}
 
+	/**
+	 * The interned text of the keyword that was just consumed, or <code>null</code> if the given type is not a
+	 * keyword.
+	 */
+	protected String getKeywordText(int type) {
+		if (type < 0 || type >= KEYWORD_TYPES.length || !KEYWORD_TYPES[type]) {
+			return null;
+		}
+		String result = KEYWORD_TEXTS[type];
+		if (result == null) {
+			// keywords are lexed from string literals, so all tokens of a keyword type have the same text
+			result = buffer.substring(offset, offset + flexer.getTokenLength()).intern();
+			KEYWORD_TEXTS[type] = result;
+		}
+		return result;
+	}
+
 	@Override
 	public String getSourceName() {
 		return "FlexTokenSource";
@@ -66,4 +161,74 @@ public class FlexTokenSource implements TokenSource {
 		
 	}
 
+	/**
+	 * A token that creates its text from the {@link TextBuffer} of its token source on demand.
+	 * 
+	 * @since 2.13
+	 */
+	public static class SharedBufferToken extends CommonToken {
+
+		private static final long serialVersionUID = 1L;
+
+		private final transient TextBuffer buffer;
+
+		protected SharedBufferToken(TextBuffer buffer, int type, int channel, int offset, int length) {
+			super(null, type, channel, offset, offset + length - 1);
+			this.buffer = buffer;
+		}
+
+		@Override
+		public String getText() {
+			if (text == null && buffer != null) {
+				text = buffer.substring(start, stop + 1);
+			}
+			return text;
+		}
+
+	}
+
+	/**
+	 * The text that was consumed so far by a token source. Either the complete input text, if the token source lexes a
+	 * {@link CharSequence}, or a copy of the consumed characters.
+	 * 
+	 * @since 2.13
+	 */
+	protected static class TextBuffer {
+
+		private final CharSequence source;
+
+		private char[] chars;
+
+		private int length;
+
+		protected TextBuffer(CharSequence source) {
+			this.source = source;
+			if (source == null) {
+				chars = new char[1024];
+			}
+		}
+
+		protected void append(InternalFlexer flexer, int tokenLength) {
+			if (source != null) {
+				return;
+			}
+			if (length + tokenLength > chars.length) {
+				chars = Arrays.copyOf(chars, Math.max(chars.length * 2, length + tokenLength));
+			}
+			flexer.copyTokenText(chars, length);
+			length += tokenLength;
+		}
+
+		protected String substring(int start, int end) {
+			if (source != null) {
+				if (start == 0 && end == source.length()) {
+					return source.toString();
+				}
+				return source.subSequence(start, end).toString();
+			}
+			return new String(chars, start, end - start);
+		}
+
+	}
+
 }
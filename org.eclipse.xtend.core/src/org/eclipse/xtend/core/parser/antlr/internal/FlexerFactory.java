@@ -9,6 +9,7 @@ package org.eclipse.xtend.core.parser.antlr.internal;
 
 import java.io.Reader;
 
+import org.eclipse.xtend.core.parser.CharSequenceReader;
 import org.eclipse.xtend.core.parser.InternalFlexer;
 
 /**
@@ -21,4 +22,20 @@ public class FlexerFactory {
 	public FlexTokenSource createTokenSource(Reader reader) {
 		return new FlexTokenSource(createFlexer(reader));
 	}
+	/**
+	 * Creates a token source that keeps the token text in a shared buffer and creates strings only on demand.
+	 * 
+	 * @since 2.13
+	 */
+	public FlexTokenSource createSharedBufferTokenSource(Reader reader) {
+		return new FlexTokenSource(createFlexer(reader), true);
+	}
+	/**
+	 * Creates a token source that lexes the given text directly. The tokens create their text from it on demand.
+	 * 
+	 * @since 2.13
+	 */
+	public FlexTokenSource createCharSequenceTokenSource(CharSequence text) {
+		return new FlexTokenSource(createFlexer(new CharSequenceReader(text)), text);
+	}
 }
\ No newline at end of file
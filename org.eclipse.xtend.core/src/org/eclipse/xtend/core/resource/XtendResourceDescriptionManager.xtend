@@ -36,6 +36,13 @@ class XtendResourceDescriptionManager extends DerivedStateAwareResourceDescripti
 		return new XtendResourceDescription(resource, strategy, cache, typeResolver, nameConverter);
 	}
 	
+	/**
+	 * A resource that declares an active annotation is rebuilt on any change of a resource it depends on, since the
+	 * implementation of its processor may have changed. Its clients are only rebuilt in turn if the fingerprint of the
+	 * annotation changed.
+	 * 
+	 * @see XtendResourceDescriptionStrategy#getActiveAnnotationFingerprint(org.eclipse.xtext.common.types.JvmAnnotationType)
+	 */
 	override hasChanges(Delta delta, IResourceDescription candidate) {
 		super.hasChanges(delta, candidate) || candidate.containsActiveAnnotation
 	}
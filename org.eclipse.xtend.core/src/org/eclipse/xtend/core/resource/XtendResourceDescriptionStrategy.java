@@ -7,9 +7,18 @@
  *******************************************************************************/
 package org.eclipse.xtend.core.resource;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.xtend.core.jvmmodel.DispatchHelper;
+import org.eclipse.xtend.core.macro.XAnnotationExtensions;
 import org.eclipse.xtend.core.xtend.XtendField;
 import org.eclipse.xtend.core.xtend.XtendFunction;
 import org.eclipse.xtext.common.types.JvmAnnotationReference;
@@ -17,12 +26,21 @@ import org.eclipse.xtext.common.types.JvmAnnotationType;
 import org.eclipse.xtext.common.types.JvmField;
 import org.eclipse.xtext.common.types.JvmOperation;
 import org.eclipse.xtext.common.types.JvmType;
+import org.eclipse.xtext.parser.IParseResult;
 import org.eclipse.xtext.resource.IEObjectDescription;
 import org.eclipse.xtext.resource.IReferenceDescription;
+import org.eclipse.xtext.resource.XtextResource;
 import org.eclipse.xtext.util.IAcceptor;
+import org.eclipse.xtext.xbase.interpreter.ConstantExpressionEvaluationException;
 import org.eclipse.xtext.xbase.resource.XbaseResourceDescriptionStrategy;
 
+import com.google.common.base.Charsets;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 
@@ -32,6 +50,13 @@ import com.google.inject.Singleton;
 @Singleton
 public class XtendResourceDescriptionStrategy extends XbaseResourceDescriptionStrategy {
 
+	/**
+	 * The key of the fingerprint of an active annotation's implementation. The name is kept for compatibility: the
+	 * value is only a timestamp if the processor is not declared in an Xtend source. Otherwise it is a hash of the
+	 * sources of the annotation, the processor and the types the processor depends on.
+	 * 
+	 * @see #getActiveAnnotationFingerprint(JvmAnnotationType)
+	 */
 	public static final String ACTIVE_ANNOTATION_TIMESTAMP = "ACTIVE_ANNOTATION_TIMESTAMP";
 
 	@Inject
@@ -39,6 +64,9 @@ public class XtendResourceDescriptionStrategy extends XbaseResourceDescriptionSt
 
 	@Inject
 	private DescriptionFlags descriptionFlags;
+
+	@Inject
+	private XAnnotationExtensions annotationExtensions;
 	
 	@Override
 	public boolean createEObjectDescriptions(EObject eObject, IAcceptor<IEObjectDescription> acceptor) {
@@ -67,7 +95,78 @@ public class XtendResourceDescriptionStrategy extends XbaseResourceDescriptionSt
 		else if (eObject instanceof XtendField) 
 			addFlags(getFlags((XtendField) eObject), userData);
 		else if (eObject instanceof JvmAnnotationType && isActiveAnnotation((JvmAnnotationType) eObject))
-			userData.put(ACTIVE_ANNOTATION_TIMESTAMP, String.valueOf(System.currentTimeMillis()));
+			userData.put(ACTIVE_ANNOTATION_TIMESTAMP, getActiveAnnotationFingerprint((JvmAnnotationType) eObject));
+	}
+
+	/**
+	 * Computes a fingerprint of the given active annotation's implementation, so clients of the annotation are only
+	 * rebuilt if it really changed. The current time is used, i.e. the clients are always rebuilt, if the
+	 * {@link #getActiveAnnotationSources(JvmAnnotationType) sources} of the implementation cannot be determined.
+	 * 
+	 * @since 2.13
+	 */
+	protected String getActiveAnnotationFingerprint(JvmAnnotationType annotationType) {
+		List<Resource> sources = getActiveAnnotationSources(annotationType);
+		if (sources != null) {
+			Hasher hasher = Hashing.md5().newHasher();
+			for (Resource resource : sources) {
+				IParseResult parseResult = ((XtextResource) resource).getParseResult();
+				if (parseResult == null || parseResult.getRootNode() == null) {
+					return String.valueOf(System.currentTimeMillis());
+				}
+				hasher.putString(resource.getURI().toString(), Charsets.UTF_8);
+				hasher.putString(parseResult.getRootNode().getText(), Charsets.UTF_8);
+			}
+			return hasher.hash().toString();
+		}
+		return String.valueOf(System.currentTimeMillis());
+	}
+
+	/**
+	 * Returns the sources the implementation of the given active annotation consists of, sorted by their URI: the
+	 * source of the annotation, the source of its processor and, transitively, the sources of the types the processor
+	 * refers to. Types from the class path are not included, a change of the class path causes a full build anyway.
+	 * Returns <code>null</code> if the processor is not declared in an Xtend source or if a reference cannot be
+	 * resolved.
+	 * 
+	 * @since 2.13
+	 */
+	/* @Nullable */
+	public List<Resource> getActiveAnnotationSources(JvmAnnotationType annotationType) {
+		JvmType processorType;
+		try {
+			processorType = annotationExtensions.getProcessorType(annotationType);
+		} catch (ConstantExpressionEvaluationException e) {
+			return null;
+		}
+		if (processorType == null || processorType.eIsProxy() || !isSource(processorType.eResource())
+				|| !isSource(annotationType.eResource())) {
+			return null;
+		}
+		Map<String, Resource> result = Maps.newTreeMap();
+		result.put(annotationType.eResource().getURI().toString(), annotationType.eResource());
+		Set<Resource> visited = Sets.newHashSet();
+		Deque<Resource> pending = new ArrayDeque<Resource>();
+		pending.add(processorType.eResource());
+		while (!pending.isEmpty()) {
+			Resource resource = pending.removeFirst();
+			if (visited.add(resource)) {
+				result.put(resource.getURI().toString(), resource);
+				for (EObject target : EcoreUtil.ExternalCrossReferencer.find(resource).keySet()) {
+					if (target.eIsProxy()) {
+						return null;
+					}
+					if (isSource(target.eResource())) {
+						pending.add(target.eResource());
+					}
+				}
+			}
+		}
+		return Lists.newArrayList(result.values());
+	}
+
+	private boolean isSource(/* @Nullable */ Resource resource) {
+		return resource instanceof XtextResource;
 	}
 
 	protected void addFlags(int flags, ImmutableMap.Builder<String, String> userData) {
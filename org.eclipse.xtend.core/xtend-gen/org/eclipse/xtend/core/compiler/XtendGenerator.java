@@ -22,6 +22,7 @@ import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.xtend.core.compiler.MacroAwareStringConcatenation;
 import org.eclipse.xtend.core.macro.ActiveAnnotationContext;
 import org.eclipse.xtend.core.macro.ActiveAnnotationContexts;
+import org.eclipse.xtend.core.macro.ActiveAnnotationTimings;
 import org.eclipse.xtend.core.macro.CodeGenerationContextImpl;
 import org.eclipse.xtend.core.xtend.AnonymousClass;
 import org.eclipse.xtend.core.xtend.XtendAnnotationTarget;
@@ -116,6 +117,7 @@ public class XtendGenerator extends JvmModelGenerator implements IGenerator2 {
     if ((ctxs == null)) {
       return;
     }
+    final ActiveAnnotationTimings timings = ActiveAnnotationTimings.find(input);
     try {
       ctxs.before(ActiveAnnotationContexts.AnnotationCallback.GENERATION);
       Collection<ActiveAnnotationContext> _values = ctxs.getContexts().values();
@@ -135,7 +137,16 @@ public class XtendGenerator extends JvmModelGenerator implements IGenerator2 {
               return context.getCompilationUnit().toXtendMemberDeclaration(((XtendMember) it));
             };
             final List<MemberDeclaration> elements = ListExtensions.<XtendAnnotationTarget, MemberDeclaration>map(context.getAnnotatedSourceElements(), _function_1);
-            ((CodeGenerationParticipant<NamedElement>)processor).doGenerateCode(elements, codeGenServices);
+            final long start = System.nanoTime();
+            try {
+              ((CodeGenerationParticipant<NamedElement>)processor).doGenerateCode(elements, codeGenServices);
+            } finally {
+              if (timings!=null) {
+                long _nanoTime = System.nanoTime();
+                long _minus = (_nanoTime - start);
+                timings.record(processor, _minus);
+              }
+            }
           }
         } catch (final Throwable _t) {
           if (_t instanceof Throwable) {
@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) 2017 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.xtend.core.macro;
+
+import com.google.common.collect.Iterables;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.xtext.xbase.lib.CollectionLiterals;
+import org.eclipse.xtext.xbase.lib.IterableExtensions;
+
+/**
+ * Accumulates the time that is spent in the active annotation processors, per processor type. The times are only
+ * recorded for resources whose resource set has an instance of this adapter installed.
+ * 
+ * @since 2.13
+ */
+@SuppressWarnings("all")
+public class ActiveAnnotationTimings extends AdapterImpl {
+  private final Map<String, AtomicLong> nanos = new ConcurrentHashMap<String, AtomicLong>();
+  
+  public static ActiveAnnotationTimings installNew(final ResourceSet resourceSet) {
+    resourceSet.eAdapters().removeAll(IterableExtensions.<ActiveAnnotationTimings>toList(Iterables.<ActiveAnnotationTimings>filter(resourceSet.eAdapters(), ActiveAnnotationTimings.class)));
+    final ActiveAnnotationTimings result = new ActiveAnnotationTimings();
+    EList<Adapter> _eAdapters = resourceSet.eAdapters();
+    _eAdapters.add(result);
+    return result;
+  }
+  
+  public static ActiveAnnotationTimings find(final Resource resource) {
+    ResourceSet _resourceSet = null;
+    if (resource!=null) {
+      _resourceSet=resource.getResourceSet();
+    }
+    final ResourceSet resourceSet = _resourceSet;
+    if ((resourceSet == null)) {
+      return null;
+    }
+    return IterableExtensions.<ActiveAnnotationTimings>head(Iterables.<ActiveAnnotationTimings>filter(resourceSet.eAdapters(), ActiveAnnotationTimings.class));
+  }
+  
+  public void record(final Object processor, final long elapsedNanos) {
+    final String name = processor.getClass().getName();
+    AtomicLong total = this.nanos.get(name);
+    if ((total == null)) {
+      AtomicLong _atomicLong = new AtomicLong();
+      this.nanos.putIfAbsent(name, _atomicLong);
+      total = this.nanos.get(name);
+    }
+    total.addAndGet(elapsedNanos);
+  }
+  
+  /**
+   * The accumulated time in nanoseconds, keyed by the name of the processor class.
+   */
+  public Map<String, Long> getTimes() {
+    final HashMap<String, Long> result = CollectionLiterals.<String, Long>newHashMap();
+    Set<Map.Entry<String, AtomicLong>> _entrySet = this.nanos.entrySet();
+    for (final Map.Entry<String, AtomicLong> entry : _entrySet) {
+      result.put(entry.getKey(), Long.valueOf(entry.getValue().get()));
+    }
+    return result;
+  }
+  
+  @Override
+  public boolean isAdapterForType(final Object type) {
+    return (type == ActiveAnnotationTimings.class);
+  }
+}
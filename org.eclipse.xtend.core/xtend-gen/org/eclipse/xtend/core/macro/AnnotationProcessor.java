@@ -7,18 +7,25 @@
  */
 package org.eclipse.xtend.core.macro;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import org.apache.log4j.Logger;
 import org.eclipse.xtend.core.macro.ActiveAnnotationContext;
+import org.eclipse.xtend.core.macro.ActiveAnnotationTimings;
 import org.eclipse.xtend.core.macro.RegisterGlobalsContextImpl;
 import org.eclipse.xtend.core.macro.TransformationContextImpl;
 import org.eclipse.xtend.core.macro.ValidationContextImpl;
@@ -35,6 +42,7 @@ import org.eclipse.xtend.lib.macro.declaration.Declaration;
 import org.eclipse.xtend.lib.macro.declaration.Element;
 import org.eclipse.xtend.lib.macro.declaration.MutableNamedElement;
 import org.eclipse.xtend.lib.macro.declaration.NamedElement;
+import org.eclipse.xtend2.lib.StringConcatenation;
 import org.eclipse.xtext.util.CancelIndicator;
 import org.eclipse.xtext.util.internal.Stopwatches;
 import org.eclipse.xtext.xbase.jvmmodel.IJvmDeclaredTypeAcceptor;
@@ -51,53 +59,166 @@ import org.eclipse.xtext.xbase.lib.Pure;
  */
 @SuppressWarnings("all")
 public class AnnotationProcessor {
+  /**
+   * Watches the running annotation processors. A single scheduled task checks all of them periodically, so running a
+   * processor does not occupy a thread of its own. A processor is canceled if its cancel indicator is canceled or if it
+   * runs longer than the {@link #getProcessorTimeout() processor timeout}.
+   */
   @Singleton
   protected static class CancellationObserver {
     private final static Logger log = Logger.getLogger(AnnotationProcessor.CancellationObserver.class);
     
+    /**
+     * The system property that specifies the default processor timeout in milliseconds.
+     * 
+     * @since 2.13
+     */
+    public final static String PROCESSOR_TIMEOUT_PROPERTY = "xtend.processorTimeout";
+    
+    private final static long CHECK_INTERVAL_MILLIS = 50L;
+    
+    private final Set<AnnotationProcessor.ProcessorMonitor> running = Collections.<AnnotationProcessor.ProcessorMonitor>newSetFromMap(new ConcurrentHashMap<AnnotationProcessor.ProcessorMonitor, Boolean>());
+    
+    private volatile long processorTimeout = (Long.getLong(AnnotationProcessor.CancellationObserver.PROCESSOR_TIMEOUT_PROPERTY, 0L)).longValue();
+    
+    @Accessors(AccessorType.PROTECTED_GETTER)
+    private ScheduledExecutorService watchdog = this.initWatchdog();
+    
+    private ScheduledFuture<?> check;
+    
+    /**
+     * @deprecated the processors are watched by the {@link #getWatchdog() watchdog}
+     */
+    @Deprecated
     @Accessors(AccessorType.PROTECTED_GETTER)
     private ExecutorService pool = this.initPool();
     
+    /**
+     * @since 2.13
+     */
+    protected ScheduledExecutorService initWatchdog() {
+      final ThreadFactoryBuilder threadFactory = new ThreadFactoryBuilder().setNameFormat("AnnotationProcessor-watchdog").setDaemon(true);
+      return Executors.newSingleThreadScheduledExecutor(threadFactory.build());
+    }
+    
+    /**
+     * @deprecated the processors are watched by the {@link #getWatchdog() watchdog}
+     */
+    @Deprecated
     protected ExecutorService initPool() {
       return Executors.newCachedThreadPool();
     }
     
+    /**
+     * @since 2.13
+     */
+    public long getProcessorTimeout() {
+      return this.processorTimeout;
+    }
+    
+    /**
+     * Sets the time in milliseconds an annotation processor may spend in a single phase of a single file before it
+     * is canceled. Cancellation takes effect the next time the processor uses the compilation unit. A value of zero or
+     * less disables the timeout. Defaults to the value of the system property {@value #PROCESSOR_TIMEOUT_PROPERTY}.
+     * 
+     * @since 2.13
+     */
+    public void setProcessorTimeout(final long processorTimeout) {
+      this.processorTimeout = processorTimeout;
+    }
+    
+    /**
+     * Starts to watch a processor. The returned monitor has to be {@link ProcessorMonitor#stop() stopped} when the
+     * processor returned.
+     * 
+     * @since 2.13
+     */
+    public AnnotationProcessor.ProcessorMonitor monitor(final CompilationUnitImpl compilationUnit, final CancelIndicator cancelIndicator) {
+      final long timeout = this.processorTimeout;
+      if (((cancelIndicator == CancelIndicator.NullImpl) && (timeout <= 0))) {
+        return new AnnotationProcessor.ProcessorMonitor(compilationUnit, cancelIndicator, 0, null);
+      }
+      long _nanos = TimeUnit.MILLISECONDS.toNanos(timeout);
+      final AnnotationProcessor.ProcessorMonitor result = new AnnotationProcessor.ProcessorMonitor(compilationUnit, cancelIndicator, _nanos, this);
+      this.register(result);
+      return result;
+    }
+    
+    /**
+     * Marks the compilation unit of the given context as canceled when the given cancel indicator is canceled before
+     * the processor is finished.
+     * 
+     * @return always <code>null</code>
+     * @deprecated use {@link #monitor(CompilationUnitImpl, CancelIndicator)} instead
+     */
+    @Deprecated
     public Future<?> monitorUntil(final ActiveAnnotationContext ctx, final CancelIndicator cancelIndicator, final Function0<? extends Boolean> isFinished) {
-      Future<?> _xblockexpression = null;
-      {
-        final Runnable _function = () -> {
-          try {
-            while ((!(isFinished.apply()).booleanValue())) {
-              {
-                boolean _isCanceled = cancelIndicator.isCanceled();
-                if (_isCanceled) {
-                  CompilationUnitImpl _compilationUnit = ctx.getCompilationUnit();
-                  _compilationUnit.setCanceled(true);
-                  return;
-                }
-                Thread.sleep(100);
-              }
-            }
-          } catch (Throwable _e) {
-            throw Exceptions.sneakyThrow(_e);
+      CompilationUnitImpl _compilationUnit = ctx.getCompilationUnit();
+      final AnnotationProcessor.ProcessorMonitor monitor = new AnnotationProcessor.ProcessorMonitor(_compilationUnit, cancelIndicator, 0, this) {
+        @Override
+        public void check() {
+          Boolean _apply = isFinished.apply();
+          if ((_apply).booleanValue()) {
+            this.stop();
+          } else {
+            super.check();
           }
-        };
-        final Runnable r = _function;
-        Future<?> _xtrycatchfinallyexpression = null;
+        }
+      };
+      this.register(monitor);
+      return null;
+    }
+    
+    protected synchronized void register(final AnnotationProcessor.ProcessorMonitor monitor) {
+      this.running.add(monitor);
+      if ((this.check == null)) {
         try {
-          _xtrycatchfinallyexpression = this.pool.submit(r);
+          final Runnable _function = () -> {
+            this.checkRunning();
+          };
+          this.check = this.watchdog.scheduleWithFixedDelay(_function, AnnotationProcessor.CancellationObserver.CHECK_INTERVAL_MILLIS, AnnotationProcessor.CancellationObserver.CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
         } catch (final Throwable _t) {
           if (_t instanceof RejectedExecutionException) {
             final RejectedExecutionException e = (RejectedExecutionException)_t;
             AnnotationProcessor.CancellationObserver.log.debug(e.getMessage(), e);
-            new Thread(r).start();
+            this.watchdog = this.initWatchdog();
+            final Runnable _function_1 = () -> {
+              this.checkRunning();
+            };
+            this.check = this.watchdog.scheduleWithFixedDelay(_function_1, AnnotationProcessor.CancellationObserver.CHECK_INTERVAL_MILLIS, AnnotationProcessor.CancellationObserver.CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
           } else {
             throw Exceptions.sneakyThrow(_t);
           }
         }
-        _xblockexpression = _xtrycatchfinallyexpression;
       }
-      return _xblockexpression;
+    }
+    
+    protected synchronized void unregister(final AnnotationProcessor.ProcessorMonitor monitor) {
+      this.running.remove(monitor);
+      if ((this.running.isEmpty() && (this.check != null))) {
+        this.check.cancel(false);
+        this.check = null;
+      }
+    }
+    
+    protected void checkRunning() {
+      for (final AnnotationProcessor.ProcessorMonitor monitor : this.running) {
+        try {
+          monitor.check();
+        } catch (final Throwable _t) {
+          if (_t instanceof Throwable) {
+            final Throwable t = (Throwable)_t;
+            AnnotationProcessor.CancellationObserver.log.error(t.getMessage(), t);
+          } else {
+            throw Exceptions.sneakyThrow(_t);
+          }
+        }
+      }
+    }
+    
+    @Pure
+    protected ScheduledExecutorService getWatchdog() {
+      return this.watchdog;
     }
     
     @Pure
@@ -106,6 +227,76 @@ public class AnnotationProcessor {
     }
   }
   
+  /**
+   * The state of a running annotation processor that is watched by the {@link CancellationObserver}. It is the cancel
+   * indicator of the processor, so a timeout does not affect the other processors of the compilation unit. If the
+   * given cancel indicator is canceled, the whole compilation unit is canceled.
+   * 
+   * @since 2.13
+   */
+  protected static class ProcessorMonitor implements CancelIndicator {
+    private final CompilationUnitImpl compilationUnit;
+    
+    private final CancelIndicator cancelIndicator;
+    
+    private final long timeoutNanos;
+    
+    private final long start = System.nanoTime();
+    
+    private final AnnotationProcessor.CancellationObserver observer;
+    
+    private volatile boolean canceled = false;
+    
+    private volatile boolean timedOut = false;
+    
+    public ProcessorMonitor(final CompilationUnitImpl compilationUnit, final CancelIndicator cancelIndicator, final long timeoutNanos, final AnnotationProcessor.CancellationObserver observer) {
+      this.compilationUnit = compilationUnit;
+      this.cancelIndicator = cancelIndicator;
+      this.timeoutNanos = timeoutNanos;
+      this.observer = observer;
+    }
+    
+    /**
+     * Cancels the processor if its cancel indicator is canceled or if it exceeded its timeout.
+     */
+    public void check() {
+      boolean _isCanceled = this.cancelIndicator.isCanceled();
+      if (_isCanceled) {
+        this.cancel();
+      } else {
+        if (((this.timeoutNanos > 0) && ((System.nanoTime() - this.start) > this.timeoutNanos))) {
+          this.timedOut = true;
+          this.canceled = true;
+        }
+      }
+    }
+    
+    @Override
+    public boolean isCanceled() {
+      if (((!this.canceled) && this.cancelIndicator.isCanceled())) {
+        this.cancel();
+      }
+      return this.canceled;
+    }
+    
+    private void cancel() {
+      this.canceled = true;
+      if (this.compilationUnit!=null) {
+        this.compilationUnit.setCanceled(true);
+      }
+    }
+    
+    public boolean isTimedOut() {
+      return this.timedOut;
+    }
+    
+    public void stop() {
+      if (this.observer!=null) {
+        this.observer.unregister(this);
+      }
+    }
+  }
+  
   @Inject
   private Provider<TransformationContextImpl> modifyContextProvider;
   
@@ -275,32 +466,44 @@ public class AnnotationProcessor {
   }
   
   /**
-   * runs the given runnable and another thread in parallel, that sets the timeout property on the compilation unit to true
-   * when the given amount of milliseconds have passed by.
+   * runs the given runnable and cancels it when the given cancel indicator is canceled or when the processor exceeded
+   * its timeout. A timeout only cancels this processor and is reported with an {@link IllegalStateException}.
    */
   private Object runWithCancelIndiciator(final ActiveAnnotationContext ctx, final CancelIndicator cancelIndicator, final Runnable runnable) {
-    Object _xblockexpression = null;
-    {
-      final AtomicBoolean isFinished = new AtomicBoolean(false);
-      final Function0<Boolean> _function = () -> {
-        return Boolean.valueOf(isFinished.get());
-      };
-      this.cancellationObserver.monitorUntil(ctx, cancelIndicator, _function);
-      Object _xtrycatchfinallyexpression = null;
-      try {
-        runnable.run();
-      } catch (final Throwable _t) {
-        if (_t instanceof CancellationException) {
-          final CancellationException e = (CancellationException)_t;
-          _xtrycatchfinallyexpression = null;
-        } else {
-          throw Exceptions.sneakyThrow(_t);
-        }
-      } finally {
-        isFinished.set(true);
+    final AnnotationProcessor.ProcessorMonitor monitor = this.cancellationObserver.monitor(ctx.getCompilationUnit(), cancelIndicator);
+    final ActiveAnnotationTimings timings = ActiveAnnotationTimings.find(ctx.getCompilationUnit().getXtendFile().eResource());
+    final long start = System.nanoTime();
+    CompilationUnitImpl _compilationUnit = ctx.getCompilationUnit();
+    _compilationUnit.setProcessorCancelIndicator(monitor);
+    try {
+      runnable.run();
+    } catch (final Throwable _t) {
+      if (_t instanceof CancellationException) {
+      } else {
+        throw Exceptions.sneakyThrow(_t);
+      }
+    } finally {
+      CompilationUnitImpl _compilationUnit_1 = ctx.getCompilationUnit();
+      _compilationUnit_1.setProcessorCancelIndicator(null);
+      monitor.stop();
+      if (timings!=null) {
+        long _nanoTime = System.nanoTime();
+        long _minus = (_nanoTime - start);
+        timings.record(ctx.getProcessorInstance(), _minus);
       }
-      _xblockexpression = _xtrycatchfinallyexpression;
     }
-    return _xblockexpression;
+    boolean _isTimedOut = monitor.isTimedOut();
+    if (_isTimedOut) {
+      StringConcatenation _builder = new StringConcatenation();
+      _builder.append("The annotation processor ");
+      String _name = ctx.getProcessorInstance().getClass().getName();
+      _builder.append(_name);
+      _builder.append(" did not finish within ");
+      long _processorTimeout = this.cancellationObserver.getProcessorTimeout();
+      _builder.append(_processorTimeout);
+      _builder.append(" ms.");
+      throw new IllegalStateException(_builder.toString());
+    }
+    return null;
   }
 }
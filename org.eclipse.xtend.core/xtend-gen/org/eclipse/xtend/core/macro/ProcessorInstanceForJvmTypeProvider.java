@@ -15,12 +15,16 @@ import java.io.IOException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
 import org.apache.log4j.Logger;
 import org.eclipse.emf.common.notify.Adapter;
 import org.eclipse.emf.common.notify.Notifier;
 import org.eclipse.emf.common.notify.impl.AdapterImpl;
 import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.resource.ResourceSet;
 import org.eclipse.xtend.lib.annotations.Accessors;
 import org.eclipse.xtend.lib.macro.TransformationContext;
@@ -95,8 +99,53 @@ public class ProcessorInstanceForJvmTypeProvider {
     }
   }
   
+  /**
+   * Holds the instances of the {@link ProcessorInstanceForJvmTypeProvider#isStateless(Class) stateless} processors of a
+   * resource set, keyed by their class and thereby by their class loader.
+   * @since 2.13
+   */
+  public static class ProcessorInstanceRegistry extends AdapterImpl {
+    private final Map<Class<?>, Object> instances = CollectionLiterals.<Class<?>, Object>newHashMap();
+    
+    public static ProcessorInstanceForJvmTypeProvider.ProcessorInstanceRegistry findOrInstall(final ResourceSet resourceSet) {
+      final ProcessorInstanceForJvmTypeProvider.ProcessorInstanceRegistry existing = IterableExtensions.<ProcessorInstanceForJvmTypeProvider.ProcessorInstanceRegistry>head(Iterables.<ProcessorInstanceForJvmTypeProvider.ProcessorInstanceRegistry>filter(resourceSet.eAdapters(), ProcessorInstanceForJvmTypeProvider.ProcessorInstanceRegistry.class));
+      if ((existing != null)) {
+        return existing;
+      }
+      final ProcessorInstanceForJvmTypeProvider.ProcessorInstanceRegistry result = new ProcessorInstanceForJvmTypeProvider.ProcessorInstanceRegistry();
+      EList<Adapter> _eAdapters = resourceSet.eAdapters();
+      _eAdapters.add(result);
+      return result;
+    }
+    
+    public Object getInstance(final Class<?> processorClass) {
+      try {
+        Object result = this.instances.get(processorClass);
+        if ((result == null)) {
+          result = processorClass.newInstance();
+          this.instances.put(processorClass, result);
+        }
+        return result;
+      } catch (Throwable _e) {
+        throw Exceptions.sneakyThrow(_e);
+      }
+    }
+    
+    @Override
+    public boolean isAdapterForType(final Object type) {
+      return Objects.equal(type, ProcessorInstanceForJvmTypeProvider.ProcessorInstanceRegistry.class);
+    }
+  }
+  
   private final static Logger logger = Logger.getLogger(ProcessorInstanceForJvmTypeProvider.class);
   
+  /**
+   * The processors of the library's active annotations, which do not keep any state between the invocations of their
+   * methods. A single instance of such a processor is created per resource set and is shared by all files.
+   * @since 2.13
+   */
+  public final static Set<String> BUILT_IN_STATELESS_PROCESSORS = Collections.<String>unmodifiableSet(CollectionLiterals.<String>newHashSet("org.eclipse.xtend.lib.annotations.AccessorsProcessor", "org.eclipse.xtend.lib.annotations.DataProcessor", "org.eclipse.xtend.lib.annotations.DelegateProcessor", "org.eclipse.xtend.lib.annotations.EqualsHashCodeProcessor", "org.eclipse.xtend.lib.annotations.FinalFieldsConstructorProcessor", "org.eclipse.xtend.lib.annotations.ToStringProcessor"));
+  
   /**
    * @return an instance of the given JvmType
    */
@@ -108,11 +157,10 @@ public class ProcessorInstanceForJvmTypeProvider {
         _loadClass=_classLoader.loadClass(type.getIdentifier());
       }
       final Class<?> loadClass = _loadClass;
-      Object _newInstance = null;
-      if (loadClass!=null) {
-        _newInstance=loadClass.newInstance();
+      if ((loadClass == null)) {
+        return null;
       }
-      return _newInstance;
+      return this.instantiate(loadClass, type);
     } catch (final Throwable _t) {
       if (_t instanceof Exception) {
         final Exception e = (Exception)_t;
@@ -128,6 +176,37 @@ public class ProcessorInstanceForJvmTypeProvider {
     }
   }
   
+  /**
+   * Creates a new instance of the given processor class, or returns the instance that was created before for the
+   * same resource set if the processor is {@link #isStateless(Class) stateless}.
+   * @since 2.13
+   */
+  protected Object instantiate(final Class<?> processorClass, final JvmType type) {
+    try {
+      Resource _eResource = type.eResource();
+      ResourceSet _resourceSet = null;
+      if (_eResource!=null) {
+        _resourceSet=_eResource.getResourceSet();
+      }
+      final ResourceSet resourceSet = _resourceSet;
+      if (((resourceSet != null) && this.isStateless(processorClass))) {
+        return ProcessorInstanceForJvmTypeProvider.ProcessorInstanceRegistry.findOrInstall(resourceSet).getInstance(processorClass);
+      }
+      return processorClass.newInstance();
+    } catch (Throwable _e) {
+      throw Exceptions.sneakyThrow(_e);
+    }
+  }
+  
+  /**
+   * Whether a single instance of the given processor class may be shared by all files of a resource set. By default
+   * this is only true for the {@link #BUILT_IN_STATELESS_PROCESSORS built-in processors}.
+   * @since 2.13
+   */
+  protected boolean isStateless(final Class<?> processorClass) {
+    return ProcessorInstanceForJvmTypeProvider.BUILT_IN_STATELESS_PROCESSORS.contains(processorClass.getName());
+  }
+  
   protected ClassLoader getClassLoader(final EObject ctx) {
     final ResourceSet resourceSet = ctx.eResource().getResourceSet();
     final ProcessorInstanceForJvmTypeProvider.ProcessorClassloaderAdapter adapter = IterableExtensions.<ProcessorInstanceForJvmTypeProvider.ProcessorClassloaderAdapter>head(Iterables.<ProcessorInstanceForJvmTypeProvider.ProcessorClassloaderAdapter>filter(resourceSet.eAdapters(), ProcessorInstanceForJvmTypeProvider.ProcessorClassloaderAdapter.class));
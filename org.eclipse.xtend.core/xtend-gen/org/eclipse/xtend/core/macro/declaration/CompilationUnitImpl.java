@@ -176,6 +176,7 @@ import org.eclipse.xtext.naming.IQualifiedNameConverter;
 import org.eclipse.xtext.naming.IQualifiedNameProvider;
 import org.eclipse.xtext.resource.CompilerPhases;
 import org.eclipse.xtext.scoping.IScopeProvider;
+import org.eclipse.xtext.util.CancelIndicator;
 import org.eclipse.xtext.util.Strings;
 import org.eclipse.xtext.validation.EObjectDiagnosticImpl;
 import org.eclipse.xtext.xbase.XExpression;
@@ -251,16 +252,37 @@ public class CompilationUnitImpl implements CompilationUnit {
   
   private volatile boolean canceled = false;
   
+  private final ThreadLocal<CancelIndicator> processorCancelIndicator = new ThreadLocal<CancelIndicator>();
+  
   public boolean setCanceled(final boolean canceled) {
     return this.canceled = canceled;
   }
   
+  /**
+   * Sets the cancel indicator of the processor that runs on the current thread, so a processor can be canceled
+   * without canceling the other processors of this compilation unit. <code>null</code> removes it.
+   * 
+   * @since 2.13
+   */
+  public void setProcessorCancelIndicator(final CancelIndicator cancelIndicator) {
+    if ((cancelIndicator == null)) {
+      this.processorCancelIndicator.remove();
+    } else {
+      this.processorCancelIndicator.set(cancelIndicator);
+    }
+  }
+  
   public void checkCanceled() {
-    if (this.canceled) {
+    if ((this.canceled || this.isProcessorCanceled())) {
       throw new CancellationException("compilation was canceled.");
     }
   }
   
+  private boolean isProcessorCanceled() {
+    final CancelIndicator cancelIndicator = this.processorCancelIndicator.get();
+    return ((cancelIndicator != null) && cancelIndicator.isCanceled());
+  }
+  
   @Inject
   private TypesFactory typesFactory;
   
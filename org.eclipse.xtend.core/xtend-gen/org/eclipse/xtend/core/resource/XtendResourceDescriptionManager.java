@@ -34,6 +34,13 @@ public class XtendResourceDescriptionManager extends DerivedStateAwareResourceDe
     return new XtendResourceDescription(resource, strategy, _cache, this.typeResolver, this.nameConverter);
   }
   
+  /**
+   * A resource that declares an active annotation is rebuilt on any change of a resource it depends on, since the
+   * implementation of its processor may have changed. Its clients are only rebuilt in turn if the fingerprint of the
+   * annotation changed.
+   * 
+   * @see XtendResourceDescriptionStrategy#getActiveAnnotationFingerprint(org.eclipse.xtext.common.types.JvmAnnotationType)
+   */
   @Override
   public boolean hasChanges(final IResourceDescription.Delta delta, final IResourceDescription candidate) {
     return (super.hasChanges(delta, candidate) || this.containsActiveAnnotation(candidate));
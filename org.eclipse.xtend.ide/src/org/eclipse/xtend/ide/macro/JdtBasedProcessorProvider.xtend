@@ -34,6 +34,10 @@ class JdtBasedProcessorProvider extends ProcessorInstanceForJvmTypeProvider {
 		try {
 			val classLoader = getClassLoader(type)
 			val result = classLoader.loadClass(type.identifier)
+			// editor resource sets live longer than a build, so only the builder shares stateless processors
+			if (ResourceSetContext.get(type.eResource.resourceSet).isBuilder) {
+				return instantiate(result, type)
+			}
 			return result.newInstance
 		} catch (Exception e) {
 			throw new IllegalStateException("Problem during instantiation of " + type.identifier + " : " + e.getMessage,
@@ -45,6 +45,10 @@ public class JdtBasedProcessorProvider extends ProcessorInstanceForJvmTypeProvid
     try {
       final ClassLoader classLoader = this.getClassLoader(type);
       final Class<?> result = classLoader.loadClass(type.getIdentifier());
+      boolean _isBuilder = ResourceSetContext.get(type.eResource().getResourceSet()).isBuilder();
+      if (_isBuilder) {
+        return this.instantiate(result, type);
+      }
       return result.newInstance();
     } catch (final Throwable _t) {
       if (_t instanceof Exception) {
@@ -15,6 +15,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.security.CodeSource;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
@@ -32,8 +33,13 @@ import org.codehaus.plexus.util.xml.Xpp3Dom;
 import org.eclipse.xtend.core.compiler.batch.XtendBatchCompiler;
 import org.eclipse.xtext.xbase.lib.Procedures.Procedure1;
 
+import com.google.common.base.Charsets;
 import com.google.common.base.Predicate;
+import com.google.common.base.Splitter;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Sets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 
@@ -41,6 +47,8 @@ import com.google.inject.Provider;
  * @author Michael Clay - Initial contribution and API
  */
 public abstract class AbstractXtendCompilerMojo extends AbstractXtendMojo {
+	private static final String INPUTS_FILE_NAME = "compilation-inputs.txt";
+
 	protected static final Predicate<String> FILE_EXISTS = new Predicate<String>() {
 
 		public boolean apply(String filePath) {
@@ -124,6 +132,102 @@ public abstract class AbstractXtendCompilerMojo extends AbstractXtendMojo {
 	 */
 	private String generatedAnnotationComment;
 
+	/**
+	 * The number of threads that are used to process Xtend sources concurrently. A value of 1 disables concurrent
+	 * processing.
+	 * 
+	 * @parameter default-value="1" expression="${xtend.threads}"
+	 */
+	private int threads;
+
+	/**
+	 * Set this to true to only compile the Xtend sources that have changed since the last successful compilation,
+	 * or that are affected by such changes.
+	 * 
+	 * @parameter default-value="false" expression="${xtend.incremental}"
+	 */
+	private boolean incremental;
+
+	/**
+	 * Set this to true to load unchanged Xtend sources from the storage files of the previous compilation instead of
+	 * parsing them. Only has an effect if <code>incremental</code> is enabled.
+	 * 
+	 * @parameter default-value="false" expression="${xtend.reuseStorageFiles}"
+	 */
+	private boolean reuseStorageFiles;
+
+	/**
+	 * Set this to true to compile the Java stubs of the Xtend sources in memory instead of writing them and their
+	 * class files to the temporary directory.
+	 * 
+	 * @parameter default-value="false" expression="${xtend.compileStubsInMemory}"
+	 */
+	private boolean compileStubsInMemory;
+
+	/**
+	 * The directory of a persistent cache for the JVM types that are derived from the jars on the classpath. The cache
+	 * is keyed by the content hash of the jars and may be shared between projects, e.g. by pointing it into the local
+	 * repository. No cache is used if this is not set.
+	 * 
+	 * @parameter expression="${xtend.jvmTypeCacheDirectory}"
+	 */
+	private String jvmTypeCacheDirectory;
+
+	/**
+	 * Set this to true to only write generated files whose content has changed. Unchanged files keep their timestamp,
+	 * so the Java compiler and other incremental tools do not process them again.
+	 * 
+	 * @parameter default-value="false" expression="${xtend.skipUnchangedFiles}"
+	 */
+	private boolean skipUnchangedFiles;
+
+	/**
+	 * The number of Xtend sources that are validated and generated together. Sources that are no longer needed are
+	 * unloaded after each shard, which bounds the memory that is needed for large projects. A value of 0 processes all
+	 * sources at once.
+	 * 
+	 * @parameter default-value="0" expression="${xtend.shardSize}"
+	 */
+	private int shardSize;
+
+	/**
+	 * A file that a JSON report with the wall time, CPU time and allocated bytes of each compiler phase, the slowest
+	 * files per phase and the time spent in each active annotation processor is written to. The compile and
+	 * testCompile goals should use different files. No report is written if this is not set.
+	 * 
+	 * @parameter expression="${xtend.profileReport}"
+	 */
+	private String profileReport;
+
+	/**
+	 * Set this to true to share the JVM types of the jars on the classpath with the other modules of the build. If
+	 * enabled, the types that are derived from a jar are kept in memory for the rest of the build session, so other
+	 * modules and goals that have the identical jar on their classpath load them from memory.
+	 * 
+	 * @parameter default-value="false" expression="${xtend.shareJvmTypes}"
+	 */
+	private boolean shareJvmTypes;
+
+	/**
+	 * Set this to true to keep the classes of active annotation processors loaded after the compilation. Subsequent
+	 * compilations in the same JVM, e.g. of other modules or of later builds of a Maven daemon, reuse them as long as
+	 * the classpath did not change. The cached class loaders keep the jars on the classpath open.
+	 * 
+	 * @parameter default-value="false" expression="${xtend.reuseProcessorClassLoaders}"
+	 */
+	private boolean reuseProcessorClassLoaders;
+
+	/**
+	 * Set this to true to skip the compilation of Xtend sources that are up to date. If enabled, the mojo records the
+	 * source files, the classpath and its configuration in its temporary directory after each successful compilation.
+	 * Compilation is skipped if none of them changed, and the changed sources are compiled incrementally if only
+	 * sources changed. Checking the classpath reads the size and modification time of every file in the classpath
+	 * directories, e.g. of the other modules of a reactor build.
+	 * 
+	 * @parameter default-value="false" expression="${xtend.staleSourceDetection}"
+	 */
+	private boolean staleSourceDetection;
+
 	@Inject
 	private Provider<XtendBatchCompiler> xtendBatchCompilerProvider;
 
@@ -171,10 +275,97 @@ public abstract class AbstractXtendCompilerMojo extends AbstractXtendMojo {
 		compiler.setFileEncoding(encoding);
 		log.debug("Set writeTraceFiles: " + writeTraceFiles);
 		compiler.setWriteTraceFiles(writeTraceFiles);
+		log.debug("Set threads: " + threads);
+		compiler.setNumberOfThreads(threads);
+		log.debug("Set incremental: " + incremental);
+		compiler.setIncremental(incremental);
+		log.debug("Set reuseStorageFiles: " + reuseStorageFiles);
+		compiler.setReuseStorageFiles(reuseStorageFiles);
+		log.debug("Set compileStubsInMemory: " + compileStubsInMemory);
+		compiler.setCompileStubsInMemory(compileStubsInMemory);
+		log.debug("Set jvmTypeCacheDirectory: " + jvmTypeCacheDirectory);
+		compiler.setJvmTypeCacheDirectory(jvmTypeCacheDirectory);
+		log.debug("Set skipUnchangedFiles: " + skipUnchangedFiles);
+		compiler.setSkipUnchangedFiles(skipUnchangedFiles);
+		log.debug("Set shardSize: " + shardSize);
+		compiler.setShardSize(shardSize);
+		log.debug("Set profileReport: " + profileReport);
+		compiler.setProfileReport(profileReport);
+		log.debug("Set shareJvmTypes: " + shareJvmTypes);
+		if (shareJvmTypes) {
+			compiler.setSharedJvmTypeCache(XtendBuildSessionCache.get(session).getJvmTypeCache());
+		}
+		log.debug("Set reuseProcessorClassLoaders: " + reuseProcessorClassLoaders);
+		compiler.setReuseProcessorClassLoaders(reuseProcessorClassLoaders);
+		File inputsFile = new File(getTempDirectory(), INPUTS_FILE_NAME);
+		CompilationInputs inputs = null;
+		if (staleSourceDetection) {
+			CompilationInputs previousInputs = CompilationInputs.load(inputsFile);
+			try {
+				inputs = CompilationInputs.compute(filtered, getInputClassPath(classPath + File.pathSeparator + bootClassPath),
+						getConfiguration(outputPath), previousInputs);
+			} catch (IOException e) {
+				log.warn("Unable to determine whether the Xtend sources are up to date.", e);
+			}
+			if (inputs != null && inputs.isUpToDate(previousInputs) && previousInputs.hasOutputs()) {
+				log.info("Xtend sources are up to date, skipping compilation.");
+				return;
+			}
+			if (inputs != null && previousInputs != null && inputs.hasSameEnvironment(previousInputs)) {
+				log.info(inputs.getChangedSources(previousInputs).size() + " source files changed, compiling incrementally.");
+				compiler.setIncremental(true);
+			}
+			inputsFile.delete();
+		}
 		if (!compiler.compile()) {
 			String dir = concat(File.pathSeparator, newArrayList(filtered));
 			throw new MojoExecutionException("Error compiling xtend sources in '" + dir + "'.");
 		}
+		if (inputs != null) {
+			try {
+				inputs.addOutputs(new File(outputPath));
+				inputs.save(inputsFile);
+			} catch (IOException e) {
+				log.warn("Unable to record the inputs of the Xtend compilation.", e);
+			}
+		}
+	}
+
+	/**
+	 * The classpath entries that are recorded to detect stale sources. The output directories of the project itself are
+	 * touched by the Java compiler in every build, so they are replaced by the sources they are compiled from.
+	 */
+	private List<String> getInputClassPath(String classPath) {
+		Set<File> outputDirectories = Sets.newHashSet(new File(project.getBuild().getOutputDirectory()).getAbsoluteFile(),
+				new File(project.getBuild().getTestOutputDirectory()).getAbsoluteFile());
+		List<String> result = newArrayList();
+		boolean containsOutputDirectory = false;
+		for (String entry : Splitter.on(File.pathSeparator).omitEmptyStrings().split(classPath)) {
+			if (outputDirectories.contains(new File(entry).getAbsoluteFile())) {
+				containsOutputDirectory = true;
+			} else {
+				result.add(entry);
+			}
+		}
+		if (containsOutputDirectory) {
+			result.addAll(project.getCompileSourceRoots());
+		}
+		return result;
+	}
+
+	/**
+	 * The hash of everything in the configuration that affects the generated files, including the location of the
+	 * compiler itself.
+	 */
+	private String getConfiguration(String outputPath) {
+		Hasher hasher = Hashing.md5().newHasher();
+		CodeSource compilerLocation = XtendBatchCompiler.class.getProtectionDomain().getCodeSource();
+		for (Object value : Arrays.asList(compilerLocation != null ? compilerLocation.getLocation() : null, outputPath,
+				javaSourceVersion, encoding, writeTraceFiles, generateSyntheticSuppressWarnings,
+				generateGeneratedAnnotation, includeDateInGeneratedAnnotation, generatedAnnotationComment)) {
+			hasher.putString(String.valueOf(value), Charsets.UTF_8).putChar('\n');
+		}
+		return hasher.hash().toString();
 	}
 
 	private String getBootClassPath() {
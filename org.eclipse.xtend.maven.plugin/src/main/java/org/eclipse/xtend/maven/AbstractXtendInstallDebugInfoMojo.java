@@ -9,6 +9,11 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.eclipse.xtext.generator.trace.AbstractTraceRegion;
 import org.eclipse.xtext.generator.trace.ITraceToBytecodeInstaller;
@@ -19,10 +24,12 @@ import org.eclipse.xtext.smap.TraceAsSmapInstaller;
 import org.eclipse.xtext.util.Strings;
 
 import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 import com.google.common.io.Files;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 
@@ -63,6 +70,23 @@ public abstract class AbstractXtendInstallDebugInfoMojo extends AbstractXtendMoj
 	 */
 	protected boolean xtendAsPrimaryDebugSource;
 
+	/**
+	 * The number of threads that are used to read class files and to install traces concurrently. A value of 1
+	 * processes all class files on the calling thread.
+	 * 
+	 * @parameter default-value="1" expression="${xtend.threads}"
+	 */
+	protected int threads;
+
+	/**
+	 * Set this to true to only install traces into class files that are newer than their trace file and that do not
+	 * contain an SMAP yet. Older class files were not compiled from the current Java source, and class files with an
+	 * SMAP already received their trace in an earlier build.
+	 * 
+	 * @parameter default-value="false" expression="${xtend.onlyNewerClassFiles}"
+	 */
+	protected boolean onlyNewerClassFiles;
+
 	protected void collectJavaSourceFile2traceFile(String root, String subdir,
 			Map<String, File> javaSourceFile2traceFile) {
 		File file = new File(root + "/" + subdir);
@@ -94,8 +118,8 @@ public abstract class AbstractXtendInstallDebugInfoMojo extends AbstractXtendMoj
 		}
 	}
 
-	protected Multimap<File, File> createTraceToClassFileMap(List<String> sourceFolders, String outputFolder) {
-		Map<String, File> javaSourceFile2traceFile = Maps.newLinkedHashMap();
+	protected Multimap<File, File> createTraceToClassFileMap(List<String> sourceFolders, final String outputFolder) {
+		final Map<String, File> javaSourceFile2traceFile = Maps.newLinkedHashMap();
 
 		for (String sourceRoot : sourceFolders)
 			collectJavaSourceFile2traceFile(sourceRoot, "", javaSourceFile2traceFile);
@@ -106,24 +130,54 @@ public abstract class AbstractXtendInstallDebugInfoMojo extends AbstractXtendMoj
 
 		Multimap<File, File> trace2class = LinkedHashMultimap.create();
 
-		for (String packageDirName : packageDirs) {
-			File packageDir = new File(outputFolder + "/" + packageDirName);
-			if (packageDir.isDirectory()) {
-				for (File classFile : packageDir.listFiles())
-					if (classFile.getName().endsWith(".class"))
-						try {
-							String sourceFileName = classFileDebugSourceExtractor.getDebugSourceFileName(classFile);
-							if (Strings.isEmpty(sourceFileName))
-								continue;
-							if (!sourceFileName.toLowerCase().endsWith(".java"))
-								continue;
-							File traceFile = javaSourceFile2traceFile.get(packageDirName + "/" + sourceFileName);
-							if (traceFile != null)
-								trace2class.put(traceFile, classFile);
-						} catch (IOException e) {
-							getLog().error("Error reading " + classFile, e);
-						}
+		if (threads <= 1) {
+			for (String packageDirName : packageDirs)
+				trace2class.putAll(createTraceToClassFileMap(packageDirName, outputFolder, javaSourceFile2traceFile));
+			return trace2class;
+		}
+		ExecutorService executor = createExecutorService();
+		try {
+			List<Future<Multimap<File, File>>> results = Lists.newArrayList();
+			for (final String packageDirName : packageDirs) {
+				results.add(executor.submit(new Callable<Multimap<File, File>>() {
+					public Multimap<File, File> call() throws Exception {
+						return createTraceToClassFileMap(packageDirName, outputFolder, javaSourceFile2traceFile);
+					}
+				}));
 			}
+			// merge in the order of the packages, so the result does not depend on the scheduling
+			for (Future<Multimap<File, File>> result : results)
+				trace2class.putAll(getResult(result));
+		} finally {
+			executor.shutdownNow();
+		}
+		return trace2class;
+	}
+
+	private Multimap<File, File> createTraceToClassFileMap(String packageDirName, String outputFolder,
+			Map<String, File> javaSourceFile2traceFile) {
+		Multimap<File, File> trace2class = LinkedHashMultimap.create();
+		File packageDir = new File(outputFolder + "/" + packageDirName);
+		if (packageDir.isDirectory()) {
+			for (File classFile : packageDir.listFiles())
+				if (classFile.getName().endsWith(".class"))
+					try {
+						ClassFileDebugSourceExtractor.DebugInfo debugInfo = classFileDebugSourceExtractor.getDebugInfo(classFile);
+						String sourceFileName = debugInfo.getSourceFileName();
+						if (Strings.isEmpty(sourceFileName))
+							continue;
+						if (!sourceFileName.toLowerCase().endsWith(".java"))
+							continue;
+						File traceFile = javaSourceFile2traceFile.get(packageDirName + "/" + sourceFileName);
+						if (traceFile == null)
+							continue;
+						if (onlyNewerClassFiles
+								&& (debugInfo.hasSourceDebugExtension() || classFile.lastModified() < traceFile.lastModified()))
+							continue;
+						trace2class.put(traceFile, classFile);
+					} catch (IOException e) {
+						getLog().error("Error reading " + classFile, e);
+					}
 		}
 		return trace2class;
 	}
@@ -149,12 +203,60 @@ public abstract class AbstractXtendInstallDebugInfoMojo extends AbstractXtendMoj
 	}
 
 	protected void installTraces(Multimap<File, File> trace2class) {
-		for (Map.Entry<File, Collection<File>> e : trace2class.asMap().entrySet()) {
-			try {
-				installTrace(e.getKey(), e.getValue());
-			} catch (Exception e1) {
-				getLog().error(e1);
+		if (threads <= 1) {
+			for (Map.Entry<File, Collection<File>> e : trace2class.asMap().entrySet()) {
+				try {
+					installTrace(e.getKey(), e.getValue());
+				} catch (Exception e1) {
+					getLog().error(e1);
+				}
+			}
+			return;
+		}
+		ExecutorService executor = createExecutorService();
+		try {
+			List<Future<?>> results = Lists.newArrayList();
+			for (final Map.Entry<File, Collection<File>> e : trace2class.asMap().entrySet()) {
+				results.add(executor.submit(new Runnable() {
+					public void run() {
+						try {
+							installTrace(e.getKey(), e.getValue());
+						} catch (Exception e1) {
+							getLog().error(e1);
+						}
+					}
+				}));
+			}
+			for (Future<?> result : results)
+				getResult(result);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Creates the pool that is used to process class files concurrently.
+	 */
+	protected ExecutorService createExecutorService() {
+		ThreadFactoryBuilder threadFactory = new ThreadFactoryBuilder().setNameFormat("XtendInstallDebugInfo-%d").setDaemon(true);
+		return Executors.newFixedThreadPool(threads, threadFactory.build());
+	}
+
+	private <T> T getResult(Future<T> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
 			}
+			throw new RuntimeException(cause);
 		}
 	}
 
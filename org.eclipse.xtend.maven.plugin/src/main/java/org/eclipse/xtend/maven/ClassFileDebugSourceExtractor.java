@@ -1,16 +1,22 @@
 package org.eclipse.xtend.maven;
 
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.Opcodes;
 
-import com.google.common.io.Files;
-
 public class ClassFileDebugSourceExtractor {
 
+	private static final int CLASS_FILE_MAGIC = 0xCAFEBABE;
+
 	protected static class Visitor extends ClassVisitor {
 		public Visitor() {
 			super(Opcodes.ASM5);
@@ -18,16 +24,191 @@ public class ClassFileDebugSourceExtractor {
 
 		protected String source;
 
+		protected String debug;
+
 		@Override
 		public void visitSource(String arg0, String arg1) {
 			this.source = arg0;
+			this.debug = arg1;
+		}
+	}
+
+	/**
+	 * The debug information of a class file.
+	 */
+	public static class DebugInfo {
+		private final String sourceFileName;
+		private final boolean hasSourceDebugExtension;
+
+		public DebugInfo(/* @Nullable */ String sourceFileName, boolean hasSourceDebugExtension) {
+			this.sourceFileName = sourceFileName;
+			this.hasSourceDebugExtension = hasSourceDebugExtension;
+		}
+
+		/* @Nullable */
+		public String getSourceFileName() {
+			return sourceFileName;
+		}
+
+		/**
+		 * Whether the class file has a <code>SourceDebugExtension</code>, i.e. an SMAP.
+		 */
+		public boolean hasSourceDebugExtension() {
+			return hasSourceDebugExtension;
 		}
 	}
 
 	public String getDebugSourceFileName(File classFile) throws IOException {
-		ClassReader cr = new ClassReader(Files.toByteArray(classFile));
+		return getDebugInfo(classFile).getSourceFileName();
+	}
+
+	/**
+	 * Reads the <code>SourceFile</code> and <code>SourceDebugExtension</code> attributes of the given class file. Only
+	 * the constant pool and the attribute headers are decoded, member attributes and code are skipped. Class files
+	 * with an unknown constant pool entry are read with ASM.
+	 */
+	public DebugInfo getDebugInfo(File classFile) throws IOException {
+		ByteBuffer buffer = read(classFile);
+		try {
+			DebugInfo result = parse(buffer);
+			if (result != null) {
+				return result;
+			}
+		} catch (BufferUnderflowException e) {
+			// truncated or corrupt, let ASM report it
+		} catch (IndexOutOfBoundsException e) {
+			// same as above
+		} catch (IllegalArgumentException e) {
+			// same as above
+		}
+		byte[] bytes = buffer.array();
+		ClassReader cr = new ClassReader(bytes);
 		Visitor visitor = new Visitor();
 		cr.accept(visitor, ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES);
-		return visitor.source;
+		return new DebugInfo(visitor.source, visitor.debug != null);
+	}
+
+	/**
+	 * Reads the class file with a single channel read. The file is not memory-mapped, since a mapped file cannot be
+	 * rewritten on some platforms until the mapping is garbage collected, and the trace installers rewrite the very
+	 * same class files.
+	 */
+	private ByteBuffer read(File classFile) throws IOException {
+		FileInputStream in = new FileInputStream(classFile);
+		try {
+			FileChannel channel = in.getChannel();
+			ByteBuffer result = ByteBuffer.allocate((int) channel.size());
+			while (result.hasRemaining() && channel.read(result) >= 0) {
+				// read fully
+			}
+			result.flip();
+			return result;
+		} finally {
+			in.close();
+		}
+	}
+
+	/* @Nullable */
+	private DebugInfo parse(ByteBuffer buffer) throws IOException {
+		if (buffer.getInt() != CLASS_FILE_MAGIC) {
+			return null;
+		}
+		// minor and major version
+		skip(buffer, 4);
+		int constantPoolCount = buffer.getShort() & 0xFFFF;
+		int[] utf8Offsets = new int[constantPoolCount];
+		for (int i = 1; i < constantPoolCount; i++) {
+			int tag = buffer.get();
+			switch (tag) {
+				case 1: // Utf8
+					utf8Offsets[i] = buffer.position();
+					skip(buffer, buffer.getShort() & 0xFFFF);
+					break;
+				case 7: // Class
+				case 8: // String
+				case 16: // MethodType
+				case 19: // Module
+				case 20: // Package
+					skip(buffer, 2);
+					break;
+				case 15: // MethodHandle
+					skip(buffer, 3);
+					break;
+				case 3: // Integer
+				case 4: // Float
+				case 9: // Fieldref
+				case 10: // Methodref
+				case 11: // InterfaceMethodref
+				case 12: // NameAndType
+				case 17: // Dynamic
+				case 18: // InvokeDynamic
+					skip(buffer, 4);
+					break;
+				case 5: // Long
+				case 6: // Double
+					skip(buffer, 8);
+					i++;
+					break;
+				default:
+					return null;
+			}
+		}
+		// access flags, this class and super class
+		skip(buffer, 6);
+		int interfacesCount = buffer.getShort() & 0xFFFF;
+		skip(buffer, 2 * interfacesCount);
+		// fields and methods
+		for (int i = 0; i < 2; i++) {
+			int membersCount = buffer.getShort() & 0xFFFF;
+			for (int j = 0; j < membersCount; j++) {
+				// access flags, name and descriptor
+				skip(buffer, 6);
+				skipAttributes(buffer);
+			}
+		}
+		String sourceFileName = null;
+		boolean hasSourceDebugExtension = false;
+		int attributesCount = buffer.getShort() & 0xFFFF;
+		for (int i = 0; i < attributesCount; i++) {
+			String name = readUtf8(buffer, utf8Offsets, buffer.getShort() & 0xFFFF);
+			int length = buffer.getInt();
+			if ("SourceFile".equals(name)) {
+				int end = buffer.position() + length;
+				sourceFileName = readUtf8(buffer, utf8Offsets, buffer.getShort() & 0xFFFF);
+				buffer.position(end);
+			} else {
+				if ("SourceDebugExtension".equals(name)) {
+					hasSourceDebugExtension = true;
+				}
+				skip(buffer, length);
+			}
+		}
+		return new DebugInfo(sourceFileName, hasSourceDebugExtension);
+	}
+
+	private void skipAttributes(ByteBuffer buffer) {
+		int attributesCount = buffer.getShort() & 0xFFFF;
+		for (int i = 0; i < attributesCount; i++) {
+			// name
+			skip(buffer, 2);
+			skip(buffer, buffer.getInt());
+		}
+	}
+
+	private void skip(ByteBuffer buffer, int bytes) {
+		buffer.position(buffer.position() + bytes);
+	}
+
+	/**
+	 * Decodes the modified UTF-8 of a constant pool entry without moving the buffer's position.
+	 */
+	/* @Nullable */
+	private String readUtf8(ByteBuffer buffer, int[] utf8Offsets, int index) throws IOException {
+		if (index <= 0 || index >= utf8Offsets.length || utf8Offsets[index] == 0) {
+			return null;
+		}
+		int offset = utf8Offsets[index];
+		int length = 2 + (buffer.getShort(offset) & 0xFFFF);
+		return new DataInputStream(new ByteArrayInputStream(buffer.array(), offset, length)).readUTF();
 	}
 }
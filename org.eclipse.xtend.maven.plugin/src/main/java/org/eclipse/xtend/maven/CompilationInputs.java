@@ -0,0 +1,257 @@
+/*******************************************************************************
+ * Copyright (c) 2017 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtend.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Objects;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+
+/**
+ * A snapshot of everything a compilation of the Xtend mojos depends on: the files in the source directories, the
+ * classpath and the configuration. It also lists the files the compilation generated. It is stored next to the
+ * temporary files of the mojo, so a subsequent build can tell whether the sources and outputs are up to date.
+ *
+ * The content hash of a source file is only computed if its size or modification time changed. Classpath entries are
+ * compared by their size and modification time, which for directories includes all files below them. The attributes
+ * of each file are read only once per build.
+ */
+public class CompilationInputs {
+
+	private static final String VERSION = "2";
+
+	private static final String SOURCE_PREFIX = "source\t";
+
+	private static final String OUTPUT_PREFIX = "output\t";
+
+	private String configuration;
+
+	private String classPath;
+
+	/**
+	 * The length, modification time and content hash of each source file, keyed by its absolute path.
+	 */
+	private final Map<String, SourceFile> sources = Maps.newTreeMap();
+
+	/**
+	 * The absolute paths of the generated files.
+	 */
+	private final Set<String> outputs = Sets.newTreeSet();
+
+	private static class SourceFile {
+		private final long length;
+		private final long lastModified;
+		private final String hash;
+
+		private SourceFile(long length, long lastModified, String hash) {
+			this.length = length;
+			this.lastModified = lastModified;
+			this.hash = hash;
+		}
+	}
+
+	/**
+	 * Computes the inputs of a compilation. Hashes of unchanged files are taken from the given previous inputs. Source
+	 * directories that are on the classpath, too, are only considered as sources.
+	 */
+	public static CompilationInputs compute(Iterable<String> sourcePaths, Iterable<String> classPathEntries,
+			String configuration, /* @Nullable */ CompilationInputs previous) throws IOException {
+		CompilationInputs result = new CompilationInputs();
+		result.configuration = configuration;
+		Set<File> sourceDirectories = Sets.newHashSet();
+		for (String sourcePath : sourcePaths) {
+			sourceDirectories.add(new File(sourcePath).getAbsoluteFile());
+		}
+		Hasher classPathHasher = Hashing.md5().newHasher();
+		for (String entry : classPathEntries) {
+			File file = new File(entry);
+			if (!sourceDirectories.contains(file.getAbsoluteFile())) {
+				classPathHasher.putString(entry, Charsets.UTF_8);
+				for (Map.Entry<String, BasicFileAttributes> child : readAttributes(file).entrySet()) {
+					classPathHasher.putString(child.getKey(), Charsets.UTF_8)
+							.putLong(child.getValue().size())
+							.putLong(child.getValue().lastModifiedTime().toMillis());
+				}
+			}
+		}
+		result.classPath = classPathHasher.hash().toString();
+		for (String sourcePath : sourcePaths) {
+			result.addSources(new File(sourcePath), previous);
+		}
+		return result;
+	}
+
+	/**
+	 * Reads the attributes of the given file or of all files below the given directory in a single pass, keyed by
+	 * their path relative to the given file and sorted by it.
+	 */
+	private static Map<String, BasicFileAttributes> readAttributes(File file) throws IOException {
+		final Map<String, BasicFileAttributes> result = Maps.newTreeMap();
+		if (!file.exists()) {
+			return result;
+		}
+		final Path root = file.toPath();
+		java.nio.file.Files.walkFileTree(root, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE,
+				new SimpleFileVisitor<Path>() {
+					@Override
+					public FileVisitResult visitFile(Path child, BasicFileAttributes attributes) {
+						if (attributes.isRegularFile()) {
+							result.put(root.relativize(child).toString(), attributes);
+						}
+						return FileVisitResult.CONTINUE;
+					}
+				});
+		return result;
+	}
+
+	private void addSources(File directory, /* @Nullable */ CompilationInputs previous) throws IOException {
+		for (Map.Entry<String, BasicFileAttributes> child : readAttributes(directory).entrySet()) {
+			File file = new File(directory, child.getKey());
+			String path = file.getAbsolutePath();
+			long length = child.getValue().size();
+			long lastModified = child.getValue().lastModifiedTime().toMillis();
+			SourceFile previousFile = previous != null ? previous.sources.get(path) : null;
+			String hash;
+			if (previousFile != null && previousFile.length == length && previousFile.lastModified == lastModified) {
+				hash = previousFile.hash;
+			} else {
+				hash = Files.asByteSource(file).hash(Hashing.md5()).toString();
+			}
+			sources.put(path, new SourceFile(length, lastModified, hash));
+		}
+	}
+
+	/**
+	 * Records the files in the given output directory as the outputs of the compilation.
+	 */
+	public void addOutputs(File outputDirectory) throws IOException {
+		for (String child : readAttributes(outputDirectory).keySet()) {
+			outputs.add(new File(outputDirectory, child).getAbsolutePath());
+		}
+	}
+
+	/**
+	 * Whether all recorded outputs still exist.
+	 */
+	public boolean hasOutputs() {
+		for (String output : outputs) {
+			if (!new File(output).isFile()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Whether the configuration and the classpath are the same as in the given inputs, i.e. whether only sources may
+	 * have changed.
+	 */
+	public boolean hasSameEnvironment(CompilationInputs other) {
+		return configuration.equals(other.configuration) && classPath.equals(other.classPath);
+	}
+
+	/**
+	 * Whether nothing changed compared to the given inputs, except for the modification time of files whose content is
+	 * still the same.
+	 */
+	public boolean isUpToDate(/* @Nullable */ CompilationInputs other) {
+		return other != null && hasSameEnvironment(other) && getChangedSources(other).isEmpty();
+	}
+
+	/**
+	 * The paths of the source files that were added, removed or changed compared to the given inputs.
+	 */
+	public List<String> getChangedSources(CompilationInputs other) {
+		List<String> result = Lists.newArrayList();
+		for (Map.Entry<String, SourceFile> entry : sources.entrySet()) {
+			SourceFile otherFile = other.sources.get(entry.getKey());
+			if (otherFile == null || !Objects.equal(otherFile.hash, entry.getValue().hash)) {
+				result.add(entry.getKey());
+			}
+		}
+		for (String path : other.sources.keySet()) {
+			if (!sources.containsKey(path)) {
+				result.add(path);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Reads the inputs from the given file. Returns <code>null</code> if the file does not exist or is not readable.
+	 */
+	/* @Nullable */
+	public static CompilationInputs load(File file) {
+		if (!file.isFile()) {
+			return null;
+		}
+		try {
+			List<String> lines = Files.readLines(file, Charsets.UTF_8);
+			if (lines.size() < 3 || !VERSION.equals(lines.get(0))) {
+				return null;
+			}
+			CompilationInputs result = new CompilationInputs();
+			result.configuration = lines.get(1);
+			result.classPath = lines.get(2);
+			for (String line : lines.subList(3, lines.size())) {
+				if (line.startsWith(OUTPUT_PREFIX)) {
+					result.outputs.add(line.substring(OUTPUT_PREFIX.length()));
+					continue;
+				}
+				if (!line.startsWith(SOURCE_PREFIX)) {
+					return null;
+				}
+				String[] segments = line.substring(SOURCE_PREFIX.length()).split("\t");
+				if (segments.length != 4) {
+					return null;
+				}
+				result.sources.put(segments[0], new SourceFile(Long.parseLong(segments[1]), Long.parseLong(segments[2]),
+						segments[3]));
+			}
+			return result;
+		} catch (IOException e) {
+			return null;
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	public void save(File file) throws IOException {
+		StringBuilder content = new StringBuilder();
+		content.append(VERSION).append('\n');
+		content.append(configuration).append('\n');
+		content.append(classPath).append('\n');
+		for (Map.Entry<String, SourceFile> entry : sources.entrySet()) {
+			SourceFile sourceFile = entry.getValue();
+			content.append(SOURCE_PREFIX).append(entry.getKey()).append('\t').append(sourceFile.length).append('\t')
+					.append(sourceFile.lastModified).append('\t').append(sourceFile.hash).append('\n');
+		}
+		for (String output : outputs) {
+			content.append(OUTPUT_PREFIX).append(output).append('\n');
+		}
+		Files.createParentDirs(file);
+		Files.write(content, file, Charsets.UTF_8);
+	}
+
+}
@@ -0,0 +1,46 @@
+/*******************************************************************************
+ * Copyright (c) 2017 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtend.maven;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.eclipse.xtend.core.compiler.batch.SharedJvmTypeCache;
+
+/**
+ * State that is shared by all executions of the Xtend mojos in one build session, i.e. by the compile and testCompile
+ * goals of all modules of a reactor build. The state is dropped together with the session.
+ */
+public class XtendBuildSessionCache {
+
+	/**
+	 * The caches are keyed by the execution request, since parallel builds pass a copy of the session to each module.
+	 */
+	private static final Map<MavenExecutionRequest, XtendBuildSessionCache> caches = new WeakHashMap<MavenExecutionRequest, XtendBuildSessionCache>();
+
+	public static synchronized XtendBuildSessionCache get(MavenSession session) {
+		XtendBuildSessionCache result = caches.get(session.getRequest());
+		if (result == null) {
+			result = new XtendBuildSessionCache();
+			caches.put(session.getRequest(), result);
+		}
+		return result;
+	}
+
+	private final SharedJvmTypeCache jvmTypeCache = new SharedJvmTypeCache();
+
+	/**
+	 * The JVM types of the jars on the classpaths of the modules. Identical jars share their types across modules.
+	 */
+	public SharedJvmTypeCache getJvmTypeCache() {
+		return jvmTypeCache;
+	}
+
+}
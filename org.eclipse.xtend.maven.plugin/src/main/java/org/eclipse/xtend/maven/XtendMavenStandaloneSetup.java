@@ -13,7 +13,17 @@ public class XtendMavenStandaloneSetup implements ISetup {
 
 	private static Injector injector = null;
 
+	/**
+	 * Creates the injector once per plugin class loader, which Maven reuses for all modules of a build. The mojos of
+	 * a parallel build are created concurrently, thus the creation is synchronized.
+	 */
 	public Injector createInjectorAndDoEMFRegistration() {
+		synchronized (XtendMavenStandaloneSetup.class) {
+			return internalCreateInjectorAndDoEMFRegistration();
+		}
+	}
+
+	private Injector internalCreateInjectorAndDoEMFRegistration() {
 		if (injector != null)
 			return injector;
 		XbaseWithAnnotationsStandaloneSetup.doSetup();
@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (c) 2017 itemis AG (http://www.itemis.eu) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtend.maven;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+
+import org.eclipse.xtend.maven.ClassFileDebugSourceExtractor.DebugInfo;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+
+import com.google.common.io.Files;
+
+public class ClassFileDebugSourceExtractorTest {
+
+	private static final String SMAP = "SMAP\nTest.java\nXtend\n*S Xtend\n*F\n+ 0 Test.xtend\nTest.xtend\n*L\n1:1\n*E\n";
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private final ClassFileDebugSourceExtractor extractor = new ClassFileDebugSourceExtractor();
+
+	@Test
+	public void testWithoutDebugInfo() throws Exception {
+		DebugInfo info = getDebugInfo(compile(null, null));
+		assertNull(info.getSourceFileName());
+		assertFalse(info.hasSourceDebugExtension());
+	}
+
+	@Test
+	public void testSourceFile() throws Exception {
+		DebugInfo info = getDebugInfo(compile("Test.java", null));
+		assertEquals("Test.java", info.getSourceFileName());
+		assertFalse(info.hasSourceDebugExtension());
+	}
+
+	@Test
+	public void testSourceFileAndSourceDebugExtension() throws Exception {
+		DebugInfo info = getDebugInfo(compile("Test.xtend", SMAP));
+		assertEquals("Test.xtend", info.getSourceFileName());
+		assertTrue(info.hasSourceDebugExtension());
+	}
+
+	@Test
+	public void testSourceDebugExtensionWithoutSourceFile() throws Exception {
+		DebugInfo info = getDebugInfo(createClassFile(false, true));
+		assertNull(info.getSourceFileName());
+		assertTrue(info.hasSourceDebugExtension());
+	}
+
+	/**
+	 * The <code>Long</code> and <code>Double</code> entries take two slots of the constant pool and the
+	 * <code>Dynamic</code> entry is unknown to ASM 5.
+	 */
+	@Test
+	public void testLongDoubleAndDynamicConstants() throws Exception {
+		DebugInfo info = getDebugInfo(createClassFile(true, false));
+		assertEquals("Test.xtend", info.getSourceFileName());
+		assertFalse(info.hasSourceDebugExtension());
+		info = getDebugInfo(createClassFile(true, true));
+		assertEquals("Test.xtend", info.getSourceFileName());
+		assertTrue(info.hasSourceDebugExtension());
+	}
+
+	@Test
+	public void testVisitorOfFallback() throws Exception {
+		ClassFileDebugSourceExtractor.Visitor visitor = new ClassFileDebugSourceExtractor.Visitor();
+		new ClassReader(compile("Test.xtend", SMAP)).accept(visitor, ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES);
+		assertEquals("Test.xtend", visitor.source);
+		assertEquals(SMAP, visitor.debug);
+		visitor = new ClassFileDebugSourceExtractor.Visitor();
+		new ClassReader(compile("Test.java", null)).accept(visitor, ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES);
+		assertEquals("Test.java", visitor.source);
+		assertNull(visitor.debug);
+	}
+
+	private DebugInfo getDebugInfo(byte[] classFile) throws IOException {
+		File file = temporaryFolder.newFile();
+		Files.write(classFile, file);
+		return extractor.getDebugInfo(file);
+	}
+
+	/**
+	 * Creates a class with a <code>long</code> and a <code>double</code> constant.
+	 */
+	private byte[] compile(String source, String debug) {
+		ClassWriter writer = new ClassWriter(0);
+		writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, "Test", null, "java/lang/Object", null);
+		if (source != null || debug != null) {
+			writer.visitSource(source, debug);
+		}
+		writer.visitField(Opcodes.ACC_STATIC | Opcodes.ACC_FINAL, "LONG", "J", null, Long.valueOf(1)).visitEnd();
+		writer.visitField(Opcodes.ACC_STATIC | Opcodes.ACC_FINAL, "DOUBLE", "D", null, Double.valueOf(2)).visitEnd();
+		writer.visitEnd();
+		return writer.toByteArray();
+	}
+
+	/**
+	 * Assembles a class file whose constant pool contains <code>Long</code>, <code>Double</code> and
+	 * <code>Dynamic</code> entries in front of the names of the debug attributes.
+	 */
+	private byte[] createClassFile(boolean sourceFile, boolean sourceDebugExtension) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(0xCAFEBABE);
+		out.writeShort(0);
+		out.writeShort(55);
+		out.writeShort(16);
+		// 1, 2: this class
+		out.writeByte(1);
+		out.writeUTF("Test");
+		out.writeByte(7);
+		out.writeShort(1);
+		// 3, 4: super class
+		out.writeByte(1);
+		out.writeUTF("java/lang/Object");
+		out.writeByte(7);
+		out.writeShort(3);
+		// 5 and 7 take two slots each
+		out.writeByte(5);
+		out.writeLong(1);
+		out.writeByte(6);
+		out.writeDouble(2);
+		// 9: Dynamic, 10: NameAndType
+		out.writeByte(17);
+		out.writeShort(0);
+		out.writeShort(10);
+		out.writeByte(12);
+		out.writeShort(11);
+		out.writeShort(12);
+		out.writeByte(1);
+		out.writeUTF("x");
+		out.writeByte(1);
+		out.writeUTF("I");
+		// 13 - 15: debug attributes
+		out.writeByte(1);
+		out.writeUTF("SourceFile");
+		out.writeByte(1);
+		out.writeUTF("Test.xtend");
+		out.writeByte(1);
+		out.writeUTF("SourceDebugExtension");
+		// access flags, this class, super class, interfaces, fields and methods
+		out.writeShort(Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER);
+		out.writeShort(2);
+		out.writeShort(4);
+		out.writeShort(0);
+		out.writeShort(0);
+		out.writeShort(0);
+		out.writeShort((sourceFile ? 1 : 0) + (sourceDebugExtension ? 1 : 0));
+		if (sourceFile) {
+			out.writeShort(13);
+			out.writeInt(2);
+			out.writeShort(14);
+		}
+		if (sourceDebugExtension) {
+			byte[] smap = SMAP.getBytes("UTF-8");
+			out.writeShort(15);
+			out.writeInt(smap.length);
+			out.write(smap);
+		}
+		out.close();
+		return bytes.toByteArray();
+	}
+
+}
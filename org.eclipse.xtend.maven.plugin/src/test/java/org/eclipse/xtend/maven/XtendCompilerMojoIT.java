@@ -87,6 +87,41 @@ public class XtendCompilerMojoIT {
 		verifyErrorFreeLog(ROOT + "/withtestsrc");
 	}
 
+	@Test
+	public void staleSourceDetection() throws Exception {
+		Verifier verifier = MavenVerifierUtil.newVerifier(ROOT + "/withtestsrc");
+		verifier.getCliOptions().add("-Dxtend.staleSourceDetection=true");
+		verifier.setLogFileName("log-first-build.txt");
+		verifier.executeGoal("test");
+		verifier.verifyErrorFreeLog();
+		Assert.assertEquals(0, countLinesInLog(verifier, "Xtend sources are up to date, skipping compilation."));
+
+		verifier.setLogFileName("log-second-build.txt");
+		verifier.executeGoal("test");
+		verifier.verifyErrorFreeLog();
+		// both the compile and the testCompile goal are skipped
+		Assert.assertEquals(2, countLinesInLog(verifier, "Xtend sources are up to date, skipping compilation."));
+
+		String generated = verifier.getBasedir() + "/src/main/generated-sources/xtend/foo/FooClass.java";
+		Assert.assertTrue(new File(generated).delete());
+		verifier.setLogFileName("log-third-build.txt");
+		verifier.executeGoal("test");
+		verifier.verifyErrorFreeLog();
+		// only the compile goal has to generate the deleted file again
+		Assert.assertEquals(1, countLinesInLog(verifier, "Xtend sources are up to date, skipping compilation."));
+		verifier.assertFilePresent(generated);
+	}
+
+	private int countLinesInLog(Verifier verifier, String text) throws VerificationException {
+		int result = 0;
+		for (String line : verifier.loadFile(verifier.getBasedir(), verifier.getLogFileName(), false)) {
+			if (line.contains(text)) {
+				result++;
+			}
+		}
+		return result;
+	}
+
 	@Test
 	public void aggregation() throws Exception {
 		Verifier verifier = MavenVerifierUtil.newVerifier(ROOT + "/aggregation");